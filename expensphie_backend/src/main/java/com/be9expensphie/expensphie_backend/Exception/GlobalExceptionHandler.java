@@ -1,5 +1,8 @@
 package com.be9expensphie.expensphie_backend.Exception;
 
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -16,6 +19,34 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    //temporary, the client may retry later
+    @ExceptionHandler(LlmUnavailableException.class)
+    public ResponseEntity<?> handleLlmUnavailable(LlmUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+            "message", e.getMessage()
+        ));
+    }
+
+    //register and password change, login answer it itself
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<?> handlePasswordHashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of(
+            "message", e.getMessage()
+        ));
+    }
+
+    //ai executor full, same answer as the bcrypt pool
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<?> handleTaskRejected(TaskRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(Map.of(
+            "message", "AI is busy, please try again later"
+        ));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<?> handleRuntime(RuntimeException e) {
         return ResponseEntity.badRequest().body(Map.of(
@@ -0,0 +1,14 @@
+package com.be9expensphie.expensphie_backend.Exception;
+
+import lombok.Getter;
+
+//every llm provider timed out, failed, is full or has its breaker open
+@Getter
+@SuppressWarnings("serial")
+public class LlmUnavailableException extends RuntimeException {
+
+    public LlmUnavailableException(String message, Throwable cause) {
+    	super(message, cause);
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.be9expensphie.expensphie_backend.Exception;
+
+import lombok.Getter;
+
+//password hashing queue is full, the client should retry shortly (429)
+@Getter
+@SuppressWarnings("serial")
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+    	super(message);
+    }
+
+}
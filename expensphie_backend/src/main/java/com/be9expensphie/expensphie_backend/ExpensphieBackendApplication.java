@@ -3,9 +3,11 @@ package com.be9expensphie.expensphie_backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class ExpensphieBackendApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(ExpensphieBackendApplication.class, args);
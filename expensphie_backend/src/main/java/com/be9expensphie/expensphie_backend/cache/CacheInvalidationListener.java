@@ -0,0 +1,26 @@
+package com.be9expensphie.expensphie_backend.cache;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+//receive eviction from other nodes and drop L1 entry
+public class CacheInvalidationListener implements MessageListener {
+    private final TwoTierCacheManager cacheManager;
+    private final String nodeId;
+
+    public CacheInvalidationListener(TwoTierCacheManager cacheManager, String nodeId) {
+        this.cacheManager = cacheManager;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        cacheManager.evictLocal(parts[1], parts.length == 3 ? parts[2] : null);
+    }
+}
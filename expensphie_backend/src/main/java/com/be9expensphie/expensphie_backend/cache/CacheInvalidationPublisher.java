@@ -0,0 +1,36 @@
+package com.be9expensphie.expensphie_backend.cache;
+
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+//broadcast L1 eviction to every backend node through redis pub/sub
+public class CacheInvalidationPublisher {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationPublisher.class);
+    public static final String CHANNEL = "cache-invalidation";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    //skip our own message, local L1 already evicted
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    //message: nodeId \n cacheName [\n key], no key mean clear whole cache
+    public void publish(String cacheName, String key) {
+        String message = nodeId + "\n" + cacheName + (key == null ? "" : "\n" + key);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (RuntimeException e) {
+            //L1 ttl still bound how long other nodes serve stale value
+            log.warn("Failed to publish cache invalidation for {}:{}", cacheName, key, e);
+        }
+    }
+}
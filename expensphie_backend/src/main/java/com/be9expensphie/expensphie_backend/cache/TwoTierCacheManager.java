@@ -0,0 +1,62 @@
+package com.be9expensphie.expensphie_backend.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+//wrap redis cache manager, every cache get a bounded caffeine tier in front
+public class TwoTierCacheManager implements CacheManager {
+    private final CacheManager remote;
+    private final CacheInvalidationPublisher publisher;
+    private final MeterRegistry meterRegistry;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remote,
+                               CacheInvalidationPublisher publisher,
+                               MeterRegistry meterRegistry,
+                               long localMaxSize,
+                               Duration localTtl) {
+        this.remote = remote;
+        this.publisher = publisher;
+        this.meterRegistry = meterRegistry;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache remoteCache = remote.getCache(name);
+        //short local ttl, bound staleness if an invalidation message is lost
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        return new TwoTierCache(name, remoteCache, local, publisher, meterRegistry);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    void evictLocal(String cacheName, String key) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+}
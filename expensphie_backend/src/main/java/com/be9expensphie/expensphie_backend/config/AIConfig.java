@@ -2,9 +2,15 @@ package com.be9expensphie.expensphie_backend.config;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
 
 @Configuration
 public class AIConfig {
@@ -20,4 +26,51 @@ public class AIConfig {
         return ChatClient.builder(openAiModel).build();
     }
 
+    //llm calls wait seconds on the network, run them here instead of on a request thread
+    //full in both modes: execute() throw TaskRejectedException at once (429 for the caller), never block the submitter
+    @Bean("aiExecutor")
+    public AsyncTaskExecutor aiExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.ai.executor.max-concurrency:200}") int maxConcurrency,
+            @Value("${app.ai.executor.pool-size:20}") int poolSize) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("ai-");
+            virtual.setVirtualThreads(true);
+            //threads are cheap, the limit protect the provider quota, no queue: over the limit is rejected
+            virtual.setConcurrencyLimit(maxConcurrency);
+            virtual.setRejectTasksWhenLimitReached(true);
+            //close() wait this long for running calls
+            virtual.setTaskTerminationTimeout(SHUTDOWN_WAIT_MS);
+            return new ClosingSecurityContextExecutor(virtual, virtual::close);
+        }
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setThreadNamePrefix("ai-");
+        pool.setCorePoolSize(poolSize);
+        pool.setMaxPoolSize(poolSize);
+        pool.setQueueCapacity(maxConcurrency);
+        pool.setWaitForTasksToCompleteOnShutdown(true);
+        pool.setAwaitTerminationMillis(SHUTDOWN_WAIT_MS);
+        pool.initialize();
+        return new ClosingSecurityContextExecutor(pool, pool::shutdown);
+    }
+
+    private static final long SHUTDOWN_WAIT_MS = 30_000;
+
+    //keep the caller authentication on the ai thread
+    //the inner executor is not a bean so spring never stop it, the wrapper bean stop it on context close
+    private static final class ClosingSecurityContextExecutor extends DelegatingSecurityContextAsyncTaskExecutor
+            implements DisposableBean {
+        private final Runnable shutdown;
+
+        ClosingSecurityContextExecutor(AsyncTaskExecutor delegate, Runnable shutdown) {
+            super(delegate);
+            this.shutdown = shutdown;
+        }
+
+        @Override
+        public void destroy() {
+            shutdown.run();
+        }
+    }
+
 }
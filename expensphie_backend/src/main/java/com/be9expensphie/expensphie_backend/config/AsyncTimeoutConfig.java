@@ -0,0 +1,36 @@
+package com.be9expensphie.expensphie_backend.config;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//spring.mvc.async.request-timeout is for every async request, only the export need minutes
+//a handler ask for the long timeout with the request attribute, set here right before async start
+@Configuration
+public class AsyncTimeoutConfig implements WebMvcConfigurer {
+    public static final String LONG_RUNNING = AsyncTimeoutConfig.class.getName() + ".LONG_RUNNING";
+
+    @Value("${app.export.request-timeout:10m}")
+    private Duration longRunningTimeout;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest asyncRequest
+                        && request.getAttribute(LONG_RUNNING, RequestAttributes.SCOPE_REQUEST) != null) {
+                    asyncRequest.setTimeout(longRunningTimeout.toMillis());
+                }
+            }
+        });
+    }
+}
@@ -6,6 +6,7 @@ import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
@@ -19,15 +20,39 @@ import java.util.Map;
 public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootStrapServers;
+    //simple broker: every node need every event, so each node has its own group
+    //relay: external broker fan out to all nodes, one shared group publish each event once
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+    @Value("${kafka.websocket.group-id}")
+    private String websocketGroupId;
+    @Value("${app.websocket.relay.group-id:websocket-relay}")
+    private String relayGroupId;
+    //one consumer thread per partition, more would sit idle
+    @Value("${kafka.websocket.partitions:3}")
+    private int websocketPartitions;
+    //broker hold the fetch until this many bytes or the wait run out, events of a burst land in one batch
+    @Value("${kafka.websocket.fetch-min-bytes:16384}")
+    private int fetchMinBytes;
+    @Value("${kafka.websocket.fetch-max-wait-ms:50}")
+    private int fetchMaxWaitMs;
+    @Value("${kafka.websocket.max-poll-records:500}")
+    private int maxPollRecords;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
 
     @Bean
     ConsumerFactory<String, WebSocketEvent> wsConsumerFactory(){
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootStrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, "relay".equalsIgnoreCase(brokerMode) ? relayGroupId : websocketGroupId);
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         config.put(JsonDeserializer.TRUSTED_PACKAGES, "com.be9expensphie.expensphie_backend.event");
         config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, WebSocketEvent.class.getName());
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         return new DefaultKafkaConsumerFactory<>(config);
     }
 
@@ -37,6 +62,16 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, WebSocketEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(wsConsumerFactory());
+        //a partition is only read by one thread, so per household order is kept
+        factory.setConcurrency(websocketPartitions);
+        //listener get the whole poll, so it can drop redelivered duplicates within it
+        factory.setBatchListener(true);
+        //boot only set this on its own factory, this one is ours
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-kafka-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
         return factory;
     }
 }
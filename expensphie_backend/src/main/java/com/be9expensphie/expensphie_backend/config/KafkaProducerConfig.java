@@ -3,6 +3,7 @@ package com.be9expensphie.expensphie_backend.config;
 
 import com.be9expensphie.expensphie_backend.event.EmailEvent;
 import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -11,6 +12,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 
 import java.util.HashMap;
@@ -21,38 +23,67 @@ public class KafkaProducerConfig {
     //take var and assign to bootstrap server(ex:9092)
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
+    //wait a bit so records to the same partition go out in one request
+    @Value("${app.kafka.producer.linger-ms:10}")
+    private int lingerMs;
+    @Value("${app.kafka.producer.batch-size:65536}")
+    private int batchSize;
+    //lz4 is cheap on cpu, zstd compress better
+    @Value("${app.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+    //send() block at most this long when metadata is missing or buffer is full
+    @Value("${app.kafka.producer.max-block-ms:5000}")
+    private long maxBlockMs;
+    //kafka refuse to start a producer when delivery timeout < linger + request timeout
+    @Value("${app.kafka.producer.request-timeout-ms:15000}")
+    private int requestTimeoutMs;
+    @Value("${app.kafka.producer.delivery-timeout-ms:30000}")
+    private int deliveryTimeoutMs;
 
     @Bean
-    //create and manage producer with key:string, value:emailEvent
-    public ProducerFactory<String, EmailEvent> producerFactory(){
+    //one producer for every event type: json value, string key
+    //DefaultKafkaProducerFactory hand the same producer instance to each template
+    public ProducerFactory<String, Object> producerFactory(MeterRegistry meterRegistry){
         //contain all config for producer
         Map<String,Object> config=new HashMap<>();
         //set address broker
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        //emailEvent is obj-> jsonSerializer
+        //events are obj-> jsonSerializer
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        //outbox relay retry a row until acked, broker must drop the duplicate of a retried send
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG,true);
+        config.put(ProducerConfig.ACKS_CONFIG,"all");
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,5);
+        //throughput
+        config.put(ProducerConfig.LINGER_MS_CONFIG,lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG,batchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG,compressionType);
+        //bounded wait when broker is slow or down
+        config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG,maxBlockMs);
+        config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG,requestTimeoutMs);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG,deliveryTimeoutMs);
         //factory create kafka
-        return new DefaultKafkaProducerFactory<String,EmailEvent>(config);
+        DefaultKafkaProducerFactory<String,Object> factory=new DefaultKafkaProducerFactory<>(config);
+        //producer metrics (record-send-rate, batch-size-avg, request-latency...) as kafka.producer.* meters
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     //send message to kafka
     @Bean
-    public KafkaTemplate<String, EmailEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, EmailEvent> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(typed(producerFactory));
     }
 
     @Bean
-    public ProducerFactory<String,WebSocketEvent> wsProducerFactory(){
-        Map<String,Object> config=new HashMap<>();
-        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG,StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(config);
+    public KafkaTemplate<String, WebSocketEvent> wsKafkaTemplate(ProducerFactory<String, Object> producerFactory){
+        return new KafkaTemplate<>(typed(producerFactory));
     }
 
-    @Bean
-    public KafkaTemplate<String, WebSocketEvent> wsKafkaTemplate(){
-        return new KafkaTemplate<>(wsProducerFactory());
+    //value type only matter for the template api, json serializer take any object
+    @SuppressWarnings("unchecked")
+    private static <V> ProducerFactory<String, V> typed(ProducerFactory<String, Object> producerFactory){
+        return (ProducerFactory<String, V>) (ProducerFactory<String, ?>) producerFactory;
     }
 }
@@ -10,6 +10,9 @@ import org.springframework.kafka.config.TopicBuilder;
 public class KafkaTopicConfig {
     @Value("${kafka.topic.email}")
     private String topicName;
+    //events are keyed by household, each partition keep its households in order
+    @Value("${kafka.websocket.partitions:3}")
+    private int websocketPartitions;
     @Bean
     public NewTopic sendEmailTopic(){
         return TopicBuilder.name(topicName)
@@ -21,7 +24,7 @@ public class KafkaTopicConfig {
     @Bean
     public NewTopic websocketEventsTopic(){
         return TopicBuilder.name("websocket-events")
-                .partitions(3)
+                .partitions(websocketPartitions)
                 .replicas(1)
                 .build();
     }
@@ -1,16 +1,24 @@
 package com.be9expensphie.expensphie_backend.config;
 
+import com.be9expensphie.expensphie_backend.cache.CacheInvalidationListener;
+import com.be9expensphie.expensphie_backend.cache.CacheInvalidationPublisher;
+import com.be9expensphie.expensphie_backend.cache.TwoTierCacheManager;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 
 import org.springframework.data.redis.serializer.RedisSerializationContext;
@@ -24,8 +32,43 @@ import java.util.Map;
 public class RedisConfig {
     private static final Logger log = LoggerFactory.getLogger(RedisConfig.class);
 
+    @Value("${app.cache.local.max-size:10000}")
+    private long localCacheMaxSize;
+    @Value("${app.cache.local.ttl:PT30S}")
+    private Duration localCacheTtl;
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory){
+    //caffeine L1 in front of redis, hot reads stay in jvm
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                           CacheInvalidationPublisher cacheInvalidationPublisher,
+                                           MeterRegistry meterRegistry){
+        RedisCacheManager redisCacheManager = redisCacheManager(connectionFactory);
+        //not a bean so init caches ourselves
+        redisCacheManager.afterPropertiesSet();
+        return new TwoTierCacheManager(redisCacheManager, cacheInvalidationPublisher, meterRegistry,
+                localCacheMaxSize, localCacheTtl);
+    }
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(RedisTemplate<String,String> redisTemplate){
+        return new CacheInvalidationPublisher(redisTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation.enabled", matchIfMissing = true)
+    //subscribe to evictions sent by other nodes
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           TwoTierCacheManager cacheManager,
+                                                                           CacheInvalidationPublisher cacheInvalidationPublisher){
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                new CacheInvalidationListener(cacheManager, cacheInvalidationPublisher.getNodeId()),
+                new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        return container;
+    }
+
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory){
         //object mapper for java->json
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
@@ -57,6 +100,9 @@ public class RedisConfig {
         // Products cache - 1 hour TTL
         cacheConfigs.put("products", redisCacheConfiguration.entryTtl(Duration.ofHours(1)));
         cacheConfigs.put("expense_in_range",redisCacheConfiguration.entryTtl(Duration.ofHours(1)));
+        cacheConfigs.put("expense_totals",redisCacheConfiguration.entryTtl(Duration.ofHours(1)));
+        //raw llm answer of ai expense parse, key contain the day so one day is enough
+        cacheConfigs.put("ai_parse",redisCacheConfiguration.entryTtl(Duration.ofDays(1)));
         return RedisCacheManager.builder(connectionFactory)
                 //if not customize so use this defaults config
                 .cacheDefaults(redisCacheConfiguration)
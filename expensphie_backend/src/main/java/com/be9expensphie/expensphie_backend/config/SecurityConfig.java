@@ -3,6 +3,8 @@ package com.be9expensphie.expensphie_backend.config;
 import java.util.Arrays;
 import java.util.List;
 
+import jakarta.servlet.DispatcherType;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -16,7 +18,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -25,8 +26,10 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.be9expensphie.expensphie_backend.security.JwtRequestFilter;
+import com.be9expensphie.expensphie_backend.security.PooledPasswordEncoder;
 import com.be9expensphie.expensphie_backend.service.AppUserDetailsService;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -43,6 +46,8 @@ public class SecurityConfig {
                     .csrf(csrfCustomizer -> csrfCustomizer.disable())
                             .authorizeHttpRequests(request -> request
                             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                            //async dispatch of a streamed response, request was authorized before it started
+                            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                             .requestMatchers("/app-status", "/register",
                              "/activate", "/login", "/forgot-password/**", "/chat/**", "/chat")
                             .permitAll()
@@ -80,15 +85,23 @@ public class SecurityConfig {
         return registration;
     }
 
+    //bcrypt is cpu bound: own bounded pool, 429 when full, cost calibrated to target-ms when strength is 0
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+            @Value("${app.security.bcrypt.strength:0}") int strength,
+            @Value("${app.security.bcrypt.target-ms:250}") long targetMs,
+            @Value("${app.security.bcrypt.pool-size:0}") int poolSize,
+            @Value("${app.security.bcrypt.queue-capacity:64}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new PooledPasswordEncoder(meterRegistry, strength, targetMs, threads, queueCapacity);
     }
 
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider(appUserDetailsService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        //rehash with the current cost after a successful login when upgradeEncoding say so
+        authenticationProvider.setUserDetailsPasswordService(appUserDetailsService);
         return new ProviderManager(authenticationProvider);
     }
 }
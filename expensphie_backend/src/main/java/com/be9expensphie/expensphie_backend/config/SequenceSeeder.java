@@ -0,0 +1,73 @@
+package com.be9expensphie.expensphie_backend.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Map;
+
+//expense, split and settlement ids came from auto increment before the pooled sequences
+//ddl-auto create the mysql sequence tables with next_val=1, so hibernate would hand out ids that already exist
+//raise next_val above max(id) before anything insert, only ever raise so every node can run it at the same time
+//the factory create the schema first, web server and kafka listeners only start after every singleton
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class SequenceSeeder {
+    //must match allocationSize of the @SequenceGenerator, a fetched value N give out ids N-49..N
+    static final int ALLOCATION_SIZE = 50;
+    //sequence -> table of the ids it give out
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "expense_seq", "expense",
+            "expense_split_details_seq", "expense_split_details",
+            "settlements_seq", "settlements");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void seedAll() {
+        SEQUENCES.forEach(this::seed);
+    }
+
+    //return the next_val written, or -1 when nothing changed
+    public long seed(String sequence, String table) {
+        if (!isTable(sequence)) {
+            //native sequence (h2 in tests), nothing stored in a table to raise
+            return -1;
+        }
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return -1;
+        }
+        long nextVal = maxId + ALLOCATION_SIZE;
+        int updated = jdbcTemplate.update(
+                "update " + sequence + " set next_val = ? where next_val < ?", nextVal, nextVal);
+        if (updated == 0) {
+            return -1;
+        }
+        log.info("Raised {} to {} above max id of {}", sequence, nextVal, table);
+        return nextVal;
+    }
+
+    private boolean isTable(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            //mysql keep the name as written, h2 upper case it
+            for (String candidate : new String[] {name, name.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, candidate, new String[] {"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
@@ -0,0 +1,61 @@
+package com.be9expensphie.expensphie_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+//connection count + message rate of the websocket layer, same meters in simple and relay mode
+@Component
+public class WebSocketBrokerMetrics {
+    private final ChannelInterceptor inbound;
+    private final ChannelInterceptor outbound;
+
+    //stats bean is built by the broker config that use this class, so read it lazily
+    public WebSocketBrokerMetrics(MeterRegistry meterRegistry, ObjectProvider<WebSocketMessageBrokerStats> stats) {
+        this.inbound = counting(Counter.builder("expensphie.websocket.messages")
+                .tag("direction", "inbound").register(meterRegistry));
+        this.outbound = counting(Counter.builder("expensphie.websocket.messages")
+                .tag("direction", "outbound").register(meterRegistry));
+        Gauge.builder("expensphie.websocket.sessions", stats, p -> {
+                    WebSocketMessageBrokerStats s = p.getIfAvailable();
+                    SubProtocolWebSocketHandler.Stats sessions = s == null ? null : s.getWebSocketSessionStats();
+                    return sessions == null ? 0 : sessions.getTotalSessions();
+                })
+                .description("open client websocket sessions on this node")
+                .register(meterRegistry);
+        //NaN in simple mode, there is no relay
+        Gauge.builder("expensphie.websocket.relay.connections", stats, p -> {
+                    WebSocketMessageBrokerStats s = p.getIfAvailable();
+                    StompBrokerRelayMessageHandler.Stats relay = s == null ? null : s.getStompBrokerRelayStats();
+                    return relay == null ? Double.NaN : relay.getTotalHandlers();
+                })
+                .description("tcp connections from this node to the external stomp broker")
+                .register(meterRegistry);
+    }
+
+    public ChannelInterceptor inbound() {
+        return inbound;
+    }
+
+    public ChannelInterceptor outbound() {
+        return outbound;
+    }
+
+    private static ChannelInterceptor counting(Counter counter) {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                counter.increment();
+                return message;
+            }
+        };
+    }
+}
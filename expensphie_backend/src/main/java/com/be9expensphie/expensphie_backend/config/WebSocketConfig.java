@@ -2,6 +2,7 @@ package com.be9expensphie.expensphie_backend.config;
 
 import com.be9expensphie.expensphie_backend.security.WebSocketAuthChannelInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
@@ -14,12 +15,45 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private final WebSocketAuthChannelInterceptor webSocketAuthChannelInterceptor;
+    private final WebSocketBrokerMetrics webSocketBrokerMetrics;
+
+    //simple: in-heap broker, each node keep its own subscriptions
+    //relay: subscriptions live in an external stomp broker, node only relay frames
+    //artemis only (acceptor with multicastPrefix=/topic/), rabbitmq stomp refuse /topic/households/{id}/... destinations
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+    @Value("${app.websocket.relay.client-login:guest}")
+    private String relayClientLogin;
+    @Value("${app.websocket.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+    @Value("${app.websocket.relay.system-login:guest}")
+    private String relaySystemLogin;
+    @Value("${app.websocket.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+    @Value("${app.websocket.relay.virtual-host:/}")
+    private String relayVirtualHost;
 
     @Override
     //router rq from sender to many receivers
     public void configureMessageBroker(MessageBrokerRegistry config){
-        //allow broker know to send data to all client that subscribe to /topic
-        config.enableSimpleBroker("/topic");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            //one tcp connection per client session + one shared system connection for server sends
+            config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode)
+                    .setVirtualHost(relayVirtualHost);
+        } else {
+            //allow broker know to send data to all client that subscribe to /topic
+            config.enableSimpleBroker("/topic");
+        }
         //client send /app/...(gateway for client to send rq to server)
         config.setApplicationDestinationPrefixes("/app");
     }
@@ -32,7 +66,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(webSocketAuthChannelInterceptor);
+        registration.interceptors(webSocketAuthChannelInterceptor, webSocketBrokerMetrics.inbound());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        //one message per session delivery, so this is the fan-out rate
+        registration.interceptors(webSocketBrokerMetrics.outbound());
     }
 
 }
@@ -1,34 +1,70 @@
 package com.be9expensphie.expensphie_backend.consumer;
 
 import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Component
-@RequiredArgsConstructor
 public class WebSocketBroadcastConsumer {
-    private static final Logger log = LoggerFactory.getLogger(WebSocketBroadcastConsumer.class);
-
     private final SimpMessagingTemplate messagingTemplate;
-    private final ObjectMapper objectMapper;
+    private final Counter received;
+    private final Counter sent;
 
+    public WebSocketBroadcastConsumer(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.received = Counter.builder("expensphie.websocket.broadcast").tag("result", "received").register(meterRegistry);
+        this.sent = Counter.builder("expensphie.websocket.broadcast").tag("result", "sent").register(meterRegistry);
+    }
+
+    //one poll at a time, records of a household come in order because they share a partition
     @KafkaListener(
             topics = "websocket-events",
-            groupId = "${kafka.websocket.group-id}",
             containerFactory = "wsKafkaListenerContainerFactory"
     )
-    public void consume(WebSocketEvent event) {
-        try {
-            Object payload = objectMapper.readValue(event.getPayload(), Object.class);
-            messagingTemplate.convertAndSend(event.getDestination(), payload);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to deserialize WebSocket payload for destination {}", event.getDestination(), e);
+    public void consume(List<WebSocketEvent> events) {
+        received.increment(events.size());
+        //every event is forwarded in order, each one carry its own expense/job and a sequence the client check for gaps
+        //only an identical copy is dropped, e.g. a record the outbox relay sent again after a lost ack
+        Set<String> seen = new HashSet<>();
+        int forwarded = 0;
+        for (WebSocketEvent event : events) {
+            if (!seen.add(identity(event))) {
+                continue;
+            }
+            send(event);
+            forwarded++;
+        }
+        sent.increment(forwarded);
+    }
+
+    //a re-sent record keep its sequence, older events without one compare by payload
+    private static String identity(WebSocketEvent event) {
+        return event.getDestination() + "|" + (event.getSequence() != null ? event.getSequence() : event.getPayload());
+    }
+
+    //payload is already json, send its bytes as is instead of parse + serialize again
+    private void send(WebSocketEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (event.getSequence() != null) {
+            //stomp header, client can drop stale or detect missing events
+            accessor.setNativeHeader("sequence", String.valueOf(event.getSequence()));
         }
+        //template still need to set the destination header
+        accessor.setLeaveMutable(true);
+        byte[] body = event.getPayload().getBytes(StandardCharsets.UTF_8);
+        messagingTemplate.send(event.getDestination(), MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
     }
 }
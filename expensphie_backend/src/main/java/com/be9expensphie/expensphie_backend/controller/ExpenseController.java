@@ -1,8 +1,14 @@
 package com.be9expensphie.expensphie_backend.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import com.be9expensphie.expensphie_backend.config.AsyncTimeoutConfig;
 import com.be9expensphie.expensphie_backend.dto.CursorDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -10,17 +16,28 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.AiExpenseJobDTO;
 import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
 import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ExpenseTotalsDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ImportReportDTO;
+import com.be9expensphie.expensphie_backend.enums.ExpenseFileFormat;
 import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
 import com.be9expensphie.expensphie_backend.enums.TimeRange;
+import com.be9expensphie.expensphie_backend.enums.ExpenseSort;
+import com.be9expensphie.expensphie_backend.service.AiExpenseService;
+import com.be9expensphie.expensphie_backend.service.ExpenseExportService;
+import com.be9expensphie.expensphie_backend.service.ExpenseImportService;
 import com.be9expensphie.expensphie_backend.service.ExpenseService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -29,6 +46,9 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ExpenseController {
 	private final ExpenseService expenseService;
+	private final ExpenseImportService expenseImportService;
+	private final ExpenseExportService expenseExportService;
+	private final AiExpenseService aiExpenseService;
 	
 	//all mem can create 
 	@PostMapping
@@ -40,15 +60,46 @@ public class ExpenseController {
 		return ResponseEntity.ok(response);
 	}
 	
+	//bulk import, csv or ndjson body read as a stream
+	@PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+	public ResponseEntity<ImportReportDTO> importExpenses(
+			@PathVariable Long householdId,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			HttpServletRequest request
+			) throws IOException {
+		ImportReportDTO report=expenseImportService.importExpenses(
+				householdId, request.getInputStream(), ExpenseFileFormat.fromContentType(contentType));
+		return ResponseEntity.ok(report);
+	}
+	
+	//export full history, rows streamed straight from the db cursor
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportExpenses(
+			@PathVariable Long householdId,
+			@RequestParam(defaultValue = "CSV") ExpenseFileFormat format,
+			HttpServletRequest request
+			){
+		StreamingResponseBody body=expenseExportService.exportExpenses(householdId, format);
+		//big household take longer than the default async timeout
+		request.setAttribute(AsyncTimeoutConfig.LONG_RUNNING, true);
+		String extension=format==ExpenseFileFormat.CSV ? "csv" : "ndjson";
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(format.getContentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"expenses-" + householdId + "." + extension + "\"")
+				.body(body);
+	}
+	
 	//get all expense 
 	@GetMapping()
 	public ResponseEntity<CursorDTO<CreateExpenseResponseDTO>> getExpenses(
 			@PathVariable Long householdId,
 			@RequestParam(required=false) ExpenseStatus status,
 			@RequestParam(defaultValue = "10") int limit,
-			@RequestParam(required = false) Long cursor
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "DATE") ExpenseSort sort
 			){
-		CursorDTO<CreateExpenseResponseDTO> expenses=expenseService.getExpense(householdId,status,limit,cursor);
+		CursorDTO<CreateExpenseResponseDTO> expenses=expenseService.getExpense(householdId,status,limit,cursor,sort);
 		return ResponseEntity.ok(expenses);
 	}
 	
@@ -104,6 +155,28 @@ public class ExpenseController {
 		return ResponseEntity.ok(response);
 	}
 
+	//bucketed totals of the range for charts
+	@GetMapping("/{range}/{status}/totals")
+	public ResponseEntity<ExpenseTotalsDTO> getRangeTotals(
+			@PathVariable Long householdId,
+			@PathVariable TimeRange range,
+			@PathVariable ExpenseStatus status
+			){
+		return ResponseEntity.ok(expenseService.getExpenseTotals(status,householdId,range));
+	}
+
+	//same range, one page at a time
+	@GetMapping("/{range}/{status}/page")
+	public ResponseEntity<CursorDTO<CreateExpenseResponseDTO>> getRangeExpensePage(
+			@PathVariable Long householdId,
+			@PathVariable TimeRange range,
+			@PathVariable ExpenseStatus status,
+			@RequestParam(defaultValue = "10") int limit,
+			@RequestParam(required = false) String cursor
+			){
+		return ResponseEntity.ok(expenseService.getExpenseByPeriodPage(status,householdId,range,limit,cursor));
+	}
+
 	@GetMapping("/last-month") // currently for testing, could no longer need this endpoint
 	public ResponseEntity<List<CreateExpenseResponseDTO>> getLastMonthExpense(
 			@PathVariable Long householdId
@@ -112,15 +185,32 @@ public class ExpenseController {
 		return ResponseEntity.ok(response);
 	}
 	
-	//ai create expense
+	//ai create expense, response written when the llm + insert finish
 	@PostMapping("/ai")
-	public ResponseEntity<CreateExpenseResponseDTO> createExpenseAi(
+	public CompletableFuture<ResponseEntity<CreateExpenseResponseDTO>> createExpenseAi(
 			@PathVariable Long householdId,
 			@RequestBody String paragraph
 			){
-		CreateExpenseResponseDTO response=
-				expenseService.createExpenseAI(householdId, paragraph);
-		return ResponseEntity.ok(response);
+		return aiExpenseService.createExpense(householdId, paragraph)
+				.thenApply(ResponseEntity::ok);
+	}
+	
+	//ai create expense in background, poll the job or wait for AI_EXPENSE_COMPLETED on the expense topic
+	@PostMapping("/ai/jobs")
+	public ResponseEntity<AiExpenseJobDTO> submitExpenseAi(
+			@PathVariable Long householdId,
+			@RequestBody String paragraph
+			){
+		AiExpenseJobDTO job=aiExpenseService.submit(householdId, paragraph);
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+	}
+	
+	@GetMapping("/ai/jobs/{jobId}")
+	public ResponseEntity<AiExpenseJobDTO> getExpenseAiJob(
+			@PathVariable Long householdId,
+			@PathVariable String jobId
+			){
+		return ResponseEntity.ok(aiExpenseService.getJob(householdId, jobId));
 	}
 }
 	
@@ -23,7 +23,7 @@ public class SettlementController {
     public ResponseEntity<?> getSettlementsForCurrentUser(
             @PathVariable Long memberId,
             @PathVariable Long householdId,
-            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "3") int limit) {
         try {
             return ResponseEntity.ok(Map.of(
@@ -88,6 +88,31 @@ public class SettlementController {
         }
     }
 
+    //period: current-month or last-three-months, same window as the stats
+    @GetMapping("/pending/{memberId}/{householdId}/{period}/settlements")
+    public ResponseEntity<?> getPendingSettlements(
+            @PathVariable Long memberId,
+            @PathVariable Long householdId,
+            @PathVariable String period,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "3") int limit) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "error", false,
+                    "settlements", settlementService.getPendingSettlementsForMember(memberId, householdId, period, limit, cursor)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    Map.of(
+                            "error", true,
+                            "message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    Map.of(
+                            "error", true,
+                            "message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/pending/{memberId}/{householdId}/last-three-months")
     public ResponseEntity<Map<String, Object>> getLastThreeMonthsPendingSettlements(
             @PathVariable Long memberId, @PathVariable Long householdId) {
@@ -110,6 +135,45 @@ public class SettlementController {
         }
     }
 
+    @GetMapping("/balance/{memberId}/{householdId}")
+    public ResponseEntity<Map<String, Object>> getBalance(
+            @PathVariable Long memberId, @PathVariable Long householdId) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "error", false,
+                    "data", settlementService.getBalanceForMember(memberId, householdId)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    Map.of(
+                            "error", true,
+                            "message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    Map.of(
+                            "error", true,
+                            "message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{householdId}/simplified")
+    public ResponseEntity<?> getSimplifiedSettlements(@PathVariable Long householdId) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "error", false,
+                    "settlements", settlementService.getSimplifiedSettlements(householdId)));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(
+                    Map.of(
+                            "error", true,
+                            "message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+                    Map.of(
+                            "error", true,
+                            "message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/awaiting/{memberId}/{householdId}")
     public ResponseEntity<?> getAwaitingApprovals(
             @PathVariable Long memberId, @PathVariable Long householdId) {
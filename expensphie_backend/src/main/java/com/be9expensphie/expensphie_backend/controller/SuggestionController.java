@@ -1,25 +1,57 @@
 package com.be9expensphie.expensphie_backend.controller;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.be9expensphie.expensphie_backend.dto.SuggestionChunkDTO;
 import com.be9expensphie.expensphie_backend.service.GeminiService;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+@Slf4j
 @RestController
 @RequestMapping("households/{householdId}/suggestions")
-@RequiredArgsConstructor
 public class SuggestionController {
 
     private final GeminiService geminiService;
+    private final AsyncTaskExecutor aiExecutor;
+
+    public SuggestionController(GeminiService geminiService,
+            @Qualifier("aiExecutor") AsyncTaskExecutor aiExecutor) {
+        this.geminiService = geminiService;
+        this.aiExecutor = aiExecutor;
+    }
 
+    //request thread is released while the llm answer, response is written when the future complete
     @GetMapping
-    public ResponseEntity<String> getExpenseSuggestions(@PathVariable Long householdId) {
-        String suggestions = geminiService.getExpenseSuggestions(householdId);
-        return ResponseEntity.ok(suggestions);
+    public CompletableFuture<ResponseEntity<String>> getExpenseSuggestions(@PathVariable Long householdId) {
+        return CompletableFuture.supplyAsync(() -> geminiService.getExpenseSuggestions(householdId), aiExecutor)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    //same answer as sse: "token" events while the model write, then "done" (or "error")
+    //prompt is built on the ai executor too, the expense query stay off the request thread
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<SuggestionChunkDTO>> streamExpenseSuggestions(@PathVariable Long householdId) {
+        return Flux.defer(() -> geminiService.streamExpenseSuggestions(householdId))
+                .subscribeOn(Schedulers.fromExecutor(aiExecutor))
+                .map(token -> ServerSentEvent.builder(new SuggestionChunkDTO(token)).event("token").build())
+                .concatWithValues(ServerSentEvent.builder(new SuggestionChunkDTO("")).event("done").build())
+                .onErrorResume(e -> {
+                    log.warn("Suggestion stream for household {} failed", householdId, e);
+                    return Flux.just(ServerSentEvent.builder(new SuggestionChunkDTO("Failed to get suggestions"))
+                            .event("error").build());
+                });
     }
 }
@@ -3,6 +3,7 @@ package com.be9expensphie.expensphie_backend.controller;
 import java.util.Map;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.be9expensphie.expensphie_backend.Exception.PasswordHashingBusyException;
 import com.be9expensphie.expensphie_backend.dto.AuthDTO;
 import com.be9expensphie.expensphie_backend.dto.UserDTO;
 import com.be9expensphie.expensphie_backend.service.UserService;
@@ -49,6 +51,10 @@ public class UserController {
             }
             Map<String, Object> response = userService.authenticateAndGenerateToken(authDTO);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
                     "message", e.getMessage()
@@ -7,7 +7,8 @@ import java.util.List;
 @Data
 @Builder
 public class CursorDTO<T> {
-    private Long nextCursor;
+    //opaque token, pass back as cursor to get the next page
+    private String nextCursor;
     boolean hasMore;
     private List<T> data;
 }
@@ -0,0 +1,19 @@
+package com.be9expensphie.expensphie_backend.dto.ExpenseDTO;
+
+import com.be9expensphie.expensphie_backend.enums.AiJobStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiExpenseJobDTO {
+	private String jobId;
+	private AiJobStatus status;
+	private Long expenseId;
+	private String error;
+}
@@ -6,11 +6,14 @@ import java.time.LocalDate;
 import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
 import com.be9expensphie.expensphie_backend.enums.Method;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+//public constructor used by the select new projection in ExpenseRepository
+@AllArgsConstructor
 public class CreateExpenseResponseDTO {
 	private String createdBy;
     private Long id;
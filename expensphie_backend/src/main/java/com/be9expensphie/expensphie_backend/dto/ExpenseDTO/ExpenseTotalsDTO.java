@@ -0,0 +1,52 @@
+package com.be9expensphie.expensphie_backend.dto.ExpenseDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
+import com.be9expensphie.expensphie_backend.enums.TimeRange;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//bucketed totals of a TimeRange: one bucket per day (DAILY/MONTHLY) or per week starting monday (WEEKLY)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseTotalsDTO {
+    private TimeRange range;
+    private ExpenseStatus status;
+    //window is [start, end)
+    private LocalDate start;
+    private LocalDate end;
+    @Builder.Default
+    private List<Bucket> buckets = new ArrayList<>();
+    //whole window per category
+    @Builder.Default
+    private List<CategoryTotal> categories = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Bucket {
+        private LocalDate start;
+        private String currency;
+        private BigDecimal total;
+        private long count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CategoryTotal {
+        private String category;
+        private String currency;
+        private BigDecimal total;
+        private long count;
+    }
+}
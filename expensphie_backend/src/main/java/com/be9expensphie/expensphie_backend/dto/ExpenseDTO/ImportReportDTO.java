@@ -0,0 +1,30 @@
+package com.be9expensphie.expensphie_backend.dto.ExpenseDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//result of a bulk import, errors hold only the first rows that failed
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportDTO {
+    private long imported;
+    private long failed;
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        //line number in the uploaded file, 1-based
+        private long line;
+        private String message;
+    }
+}
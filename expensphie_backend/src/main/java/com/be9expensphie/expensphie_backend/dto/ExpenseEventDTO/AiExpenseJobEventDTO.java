@@ -0,0 +1,13 @@
+package com.be9expensphie.expensphie_backend.dto.ExpenseEventDTO;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.AiExpenseJobDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class AiExpenseJobEventDTO {
+    private String type;
+    private AiExpenseJobDTO data;
+    private Long householdId;
+}
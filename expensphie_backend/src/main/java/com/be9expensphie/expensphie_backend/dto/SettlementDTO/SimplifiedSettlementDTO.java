@@ -0,0 +1,20 @@
+package com.be9expensphie.expensphie_backend.dto.SettlementDTO;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//one transfer after netting all open settlements in a household
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SimplifiedSettlementDTO {
+    private Long fromMemberId;
+    private Long toMemberId;
+    private BigDecimal amount;
+    private String currency;
+}
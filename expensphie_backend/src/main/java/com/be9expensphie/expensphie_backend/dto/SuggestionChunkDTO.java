@@ -0,0 +1,11 @@
+package com.be9expensphie.expensphie_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+//one piece of a streamed suggestion, sent as json so spaces and newlines survive the sse framing
+@Data
+@AllArgsConstructor
+public class SuggestionChunkDTO {
+	private String text;
+}
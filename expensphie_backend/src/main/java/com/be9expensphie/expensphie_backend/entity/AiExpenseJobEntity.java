@@ -0,0 +1,50 @@
+package com.be9expensphie.expensphie_backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import com.be9expensphie.expensphie_backend.enums.AiJobStatus;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//async ai expense parse, in the db so any node can answer the status poll
+@Entity
+@Table(name = "ai_expense_job", indexes = {
+        //expiry scan for PENDING jobs past the timeout
+        @Index(name = "idx_ai_job_status_created", columnList = "status,created_at")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AiExpenseJobEntity {
+    //uuid, not guessable like a sequence
+    @Id
+    @Column(length = 36)
+    private String id;
+    @Column(name = "household_id", nullable = false)
+    private Long householdId;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AiJobStatus status;
+    //set when SUCCEEDED
+    @Column(name = "expense_id")
+    private Long expenseId;
+    //set when FAILED
+    @Column(length = 500)
+    private String error;
+    @Column(name = "created_at", updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    @Column(name = "updated_at")
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
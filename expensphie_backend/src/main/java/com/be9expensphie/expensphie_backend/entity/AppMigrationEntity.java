@@ -0,0 +1,25 @@
+package com.be9expensphie.expensphie_backend.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//one row per one-off startup job that already ran against this db
+//the primary key is the lock, only one node can insert a given name
+@Entity
+@Table(name = "app_migration")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AppMigrationEntity {
+    @Id
+    @Column(length = 100)
+    private String name;
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -19,7 +19,12 @@ import lombok.NoArgsConstructor;
 	indexes = {
 			@Index(name="idx_created_by_id",columnList ="created_by_id"),
 			@Index(name="idx_expense_list",columnList ="household_id,status,id"),
-			@Index(name="idx_expense_date_range",columnList ="household_id,status,date"),
+			//new name so ddl-auto=update create it, update never alter an index that already exist
+			@Index(name="idx_expense_status_date",columnList ="household_id,status,date,id"),
+			//keyset pages sort by (column desc, id desc), see ExpenseRepository
+			@Index(name="idx_expense_date",columnList ="household_id,date,id"),
+			@Index(name="idx_expense_amount",columnList ="household_id,amount,id"),
+			@Index(name="idx_expense_status_amount",columnList ="household_id,status,amount,id"),
 			@Index(name="idx_reviewed_by_id",columnList ="reviewed_by_id"),
 	})
 @AllArgsConstructor
@@ -28,7 +33,9 @@ import lombok.NoArgsConstructor;
 @Data
 public class ExpenseEntity {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	//pooled sequence so hibernate can batch inserts, identity disable jdbc batching
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_seq")
+	@SequenceGenerator(name = "expense_seq", sequenceName = "expense_seq", allocationSize = 50)
 	private Long id;
 	
 	@Column(nullable=false)
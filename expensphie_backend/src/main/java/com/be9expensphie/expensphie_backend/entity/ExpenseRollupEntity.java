@@ -0,0 +1,46 @@
+package com.be9expensphie.expensphie_backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//daily spend per household/status/category/currency, so charts read a few rows instead of every expense
+//updated with delta writes whenever an expense is created/approved/rejected/updated
+@Entity
+@Table(name = "expense_rollup", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "household_id", "status", "category", "currency", "rollup_day" })
+}, indexes = {
+        @Index(name = "idx_expense_rollup_window", columnList = "household_id,status,rollup_day"),
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExpenseRollupEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "household_id", nullable = false)
+    private Long householdId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExpenseStatus status;
+    @Column(nullable = false)
+    private String category;
+    @Column(nullable = false)
+    private String currency;
+    //expense date
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+    @Column(nullable = false)
+    private BigDecimal totalAmount;
+    @Column(nullable = false)
+    private long expenseCount;
+}
@@ -0,0 +1,23 @@
+package com.be9expensphie.expensphie_backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//last websocket event sequence given out per household
+//row lock on increment serialize writers of one household until commit
+@Entity
+@Table(name = "household_event_sequence")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class HouseholdEventSequenceEntity {
+    @Id
+    @Column(name = "household_id")
+    private Long householdId;
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+}
@@ -0,0 +1,54 @@
+package com.be9expensphie.expensphie_backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//materialized sum of open settlements between 2 members, 1 row per currency per month
+//updated with delta writes whenever a settlement is created/changed
+@Entity
+@Table(name = "member_balance", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "household_id", "from_member_id", "to_member_id", "currency", "balance_month" })
+}, indexes = {
+        @Index(name = "idx_member_balance_from", columnList = "from_member_id,balance_month"),
+        @Index(name = "idx_member_balance_to", columnList = "to_member_id,balance_month"),
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MemberBalanceEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "household_id", nullable = false)
+    private Long householdId;
+    //member who owe
+    @Column(name = "from_member_id", nullable = false)
+    private Long fromMemberId;
+    //member who receive
+    @Column(name = "to_member_id", nullable = false)
+    private Long toMemberId;
+    @Column(nullable = false)
+    private String currency;
+    //first day of the month of settlement date
+    @Column(name = "balance_month", nullable = false)
+    private LocalDate balanceMonth;
+    //sum of PENDING settlements
+    @Column(nullable = false)
+    private BigDecimal pendingAmount;
+    //sum of AWAITING_APPROVAL settlements
+    @Column(nullable = false)
+    private BigDecimal awaitingApprovalAmount;
+    //number of PENDING settlements, stats show it without loading them
+    @Column(nullable = false)
+    private long pendingCount;
+    //number of AWAITING_APPROVAL settlements
+    @Column(nullable = false)
+    private long awaitingApprovalCount;
+}
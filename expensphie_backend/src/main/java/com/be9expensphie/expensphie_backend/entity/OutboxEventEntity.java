@@ -0,0 +1,51 @@
+package com.be9expensphie.expensphie_backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//kafka message written in the same transaction as the business change, OutboxRelay publish it afterwards
+@Entity
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "idx_outbox_pending", columnList = "published_at,id"),
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OutboxEventEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String topic;
+    //kafka record key, null means no key
+    @Column(name = "message_key")
+    private String messageKey;
+    //event serialized as json
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+    @Column(name = "created_at", updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    //null until the broker acked the record
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+    //set while a relay node is sending the row, other nodes skip it until then
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+    //failed sends so far, a retriable failure wait a backoff in claimedUntil before the next one
+    @Column(nullable = false)
+    private int attempts;
+    //set when the record can never be published (too large, bad payload, out of attempts)
+    //parked rows are not retried and do not hold back later events of their key, kept for a manual replay
+    @Column(name = "parked_at")
+    private LocalDateTime parkedAt;
+}
@@ -18,6 +18,7 @@ import lombok.NoArgsConstructor;
         @Index(name="idx_dashboard_query",columnList ="from_member_id,status,date"),
         @Index(name="idx_settlement_to_member_status",columnList ="to_member_id,status"),
         @Index(name="idx_settlement_split_details",columnList ="expense_split_details_id"),
+        @Index(name="idx_settlement_member_date",columnList ="from_member_id,date,id"),
 })
 @Data
 @AllArgsConstructor
@@ -25,7 +26,8 @@ import lombok.NoArgsConstructor;
 @Builder
 public class SettlementEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "settlements_seq")
+    @SequenceGenerator(name = "settlements_seq", sequenceName = "settlements_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
     @JoinColumn(name = "from_member_id", nullable = false)
@@ -0,0 +1,8 @@
+package com.be9expensphie.expensphie_backend.enums;
+
+//state of an async ai expense parse
+public enum AiJobStatus {
+	PENDING,
+	SUCCEEDED,
+	FAILED
+}
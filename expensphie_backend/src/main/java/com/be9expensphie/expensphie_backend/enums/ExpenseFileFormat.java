@@ -0,0 +1,28 @@
+package com.be9expensphie.expensphie_backend.enums;
+
+//file format for expense import/export
+public enum ExpenseFileFormat {
+	CSV("text/csv"),
+	NDJSON("application/x-ndjson");
+
+	private final String contentType;
+
+	ExpenseFileFormat(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public static ExpenseFileFormat fromContentType(String contentType) {
+		if (contentType != null) {
+			for (ExpenseFileFormat format : values()) {
+				if (contentType.toLowerCase().startsWith(format.contentType)) {
+					return format;
+				}
+			}
+		}
+		throw new IllegalArgumentException("Unsupported content type: " + contentType);
+	}
+}
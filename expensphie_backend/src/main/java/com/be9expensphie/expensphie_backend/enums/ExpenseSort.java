@@ -0,0 +1,8 @@
+package com.be9expensphie.expensphie_backend.enums;
+
+//list order of expense, always desc with id as tie breaker
+public enum ExpenseSort {
+	DATE,
+	AMOUNT,
+	ID
+}
@@ -0,0 +1,11 @@
+package com.be9expensphie.expensphie_backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//spring event (not kafka): expenses of a household were created/reviewed/imported, ai suggestion is stale
+@Getter
+@AllArgsConstructor
+public class ExpensesChangedEvent {
+    private Long householdId;
+}
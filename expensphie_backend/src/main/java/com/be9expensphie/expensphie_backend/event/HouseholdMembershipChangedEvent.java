@@ -0,0 +1,12 @@
+package com.be9expensphie.expensphie_backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//spring event (not kafka): a user joined or created a household, cached ws memberships of that user are stale
+@Getter
+@AllArgsConstructor
+public class HouseholdMembershipChangedEvent {
+    private Long userId;
+    private Long householdId;
+}
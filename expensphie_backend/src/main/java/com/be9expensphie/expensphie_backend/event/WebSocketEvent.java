@@ -10,4 +10,10 @@ import lombok.NoArgsConstructor;
 public class WebSocketEvent {
     private String destination;
     private String payload; // JSON-serialized event payload
+    private Long householdId; // also the kafka key, keep one household on one partition
+    private Long sequence; // increase by 1 per household event, client can spot a gap or reorder
+
+    public WebSocketEvent(String destination, String payload) {
+        this(destination, payload, null, null);
+    }
 }
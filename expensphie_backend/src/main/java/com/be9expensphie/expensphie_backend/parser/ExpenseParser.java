@@ -0,0 +1,17 @@
+package com.be9expensphie.expensphie_backend.parser;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+
+//turn a free text paragraph into an expense request
+//parsers are tried in @Order, cheap local ones first, the llm last
+public interface ExpenseParser {
+	//metric tag
+	String name();
+
+	//empty when this parser is not sure, the next parser get the paragraph
+	Optional<CreateExpenseRequestDTO> parse(String paragraph, List<MemberDTO> members);
+}
@@ -0,0 +1,99 @@
+package com.be9expensphie.expensphie_backend.parser;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.be9expensphie.expensphie_backend.Exception.AiExpenseParseException;
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.service.AiParseCache;
+import com.be9expensphie.expensphie_backend.service.AiService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+//last in the chain: remote llm, answer is cached by AiParseCache
+@Slf4j
+@Component
+@Order(100)
+@RequiredArgsConstructor
+public class LlmExpenseParser implements ExpenseParser {
+	private final AiService aiService;
+	private final AiParseCache aiParseCache;
+	private final ObjectMapper mapper;
+
+	@Override
+	public String name() {
+		return "llm";
+	}
+
+	@Override
+	public Optional<CreateExpenseRequestDTO> parse(String paragraph, List<MemberDTO> member) {
+		//same paragraph + members + day -> same prompt, skip the llm
+		AiParseCache.Lookup cached = aiParseCache.lookup(paragraph, member);
+		if (cached.hit()) {
+			try {
+				return Optional.of(mapper.readValue(cached.response(), CreateExpenseRequestDTO.class));
+			} catch (JsonProcessingException e) {
+				//only parsed answers are stored, fall through to the llm
+				log.warn("Cached AI response could not be read, asking the llm again", e);
+			}
+		}
+
+		String prompt = buildPrompt(paragraph, member);
+		long start = System.nanoTime();
+		String aiResponse = aiService.chat(prompt);
+		Duration llmTime = Duration.ofNanos(System.nanoTime() - start);
+		log.debug("AI response {}", aiResponse);
+
+		try {
+			//use mapper to map response to dto
+			CreateExpenseRequestDTO request = mapper.readValue(aiResponse, CreateExpenseRequestDTO.class);
+			aiParseCache.store(cached, aiResponse, llmTime);
+			return Optional.of(request);
+		} catch (JsonProcessingException e) {
+			throw new AiExpenseParseException("Please check make sure to fill all required category!");
+		}
+	}
+
+	private String buildPrompt(String paragraph,List<MemberDTO> member) {
+		String today = LocalDate.now()
+				.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+		return
+				"""
+				today is(format: dd/mm/yyyy)""" + today +
+						"""
+                        according to this memberList: 
+                        """+member+
+						""" 
+                        extract information from the paragraph below.
+                        return ONLY valid JSON in this format
+                        Do not include markdown.
+                        Do not wrap in ```json.
+                        If the paragraph didnt provide information about these attributes: amount,category,method and split(who paid what),
+                        You are NOT allowed to assume or add any missing information.
+                        If missing any information just LEAVE IT BLANK
+                        {
+                          "amount": number type,
+                          "date": "yyyy-MM-dd"(set today is local date),
+                          "category": "string type"(write in enum format:ELECTRICITY/FOOD/...->NOT NULL),
+                          "description": "string type"(description for that expense,if not mention, LEAVE BLANK),
+                          "method": "EQUAL|AMOUNT" (EQUAL:bills split equally, AMOUNT: bills splits customized->NOT NULL)
+                          "currency: "AUD|USD|VND"
+                          "splits": [
+                            { "memberId": number, "amount": number },
+                            ....
+                          ]
+                        }
+                        """+paragraph;
+	}
+}
@@ -0,0 +1,230 @@
+package com.be9expensphie.expensphie_backend.parser;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.dto.SplitDTO.SplitRequestDTO;
+import com.be9expensphie.expensphie_backend.enums.Method;
+
+//local keyword parser for the common short entries, e.g. "electricity 120 aud split equally", "lunch 50 usd An 30 Binh 20"
+//only answer when every field is unambiguous, anything unusual go to the next parser
+@Component
+@Order(0)
+public class RegexExpenseParser implements ExpenseParser {
+	private static final Pattern SEPARATOR = Pattern.compile("[\\s,;:!?()\"'\\\\]+");
+	private static final Pattern AMOUNT = Pattern.compile("\\$?(\\d+(?:\\.\\d{1,2})?)\\$?");
+	private static final Pattern DIGIT = Pattern.compile("\\d");
+	//1,200 or 1.200.000 could be a decimal or a thousand separator
+	private static final Pattern GROUPED_NUMBER = Pattern.compile("\\d[.,]\\d{3}(?!\\d)|\\d,\\d");
+
+	private static final Map<String, String> CATEGORY = new HashMap<>();
+	private static final Map<String, String> CURRENCY = Map.of(
+			"usd", "USD",
+			"aud", "AUD",
+			"vnd", "VND",
+			"dong", "VND",
+			"đồng", "VND",
+			"đ", "VND");
+	private static final Set<String> EQUAL_WORDS = Set.of("equal", "equally", "evenly");
+	//words that change who pay or when, the llm handle them better
+	private static final Set<String> ESCALATE_WORDS = Set.of(
+			"except", "excluding", "without", "not", "but", "minus", "half", "percent", "%",
+			"tomorrow", "ago", "last", "next",
+			"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday",
+			"jan", "january", "feb", "february", "mar", "march", "apr", "april", "may", "jun", "june",
+			"jul", "july", "aug", "august", "sep", "sept", "september", "oct", "october",
+			"nov", "november", "dec", "december");
+
+	static {
+		for (String w : List.of("food", "lunch", "dinner", "breakfast", "brunch", "groceries", "grocery",
+				"restaurant", "coffee", "pizza", "meal", "snack", "snacks", "takeaway")) {
+			CATEGORY.put(w, "FOOD");
+		}
+		for (String w : List.of("taxi", "uber", "grab", "bus", "train", "fuel", "petrol", "parking",
+				"transport", "flight", "toll")) {
+			CATEGORY.put(w, "TRANSPORT");
+		}
+		CATEGORY.put("rent", "RENT");
+		for (String w : List.of("electricity", "electric", "power", "water", "internet", "wifi",
+				"bill", "bills", "utilities", "utility")) {
+			CATEGORY.put(w, "BILLS");
+		}
+		for (String w : List.of("shopping", "clothes", "shoes", "amazon")) {
+			CATEGORY.put(w, "SHOPPING");
+		}
+		for (String w : List.of("movie", "movies", "cinema", "netflix", "concert", "spotify", "karaoke")) {
+			CATEGORY.put(w, "ENTERTAINMENT");
+		}
+	}
+
+	@Override
+	public String name() {
+		return "regex";
+	}
+
+	@Override
+	public Optional<CreateExpenseRequestDTO> parse(String paragraph, List<MemberDTO> members) {
+		if (paragraph == null || members.isEmpty()) {
+			return Optional.empty();
+		}
+		String text = Normalizer.normalize(paragraph, Normalizer.Form.NFKC).toLowerCase();
+		if (GROUPED_NUMBER.matcher(text).find()) {
+			return Optional.empty();
+		}
+		Map<String, Long> nameTokens = nameTokens(members);
+
+		Set<String> categories = new LinkedHashSet<>();
+		Set<String> currencies = new LinkedHashSet<>();
+		List<BigDecimal> looseAmounts = new ArrayList<>();
+		Map<Long, BigDecimal> memberAmounts = new LinkedHashMap<>();
+		Set<Long> mentioned = new LinkedHashSet<>();
+		boolean equal = false;
+		int dayOffset = 0;
+
+		String[] tokens = SEPARATOR.split(text.trim());
+		for (int i = 0; i < tokens.length; i++) {
+			//sentence end, keep decimals like 12.50
+			String token = tokens[i].replaceAll("\\.+$", "");
+			if (token.isEmpty()) {
+				continue;
+			}
+			if (ESCALATE_WORDS.contains(token)) {
+				return Optional.empty();
+			}
+			if (DIGIT.matcher(token).find()) {
+				var m = AMOUNT.matcher(token);
+				//50k, 3pm, 12/03, 2nd...
+				if (!m.matches()) {
+					return Optional.empty();
+				}
+				looseAmounts.add(new BigDecimal(m.group(1)));
+				continue;
+			}
+			if (nameTokens.containsKey(token)) {
+				Long memberId = nameTokens.get(token);
+				//shared first name, cant tell who
+				if (memberId == null) {
+					return Optional.empty();
+				}
+				String next = i + 1 < tokens.length ? tokens[i + 1].replaceAll("\\.+$", "") : "";
+				var m = AMOUNT.matcher(next);
+				if (m.matches()) {
+					if (memberAmounts.put(memberId, new BigDecimal(m.group(1))) != null) {
+						return Optional.empty();
+					}
+					i++;
+				} else {
+					mentioned.add(memberId);
+				}
+				continue;
+			}
+			if (CURRENCY.containsKey(token)) {
+				currencies.add(CURRENCY.get(token));
+			} else if (CATEGORY.containsKey(token)) {
+				categories.add(CATEGORY.get(token));
+			} else if (EQUAL_WORDS.contains(token)) {
+				equal = true;
+			} else if (token.equals("yesterday")) {
+				dayOffset = -1;
+			}
+		}
+
+		if (categories.size() != 1 || currencies.size() != 1) {
+			return Optional.empty();
+		}
+		String currency = currencies.iterator().next();
+		CreateExpenseRequestDTO.CreateExpenseRequestDTOBuilder request = CreateExpenseRequestDTO.builder()
+				.category(categories.iterator().next())
+				.currency(currency)
+				.date(LocalDate.now().plusDays(dayOffset));
+
+		if (!memberAmounts.isEmpty()) {
+			return byAmount(request, memberAmounts, mentioned, looseAmounts, equal);
+		}
+		if (!equal || looseAmounts.size() != 1) {
+			return Optional.empty();
+		}
+		//no name -> whole household
+		Set<Long> participants = mentioned.isEmpty() ? allMembers(members) : mentioned;
+		return byEqual(request, looseAmounts.get(0), participants, currency);
+	}
+
+	private Optional<CreateExpenseRequestDTO> byAmount(CreateExpenseRequestDTO.CreateExpenseRequestDTOBuilder request,
+			Map<Long, BigDecimal> memberAmounts, Set<Long> mentioned, List<BigDecimal> looseAmounts, boolean equal) {
+		//a name without amount next to named amounts, or "equal" with amounts: mixed intent
+		if (!mentioned.isEmpty() || equal) {
+			return Optional.empty();
+		}
+		BigDecimal total = memberAmounts.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+		//optional stated total, must agree with the parts
+		if (looseAmounts.size() > 1 || (looseAmounts.size() == 1 && looseAmounts.get(0).compareTo(total) != 0)) {
+			return Optional.empty();
+		}
+		List<SplitRequestDTO> splits = memberAmounts.entrySet().stream()
+				.map(e -> new SplitRequestDTO(e.getKey(), e.getValue()))
+				.toList();
+		return Optional.of(request.amount(total).method(Method.AMOUNT).splits(splits).build());
+	}
+
+	private Optional<CreateExpenseRequestDTO> byEqual(CreateExpenseRequestDTO.CreateExpenseRequestDTOBuilder request,
+			BigDecimal amount, Set<Long> participants, String currency) {
+		int scale = currency.equals("VND") ? 0 : 2;
+		BigDecimal share;
+		try {
+			//equal split must be exact, validation reject 33.33 x 3 for 100
+			share = amount.divide(BigDecimal.valueOf(participants.size()), scale, RoundingMode.UNNECESSARY);
+		} catch (ArithmeticException e) {
+			return Optional.empty();
+		}
+		List<SplitRequestDTO> splits = participants.stream()
+				.map(id -> new SplitRequestDTO(id, share))
+				.toList();
+		return Optional.of(request.amount(amount).method(Method.EQUAL).splits(splits).build());
+	}
+
+	//every word of every full name -> member, null when two members share the word
+	private static Map<String, Long> nameTokens(List<MemberDTO> members) {
+		Map<String, Long> tokens = new HashMap<>();
+		for (MemberDTO member : members) {
+			if (member.getFullName() == null) {
+				continue;
+			}
+			String name = Normalizer.normalize(member.getFullName(), Normalizer.Form.NFKC).toLowerCase();
+			for (String token : SEPARATOR.split(name.trim())) {
+				if (token.length() < 2 || CATEGORY.containsKey(token) || CURRENCY.containsKey(token)) {
+					continue;
+				}
+				if (tokens.containsKey(token) && !member.getMemberId().equals(tokens.get(token))) {
+					tokens.put(token, null);
+				} else {
+					tokens.put(token, member.getMemberId());
+				}
+			}
+		}
+		return tokens;
+	}
+
+	private static Set<Long> allMembers(List<MemberDTO> members) {
+		Set<Long> ids = new LinkedHashSet<>();
+		for (MemberDTO member : members) {
+			ids.add(member.getMemberId());
+		}
+		return ids;
+	}
+}
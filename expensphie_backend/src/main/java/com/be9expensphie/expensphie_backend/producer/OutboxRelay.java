@@ -0,0 +1,283 @@
+package com.be9expensphie.expensphie_backend.producer;
+//publish outbox rows to kafka after their transaction committed
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.common.errors.InvalidTopicException;
+import org.apache.kafka.common.errors.RecordBatchTooLargeException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.be9expensphie.expensphie_backend.entity.OutboxEventEntity;
+import com.be9expensphie.expensphie_backend.event.EmailEvent;
+import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import com.be9expensphie.expensphie_backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", matchIfMissing = true)
+public class OutboxRelay {
+    static final String WEBSOCKET_TOPIC = "websocket-events";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, EmailEvent> kafkaTemplate;
+    private final KafkaTemplate<String, WebSocketEvent> wsKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper mapper;
+
+    @Value("${kafka.topic.email}")
+    private String emailTopic;
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+    @Value("${app.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    @Value("${app.outbox.retention-hours:24}")
+    private long retentionHours;
+    //a claim left by a crashed node expire after this, must cover a whole batch of sends
+    @Value("${app.outbox.claim-lease-ms:60000}")
+    private long claimLeaseMs;
+    //retriable failures wait base * 2^(attempts-1) up to max, then the row is parked after max-attempts
+    @Value("${app.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+    @Value("${app.outbox.retry-backoff-max-ms:60000}")
+    private long retryBackoffMaxMs;
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    //drain batch after batch, stop when a batch is not full, something failed or the thread was interrupted
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void relay() {
+        while (publishBatch() && !Thread.currentThread().isInterrupted()) {
+            //next batch
+        }
+    }
+
+    //claim in a short transaction, send and wait for acks holding no lock, then record the outcome
+    //return true when the batch was full and everything went out, so there may be more
+    private boolean publishBatch() {
+        //truncated, the lease end is also the claim token and must compare equal after a db round-trip
+        LocalDateTime until = LocalDateTime.now().plus(claimLeaseMs, ChronoUnit.MILLIS).truncatedTo(ChronoUnit.MILLIS);
+        Claim claim = transactionTemplate.execute(tx -> claimBatch(until));
+        if (claim == null || claim.rows().isEmpty()) {
+            return false;
+        }
+        Outcome outcome = sendInKeyOrder(claim.rows(), until);
+        transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!outcome.published().isEmpty()) {
+                outboxEventRepository.markPublished(outcome.published(), now);
+            }
+            List<Long> parked = new ArrayList<>(outcome.parked());
+            for (OutboxEventEntity event : outcome.failed()) {
+                int attempts = event.getAttempts() + 1;
+                if (attempts >= maxAttempts) {
+                    log.error("Outbox event {} parked after {} attempts", event.getId(), attempts);
+                    parked.add(event.getId());
+                } else {
+                    outboxEventRepository.markFailed(event.getId(), until, now.plus(backoff(attempts), ChronoUnit.MILLIS));
+                }
+            }
+            if (!parked.isEmpty()) {
+                outboxEventRepository.markParked(parked, until, now);
+            }
+            if (!outcome.unsent().isEmpty()) {
+                outboxEventRepository.release(outcome.unsent(), until);
+            }
+            return null;
+        });
+        return claim.full() && outcome.failed().isEmpty() && outcome.unsent().isEmpty();
+    }
+
+    private Claim claimBatch(LocalDateTime until) {
+        List<OutboxEventEntity> candidates = outboxEventRepository.findClaimable(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (candidates.isEmpty()) {
+            return new Claim(candidates, false);
+        }
+        //a key's rows go out in id order from one node: take them only from its oldest pending row and without a gap,
+        //rows skipped as locked or claimed by another node end the run, that node send them first
+        Set<Long> candidateIds = candidates.stream().map(OutboxEventEntity::getId).collect(Collectors.toSet());
+        Set<String> keys = candidates.stream().map(OutboxEventEntity::getMessageKey)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> allowed = new HashSet<>();
+        if (!keys.isEmpty()) {
+            Set<String> stopped = new HashSet<>();
+            Long maxId = candidates.get(candidates.size() - 1).getId();
+            for (Object[] r : outboxEventRepository.findPendingIdsByKey(keys, maxId)) {
+                String key = (String) r[0];
+                Long id = (Long) r[1];
+                if (stopped.contains(key)) {
+                    continue;
+                }
+                if (candidateIds.contains(id)) {
+                    allowed.add(id);
+                } else {
+                    stopped.add(key);
+                }
+            }
+        }
+        List<OutboxEventEntity> rows = candidates.stream()
+                .filter(e -> e.getMessageKey() == null || allowed.contains(e.getId()))
+                .toList();
+        if (!rows.isEmpty()) {
+            outboxEventRepository.claim(rows.stream().map(OutboxEventEntity::getId).toList(), until);
+        }
+        return new Claim(rows, candidates.size() == batchSize);
+    }
+
+    //one round send the oldest remaining row of every key, so different keys share producer batches,
+    //a key's next row is only sent after the previous one was acked, after a failure its later rows are not sent at all
+    private Outcome sendInKeyOrder(List<OutboxEventEntity> rows, LocalDateTime until) {
+        Map<String, Deque<OutboxEventEntity>> byKey = new LinkedHashMap<>();
+        for (OutboxEventEntity event : rows) {
+            //no key, no order to keep
+            String key = event.getMessageKey() != null ? "k:" + event.getMessageKey() : "id:" + event.getId();
+            byKey.computeIfAbsent(key, k -> new ArrayDeque<>()).add(event);
+        }
+        List<Long> published = new ArrayList<>();
+        List<OutboxEventEntity> failed = new ArrayList<>();
+        List<Long> parked = new ArrayList<>();
+        List<Long> unsent = new ArrayList<>();
+        while (!byKey.isEmpty()) {
+            if (!LocalDateTime.now().isBefore(until)) {
+                //lease ran out, another node may already own the rest
+                log.warn("Outbox claim expired with {} keys left", byKey.size());
+                break;
+            }
+            Map<String, CompletableFuture<? extends SendResult<String, ?>>> round = new HashMap<>();
+            byKey.forEach((key, queue) -> round.put(key, send(queue.peek())));
+            Iterator<Map.Entry<String, Deque<OutboxEventEntity>>> it = byKey.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Deque<OutboxEventEntity>> entry = it.next();
+                Deque<OutboxEventEntity> queue = entry.getValue();
+                OutboxEventEntity event = queue.peek();
+                try {
+                    round.get(entry.getKey()).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                    published.add(event.getId());
+                } catch (InterruptedException e) {
+                    //shutting down: keep the flag, hand every row not acked yet back
+                    Thread.currentThread().interrupt();
+                    log.warn("Outbox relay interrupted, releasing {} keys", byKey.size());
+                    byKey.values().forEach(q -> q.forEach(r -> unsent.add(r.getId())));
+                    return new Outcome(published, failed, parked, unsent);
+                } catch (ExecutionException e) {
+                    if (isPermanent(e.getCause())) {
+                        //sending the same record again cannot work, park it so it does not block every event behind it
+                        log.error("Outbox event {} parked: {}", event.getId(), e.getCause().toString());
+                        parked.add(event.getId());
+                    } else {
+                        failKey(event, queue, failed, unsent, e.getCause());
+                        it.remove();
+                        continue;
+                    }
+                } catch (TimeoutException e) {
+                    failKey(event, queue, failed, unsent, e);
+                    it.remove();
+                    continue;
+                }
+                queue.poll();
+                if (queue.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+        byKey.values().forEach(q -> q.forEach(r -> unsent.add(r.getId())));
+        return new Outcome(published, failed, parked, unsent);
+    }
+
+    //broker problem, keep order: this row and the later rows of its key are retried after the backoff
+    private static void failKey(OutboxEventEntity event, Deque<OutboxEventEntity> queue,
+                                List<OutboxEventEntity> failed, List<Long> unsent, Throwable cause) {
+        log.warn("Outbox event {} not published, will retry: {}", event.getId(), cause.toString());
+        failed.add(queue.poll());
+        queue.forEach(r -> unsent.add(r.getId()));
+    }
+
+    //the producer or broker refused the record itself, not the connection
+    private static boolean isPermanent(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof UnpublishableEventException || t instanceof RecordTooLargeException
+                    || t instanceof RecordBatchTooLargeException || t instanceof SerializationException
+                    || t instanceof InvalidTopicException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long backoff(int attempts) {
+        return Math.min(retryBackoffMaxMs, retryBackoffMs << Math.min(attempts - 1, 20));
+    }
+
+    private record Claim(List<OutboxEventEntity> rows, boolean full) {
+    }
+
+    private record Outcome(List<Long> published, List<OutboxEventEntity> failed, List<Long> parked, List<Long> unsent) {
+    }
+
+    //same templates as before the outbox, so records keep their serializer and type headers
+    private CompletableFuture<? extends SendResult<String, ?>> send(OutboxEventEntity event) {
+        try {
+            if (WEBSOCKET_TOPIC.equals(event.getTopic())) {
+                WebSocketEvent ws = mapper.readValue(event.getPayload(), WebSocketEvent.class);
+                return wsKafkaTemplate.send(event.getTopic(), event.getMessageKey(), ws);
+            }
+            if (emailTopic.equals(event.getTopic())) {
+                EmailEvent email = mapper.readValue(event.getPayload(), EmailEvent.class);
+                return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), email);
+            }
+            return CompletableFuture.failedFuture(new UnpublishableEventException("Unknown outbox topic " + event.getTopic()));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new UnpublishableEventException("Unreadable payload: " + e.getMessage()));
+        } catch (RuntimeException e) {
+            //producer could not even queue the record, e.g. metadata timeout
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static class UnpublishableEventException extends RuntimeException {
+        UnpublishableEventException(String message) {
+            super(message);
+        }
+    }
+
+    //published rows are only kept for troubleshooting
+    @Scheduled(fixedDelayString = "PT1H")
+    public void purgePublished() {
+        Integer deleted = transactionTemplate.execute(tx ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} published outbox events", deleted);
+        }
+    }
+}
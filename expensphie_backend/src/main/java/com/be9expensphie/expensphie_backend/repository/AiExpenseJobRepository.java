@@ -0,0 +1,29 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.be9expensphie.expensphie_backend.entity.AiExpenseJobEntity;
+import com.be9expensphie.expensphie_backend.enums.AiJobStatus;
+
+import jakarta.persistence.LockModeType;
+
+public interface AiExpenseJobRepository extends JpaRepository<AiExpenseJobEntity, String> {
+	//job id alone is not enough, it must belong to the household in the path
+	Optional<AiExpenseJobEntity> findByIdAndHouseholdId(String id, Long householdId);
+
+	//worker and expiry both finish through this, whoever lock first decide the status
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select j from AiExpenseJobEntity j where j.id = :id")
+	Optional<AiExpenseJobEntity> findForUpdateById(@Param("id") String id);
+
+	@Query("select j.id from AiExpenseJobEntity j where j.status = :status and j.createdAt < :cutoff order by j.createdAt")
+	List<String> findStaleIds(@Param("status") AiJobStatus status, @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
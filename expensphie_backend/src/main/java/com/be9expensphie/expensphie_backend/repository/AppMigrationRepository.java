@@ -0,0 +1,8 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.be9expensphie.expensphie_backend.entity.AppMigrationEntity;
+
+public interface AppMigrationRepository extends JpaRepository<AppMigrationEntity, String>, AppMigrationRepositoryCustom {
+}
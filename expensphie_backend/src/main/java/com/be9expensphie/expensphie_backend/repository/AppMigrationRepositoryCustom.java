@@ -0,0 +1,7 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+public interface AppMigrationRepositoryCustom {
+    //insert the marker in the current transaction, false when another node already has it
+    //a concurrent insert of the same name wait on the key until the first transaction end
+    boolean claim(String name);
+}
@@ -0,0 +1,26 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+//plain insert instead of save(), save() would merge into the existing row and never fail
+@RequiredArgsConstructor
+public class AppMigrationRepositoryCustomImpl implements AppMigrationRepositoryCustom {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean claim(String name) {
+        try {
+            jdbcTemplate.update("insert into app_migration (name, applied_at) values (?, ?)",
+                    name, Timestamp.valueOf(LocalDateTime.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -1,54 +1,110 @@
 package com.be9expensphie.expensphie_backend.repository;
 
 import org.springframework.data.domain.Pageable;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
 import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
 import com.be9expensphie.expensphie_backend.entity.Household;
 import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
 
+import jakarta.persistence.QueryHint;
+
 public interface ExpenseRepository extends JpaRepository<ExpenseEntity,Long>{
-	//get all expense in household
-	@Query("select distinct e from ExpenseEntity e " +
-			"left join fetch e.created_by cb " +
-			"left join fetch cb.user " +
-			"left join fetch e.reviewed_by rb " +
-			"left join fetch rb.user " +
-			"left join fetch e.household " +
-			"where e.id < :cursor and e.household = :household " +
-			"order by e.id desc"
-	)
-	List<ExpenseEntity> findNextExpense(@Param("cursor") Long cursor,
-										@Param("household") Household household,
-										Pageable pageable);
+	//list row as dto, no managed entity
+	String PAGE_SELECT = "select new com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO(" +
+			"u.fullName, e.id, e.amount, e.date, e.category, e.description, e.status, e.method, e.currency) " +
+			"from ExpenseEntity e join e.created_by cb join cb.user u ";
 
-	//fetch split details to each expense
-	@Query("select distinct e from ExpenseEntity e " +
-			"left join fetch e.splitDetails sd " +
-			"left join fetch sd.member " +
-			"where e IN :expenses ")
-	List<ExpenseEntity>fetchsplitDeatils(@Param("expenses") List<ExpenseEntity> expenses);
-	
-	//get expense based on status
-	@Query("select distinct e from ExpenseEntity e " +
-			"left join fetch e.created_by cb " +
-			"left join fetch cb.user " +
-			"left join fetch e.reviewed_by rb " +
-			"left join fetch rb.user " +
-			"left join fetch e.household " +
-			"where e.household.id = :householdId " +
-			"and e.status = :status " +
-			"and e.id < :cursor order by e.id desc")
-	List<ExpenseEntity> findExpenseByStatus(
+	//keyset pages, each ordered by (column desc, id desc) and backed by an index with the same columns
+	//list page by id, household_id fk index
+	@Query(PAGE_SELECT +
+			"where e.household.id = :householdId and e.id < :cursor " +
+			"order by e.id desc")
+	List<CreateExpenseResponseDTO> findExpensePage(
+			@Param("householdId") Long householdId,
+			@Param("cursor") Long cursor,
+			Pageable pageable);
+
+	//idx_expense_list(household_id,status,id)
+	@Query(PAGE_SELECT +
+			"where e.household.id = :householdId and e.status = :status and e.id < :cursor " +
+			"order by e.id desc")
+	List<CreateExpenseResponseDTO> findExpensePageByStatus(
 			@Param("householdId") Long householdId,
 			@Param("status") ExpenseStatus status,
 			@Param("cursor") Long cursor,
-			Pageable pageable
-			);
+			Pageable pageable);
+
+	//idx_expense_date(household_id,date,id)
+	@Query(PAGE_SELECT +
+			"where e.household.id = :householdId " +
+			"and (e.date < :date or (e.date = :date and e.id < :id)) " +
+			"order by e.date desc, e.id desc")
+	List<CreateExpenseResponseDTO> findExpensePageByDate(
+			@Param("householdId") Long householdId,
+			@Param("date") LocalDate date,
+			@Param("id") Long id,
+			Pageable pageable);
+
+	//idx_expense_status_date(household_id,status,date,id)
+	@Query(PAGE_SELECT +
+			"where e.household.id = :householdId and e.status = :status " +
+			"and (e.date < :date or (e.date = :date and e.id < :id)) " +
+			"order by e.date desc, e.id desc")
+	List<CreateExpenseResponseDTO> findExpensePageByStatusAndDate(
+			@Param("householdId") Long householdId,
+			@Param("status") ExpenseStatus status,
+			@Param("date") LocalDate date,
+			@Param("id") Long id,
+			Pageable pageable);
+
+	//idx_expense_amount(household_id,amount,id)
+	@Query(PAGE_SELECT +
+			"where e.household.id = :householdId " +
+			"and (e.amount < :amount or (e.amount = :amount and e.id < :id)) " +
+			"order by e.amount desc, e.id desc")
+	List<CreateExpenseResponseDTO> findExpensePageByAmount(
+			@Param("householdId") Long householdId,
+			@Param("amount") BigDecimal amount,
+			@Param("id") Long id,
+			Pageable pageable);
+
+	//idx_expense_status_amount(household_id,status,amount,id)
+	@Query(PAGE_SELECT +
+			"where e.household.id = :householdId and e.status = :status " +
+			"and (e.amount < :amount or (e.amount = :amount and e.id < :id)) " +
+			"order by e.amount desc, e.id desc")
+	List<CreateExpenseResponseDTO> findExpensePageByStatusAndAmount(
+			@Param("householdId") Long householdId,
+			@Param("status") ExpenseStatus status,
+			@Param("amount") BigDecimal amount,
+			@Param("id") Long id,
+			Pageable pageable);
+
+	//range page, idx_expense_status_date(household_id,status,date,id)
+	@Query(PAGE_SELECT +
+			"where e.household.id = :householdId and e.status = :status " +
+			"and e.date >= :start and e.date < :end " +
+			"and (e.date < :date or (e.date = :date and e.id < :id)) " +
+			"order by e.date desc, e.id desc")
+	List<CreateExpenseResponseDTO> findExpensePageInRange(
+			@Param("householdId") Long householdId,
+			@Param("status") ExpenseStatus status,
+			@Param("start") LocalDate start,
+			@Param("end") LocalDate end,
+			@Param("date") LocalDate date,
+			@Param("id") Long id,
+			Pageable pageable);
 	
 	Optional<ExpenseEntity> findByIdAndHousehold(Long id,Household household);
 	
@@ -68,6 +124,27 @@ public interface ExpenseRepository extends JpaRepository<ExpenseEntity,Long>{
 			@Param("end") LocalDate end
 			);
 	
+	//forward-only stream for export, caller must hold a transaction and close the stream
+	//rows ordered by id so hibernate can assemble split details of one expense before moving on
+	//on mysql the fetch size only stream with useCursorFetch=true, set for every DB_URL in application.properties
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select e from ExpenseEntity e " +
+			"left join fetch e.created_by cb " +
+			"left join fetch cb.user " +
+			"left join fetch e.splitDetails sd " +
+			"left join fetch sd.member " +
+			"where e.household.id = :householdId " +
+			"order by e.id")
+	Stream<ExpenseEntity> streamByHouseholdId(@Param("householdId") Long householdId);
+	
 	@Query(value = "SELECT * FROM expense e WHERE e.household_id = :householdId AND e.status = 'APPROVED' AND e.date >= DATE_SUB(CURDATE(), INTERVAL 1 MONTH)", nativeQuery = true)
 	List<ExpenseEntity> findExpenseInLastMonth(@Param("householdId") Long householdId);
+
+	//[householdId, status, category, currency, date, amount, count], seed expense_rollup once
+	@Query("select e.household.id, e.status, e.category, e.currency, e.date, sum(e.amount), count(e) " +
+			"from ExpenseEntity e group by e.household.id, e.status, e.category, e.currency, e.date")
+	List<Object[]> sumForRollup();
 }
@@ -0,0 +1,22 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.be9expensphie.expensphie_backend.entity.ExpenseRollupEntity;
+import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
+
+public interface ExpenseRollupRepository extends JpaRepository<ExpenseRollupEntity, Long>, ExpenseRollupRepositoryCustom {
+    //rows in [start, end), idx_expense_rollup_window
+    @Query("select r from ExpenseRollupEntity r " +
+           "where r.householdId = :householdId and r.status = :status and r.day >= :start and r.day < :end " +
+           "and r.expenseCount > 0")
+    List<ExpenseRollupEntity> findWindow(@Param("householdId") Long householdId,
+                                         @Param("status") ExpenseStatus status,
+                                         @Param("start") LocalDate start,
+                                         @Param("end") LocalDate end);
+}
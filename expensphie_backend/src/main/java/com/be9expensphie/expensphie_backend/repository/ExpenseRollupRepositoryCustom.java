@@ -0,0 +1,10 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.util.Collection;
+
+import com.be9expensphie.expensphie_backend.entity.ExpenseRollupEntity;
+
+public interface ExpenseRollupRepositoryCustom {
+    //add total/count of each row to the stored row with the same key, insert it when missing
+    void addAll(Collection<ExpenseRollupEntity> deltas);
+}
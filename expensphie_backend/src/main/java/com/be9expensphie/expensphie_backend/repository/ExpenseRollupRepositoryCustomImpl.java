@@ -0,0 +1,52 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.be9expensphie.expensphie_backend.entity.ExpenseRollupEntity;
+
+import lombok.RequiredArgsConstructor;
+
+//delta writes as one upsert per row, sent as a single jdbc batch
+//same race as member_balance: two first writes of a key both found no row and the loser rolled back its expense
+@RequiredArgsConstructor
+public class ExpenseRollupRepositoryCustomImpl implements ExpenseRollupRepositoryCustom {
+    private static final String UPSERT =
+            "insert into expense_rollup (household_id, status, category, currency, rollup_day, " +
+            "total_amount, expense_count) " +
+            "values (?, ?, ?, ?, ?, ?, ?) " +
+            "on duplicate key update " +
+            "total_amount = total_amount + values(total_amount), " +
+            "expense_count = expense_count + values(expense_count)";
+
+    //same lock order in every transaction, no deadlock between two writers of the same rows
+    private static final Comparator<ExpenseRollupEntity> KEY_ORDER = Comparator
+            .comparing(ExpenseRollupEntity::getHouseholdId)
+            .thenComparing(ExpenseRollupEntity::getStatus)
+            .thenComparing(ExpenseRollupEntity::getCategory)
+            .thenComparing(ExpenseRollupEntity::getCurrency)
+            .thenComparing(ExpenseRollupEntity::getDay);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(Collection<ExpenseRollupEntity> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<ExpenseRollupEntity> rows = deltas.stream().sorted(KEY_ORDER).toList();
+        jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getHouseholdId());
+            ps.setString(2, row.getStatus().name());
+            ps.setString(3, row.getCategory());
+            ps.setString(4, row.getCurrency());
+            ps.setDate(5, Date.valueOf(row.getDay()));
+            ps.setBigDecimal(6, row.getTotalAmount());
+            ps.setLong(7, row.getExpenseCount());
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.be9expensphie.expensphie_backend.entity.HouseholdEventSequenceEntity;
+
+public interface HouseholdEventSequenceRepository extends JpaRepository<HouseholdEventSequenceEntity, Long> {
+    //first event of the household insert 1, later ones add 1 to the row
+    //one statement, two first writers no longer both miss the row and collide on the primary key
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into household_event_sequence (household_id, last_sequence) values (:householdId, 1) " +
+           "on duplicate key update last_sequence = last_sequence + 1", nativeQuery = true)
+    void increment(@Param("householdId") Long householdId);
+
+    @Query("select s.lastSequence from HouseholdEventSequenceEntity s where s.householdId = :householdId")
+    long findLastSequence(@Param("householdId") Long householdId);
+}
@@ -44,5 +44,11 @@ public interface HouseholdMemberRepository extends JpaRepository<HouseholdMember
 		
 		Optional<HouseholdMember> findByUserAndHouseholdId(
 				UserEntity user, Long householdId );
+
+		//household ids of a user, resolved once per websocket session
+		@Query("select m.household.id from HouseholdMember m where m.user.id = :userId")
+		List<Long> findHouseholdIdsByUserId(@Param("userId") Long userId);
+
+		boolean existsByUserIdAndHouseholdId(Long userId, Long householdId);
 		
 }
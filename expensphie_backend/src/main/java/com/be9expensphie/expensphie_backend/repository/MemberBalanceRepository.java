@@ -0,0 +1,40 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.be9expensphie.expensphie_backend.entity.MemberBalanceEntity;
+
+public interface MemberBalanceRepository extends JpaRepository<MemberBalanceEntity, Long>, MemberBalanceRepositoryCustom {
+    //[currency, amount, settlement count] still owed by member in [fromMonth, toMonth)
+    @Query("select b.currency, sum(b.pendingAmount + b.awaitingApprovalAmount), " +
+           "sum(b.pendingCount + b.awaitingApprovalCount) from MemberBalanceEntity b " +
+           "where b.householdId = :householdId and b.fromMemberId = :memberId " +
+           "and b.balanceMonth >= :fromMonth and b.balanceMonth < :toMonth " +
+           "group by b.currency having sum(b.pendingCount + b.awaitingApprovalCount) > 0 " +
+           "order by b.currency")
+    List<Object[]> sumOutstandingForMember(@Param("householdId") Long householdId,
+                                           @Param("memberId") Long memberId,
+                                           @Param("fromMonth") LocalDate fromMonth,
+                                           @Param("toMonth") LocalDate toMonth);
+
+    //[fromMemberId, toMemberId, currency, amount] still open in household
+    @Query("select b.fromMemberId, b.toMemberId, b.currency, sum(b.pendingAmount + b.awaitingApprovalAmount) " +
+           "from MemberBalanceEntity b where b.householdId = :householdId " +
+           "group by b.fromMemberId, b.toMemberId, b.currency")
+    List<Object[]> sumOutstandingByPair(@Param("householdId") Long householdId);
+
+    //[currency, amount] member still owe to others
+    @Query("select b.currency, sum(b.pendingAmount + b.awaitingApprovalAmount) from MemberBalanceEntity b " +
+           "where b.householdId = :householdId and b.fromMemberId = :memberId group by b.currency")
+    List<Object[]> sumOwedByMember(@Param("householdId") Long householdId, @Param("memberId") Long memberId);
+
+    //[currency, amount] others still owe to member
+    @Query("select b.currency, sum(b.pendingAmount + b.awaitingApprovalAmount) from MemberBalanceEntity b " +
+           "where b.householdId = :householdId and b.toMemberId = :memberId group by b.currency")
+    List<Object[]> sumOwedToMember(@Param("householdId") Long householdId, @Param("memberId") Long memberId);
+}
@@ -0,0 +1,10 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.util.Collection;
+
+import com.be9expensphie.expensphie_backend.entity.MemberBalanceEntity;
+
+public interface MemberBalanceRepositoryCustom {
+    //add amounts of each row to the stored row with the same key, insert it when missing
+    void addAll(Collection<MemberBalanceEntity> deltas);
+}
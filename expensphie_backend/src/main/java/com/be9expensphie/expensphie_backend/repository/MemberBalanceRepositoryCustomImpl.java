@@ -0,0 +1,56 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.be9expensphie.expensphie_backend.entity.MemberBalanceEntity;
+
+import lombok.RequiredArgsConstructor;
+
+//delta writes as one upsert per row, sent as a single jdbc batch
+//update-then-insert had a window where two transactions both found no row and the loser hit the unique key
+@RequiredArgsConstructor
+public class MemberBalanceRepositoryCustomImpl implements MemberBalanceRepositoryCustom {
+    private static final String UPSERT =
+            "insert into member_balance (household_id, from_member_id, to_member_id, currency, balance_month, " +
+            "pending_amount, awaiting_approval_amount, pending_count, awaiting_approval_count) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "on duplicate key update " +
+            "pending_amount = pending_amount + values(pending_amount), " +
+            "awaiting_approval_amount = awaiting_approval_amount + values(awaiting_approval_amount), " +
+            "pending_count = pending_count + values(pending_count), " +
+            "awaiting_approval_count = awaiting_approval_count + values(awaiting_approval_count)";
+
+    //every transaction lock rows in the same order, so two of them touching the same rows cant deadlock
+    private static final Comparator<MemberBalanceEntity> KEY_ORDER = Comparator
+            .comparing(MemberBalanceEntity::getHouseholdId)
+            .thenComparing(MemberBalanceEntity::getFromMemberId)
+            .thenComparing(MemberBalanceEntity::getToMemberId)
+            .thenComparing(MemberBalanceEntity::getCurrency)
+            .thenComparing(MemberBalanceEntity::getBalanceMonth);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(Collection<MemberBalanceEntity> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<MemberBalanceEntity> rows = deltas.stream().sorted(KEY_ORDER).toList();
+        jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getHouseholdId());
+            ps.setLong(2, row.getFromMemberId());
+            ps.setLong(3, row.getToMemberId());
+            ps.setString(4, row.getCurrency());
+            ps.setDate(5, Date.valueOf(row.getBalanceMonth()));
+            ps.setBigDecimal(6, row.getPendingAmount());
+            ps.setBigDecimal(7, row.getAwaitingApprovalAmount());
+            ps.setLong(8, row.getPendingCount());
+            ps.setLong(9, row.getAwaitingApprovalCount());
+        });
+    }
+}
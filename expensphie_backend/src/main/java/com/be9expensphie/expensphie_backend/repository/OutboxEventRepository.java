@@ -0,0 +1,65 @@
+package com.be9expensphie.expensphie_backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.be9expensphie.expensphie_backend.entity.OutboxEventEntity;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+    //oldest unpublished rows nobody hold a claim on, in insert order
+    //skip locked: rows another node is claiming right now are left to it, lock timeout -2 is SKIP_LOCKED
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select o from OutboxEventEntity o " +
+           "where o.publishedAt is null and o.parkedAt is null and (o.claimedUntil is null or o.claimedUntil < :now) " +
+           "order by o.id")
+    List<OutboxEventEntity> findClaimable(@Param("now") LocalDateTime now, Pageable pageable);
+
+    //[messageKey, id] of every unpublished row up to maxId, claimed or not, in id order
+    //a node may only take a key's rows without a gap from its oldest pending row
+    @Query("select o.messageKey, o.id from OutboxEventEntity o " +
+           "where o.publishedAt is null and o.parkedAt is null and o.messageKey in :keys and o.id <= :maxId " +
+           "order by o.id")
+    List<Object[]> findPendingIdsByKey(@Param("keys") Collection<String> keys, @Param("maxId") Long maxId);
+
+    @Modifying
+    @Query("update OutboxEventEntity o set o.claimedUntil = :until where o.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    //only while the claim is still ours, after the lease ran out another node may own the rows
+    @Modifying
+    @Query("update OutboxEventEntity o set o.claimedUntil = null where o.id in :ids and o.claimedUntil = :until")
+    int release(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("update OutboxEventEntity o set o.publishedAt = :now, o.claimedUntil = null where o.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    //the row stay claimed until retryAt, so it and the later rows of its key wait out the backoff
+    @Modifying
+    @Query("update OutboxEventEntity o set o.attempts = o.attempts + 1, o.claimedUntil = :retryAt " +
+           "where o.id = :id and o.claimedUntil = :until")
+    int markFailed(@Param("id") Long id, @Param("until") LocalDateTime until, @Param("retryAt") LocalDateTime retryAt);
+
+    @Modifying
+    @Query("update OutboxEventEntity o set o.attempts = o.attempts + 1, o.parkedAt = :now, o.claimedUntil = null " +
+           "where o.id in :ids and o.claimedUntil = :until")
+    int markParked(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from OutboxEventEntity o where o.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -1,7 +1,7 @@
 package com.be9expensphie.expensphie_backend.repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -26,41 +26,30 @@ public interface SettlementRepository extends JpaRepository<SettlementEntity, Lo
     List<SettlementEntity> findByMemberAndExpenseStatus(@Param("member") HouseholdMember member,
             @Param("status") ExpenseStatus status);
 
+    //open settlements member owe in [start, end), keyset on (date desc, id desc)
     @Query("select s from SettlementEntity s " +
            "left join fetch s.fromMember fm left join fetch fm.user " +
            "left join fetch s.toMember tm left join fetch tm.user " +
            "left join fetch s.expenseSplitDetails sd left join fetch sd.expense " +
            "where s.fromMember = :member " +
            "and (s.status = 'PENDING' or s.status = 'AWAITING_APPROVAL') " +
-           "and s.date >= :start and s.date < :end")
-    List<SettlementEntity> findCurrentMonthPendingSettlementsForMember(
+           "and s.date >= :start and s.date < :end " +
+           "and (s.date < :date or (s.date = :date and s.id < :id)) " +
+           "order by s.date desc, s.id desc")
+    List<SettlementEntity> findNextPendingSettlement(
             @Param("member") HouseholdMember member,
             @Param("start") LocalDate start,
-            @Param("end") LocalDate end);
-
-    @Query("select SUM(s.amount) from SettlementEntity s where s.fromMember = :member "
-            + "and (s.status = 'PENDING' or s.status = 'AWAITING_APPROVAL') "
-            + "and s.date >= :start and s.date < :end")
-    BigDecimal findCurrentMonthTotalPendingAmountForMember(
-            @Param("member") HouseholdMember member,
-            @Param("start") LocalDate start,
-            @Param("end") LocalDate end);
-
-    @Query("select s from SettlementEntity s " +
-           "left join fetch s.fromMember fm left join fetch fm.user " +
-           "left join fetch s.toMember tm left join fetch tm.user " +
-           "left join fetch s.expenseSplitDetails sd left join fetch sd.expense " +
-           "where s.fromMember = :member " +
-           "and (s.status = 'PENDING' or s.status = 'AWAITING_APPROVAL') " +
-           "and s.date >= :threeMonthsAgo")
-    List<SettlementEntity> findLastThreeMonthsPendingSettlementsForMember(
-            @Param("member") HouseholdMember member,
-            @Param("threeMonthsAgo") LocalDate threeMonthsAgo);
+            @Param("end") LocalDate end,
+            @Param("date") LocalDate date,
+            @Param("id") Long id,
+            Pageable pageable);
 
-    @Query(value = "SELECT SUM(s.amount) FROM settlements s WHERE s.from_member_id = :#{#member.id} "
-            + "AND (s.status = 'PENDING' OR s.status = 'AWAITING_APPROVAL')"
-            + "AND s.date >= DATE_SUB(CURRENT_DATE, INTERVAL 3 MONTH)", nativeQuery = true)
-    BigDecimal findLastThreeMonthsTotalPendingAmountForMember(@Param("member") HouseholdMember member);
+    //[householdId, fromMemberId, toMemberId, currency, date, status, sum, count], used to backfill member_balance
+    @Query("select fm.household.id, fm.id, tm.id, s.currency, s.date, s.status, sum(s.amount), count(s) " +
+           "from SettlementEntity s join s.fromMember fm join s.toMember tm " +
+           "where s.status in :statuses " +
+           "group by fm.household.id, fm.id, tm.id, s.currency, s.date, s.status")
+    List<Object[]> sumOutstandingByDay(@Param("statuses") Collection<SettlementStatus> statuses);
 
     @Query("select s from SettlementEntity s " +
            "left join fetch s.fromMember fm left join fetch fm.user " +
@@ -79,11 +68,14 @@ public interface SettlementRepository extends JpaRepository<SettlementEntity, Lo
            "left join fetch s.fromMember fm left join fetch fm.user " +
            "left join fetch s.toMember tm left join fetch tm.user " +
            "left join fetch s.expenseSplitDetails sd left join fetch sd.expense " +
-           "where s.id < :cursor and s.fromMember = :member and sd.expense.status = :status")
+           "where s.fromMember = :member and sd.expense.status = :status " +
+           "and (s.date < :date or (s.date = :date and s.id < :id)) " +
+           "order by s.date desc, s.id desc")
     List<SettlementEntity> findNextSettlement(
-            @Param("cursor") Long cursor,
             @Param("member") HouseholdMember householdMember,
             @Param("status") ExpenseStatus expenseStatus,
+            @Param("date") LocalDate date,
+            @Param("id") Long id,
             Pageable pageable);
 
     List<SettlementEntity> findByExpenseSplitDetailsIn(List<ExpenseSplitDetailsEntity> splits);
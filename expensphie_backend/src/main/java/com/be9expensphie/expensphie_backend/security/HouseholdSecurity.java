@@ -3,9 +3,7 @@ package com.be9expensphie.expensphie_backend.security;
 import org.springframework.stereotype.Component;
 
 import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
-import com.be9expensphie.expensphie_backend.entity.UserEntity;
 import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
-import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
 import com.be9expensphie.expensphie_backend.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -14,12 +12,10 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class HouseholdSecurity {
 	private final UserService userService;
-	private final HouseholdMemberRepository householdMemberRepo;
 	
 	public boolean isAdmin(Long householdId) {
-		UserEntity currentUser=userService.getCurrentUser();
-		
-		HouseholdMember member=householdMemberRepo.findByUserAndHouseholdId(currentUser, householdId)
+		//reuse membership cached on principal, @PreAuthorize+checkAdmin run in same request
+		HouseholdMember member=userService.getCurrentMember(householdId)
 				.orElseThrow(()->new RuntimeException("No member found"));
 		HouseholdRole roleInHousehold=member.getRole();
 		return roleInHousehold==HouseholdRole.ROLE_ADMIN;
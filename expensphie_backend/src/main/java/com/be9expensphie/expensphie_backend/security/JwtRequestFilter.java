@@ -2,6 +2,8 @@ package com.be9expensphie.expensphie_backend.security;
 
 import java.io.IOException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.be9expensphie.expensphie_backend.util.JwtUtil;
+import com.be9expensphie.expensphie_backend.util.QueryCountInspector;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -26,6 +29,7 @@ public class JwtRequestFilter extends OncePerRequestFilter{
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
     private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(
@@ -33,6 +37,17 @@ public class JwtRequestFilter extends OncePerRequestFilter{
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
+        //count every statement of this request, include the user lookup below
+        QueryCountInspector.reset();
+        try {
+            authenticate(request);
+            filterChain.doFilter(request, response);
+        } finally {
+            meterRegistry.summary("expensphie.request.db.queries").record(QueryCountInspector.count());
+        }
+    }
+
+    private void authenticate(HttpServletRequest request) {
         final String authHeader = request.getHeader("Authorization");
         String email = null;
         String jwtToken = null;
@@ -47,6 +62,7 @@ public class JwtRequestFilter extends OncePerRequestFilter{
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
             boolean blacklisted = Boolean.TRUE.equals(redisTemplate.hasKey("blacklist:" + jwtToken));
             if (!blacklisted && jwtUtil.validateToken(jwtToken, userDetails)) {
+                //userDetails is a ResolvedPrincipal, services read user+member from it
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities()
                 );
@@ -54,6 +70,5 @@ public class JwtRequestFilter extends OncePerRequestFilter{
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
-        filterChain.doFilter(request, response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.be9expensphie.expensphie_backend.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.be9expensphie.expensphie_backend.Exception.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+//bcrypt on a pool sized to the cpu, request threads only wait for the result
+//queue is bounded: when it is full the caller get PasswordHashingBusyException (429) instead of piling up
+//cost is calibrated at startup to target-ms unless pinned, hashes stored with another cost are rehashed on login
+//(DaoAuthenticationProvider call upgradeEncoding + UserDetailsPasswordService)
+@Slf4j
+public class PooledPasswordEncoder implements PasswordEncoder {
+	static final int MIN_COST = 10;
+	static final int MAX_COST = 16;
+	private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+	private final int strength;
+	private final BCryptPasswordEncoder delegate;
+	private final ThreadPoolExecutor executor;
+	private final Counter rejected;
+	private final Timer encodeTime;
+	private final Timer matchesTime;
+
+	//strength > 0 pin the cost, pin it when nodes have different cpus or they would rehash each other's hashes
+	public PooledPasswordEncoder(MeterRegistry meterRegistry, int strength, long targetMs, int poolSize, int queueCapacity) {
+		this.strength = strength > 0 ? strength : calibrate(targetMs);
+		this.delegate = new BCryptPasswordEncoder(this.strength);
+		AtomicInteger threads = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				r -> {
+					Thread t = new Thread(r, "bcrypt-" + threads.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				},
+				new ThreadPoolExecutor.AbortPolicy());
+		this.rejected = Counter.builder("expensphie.security.hashing.rejected").register(meterRegistry);
+		this.encodeTime = Timer.builder("expensphie.security.hashing").tag("op", "encode").register(meterRegistry);
+		this.matchesTime = Timer.builder("expensphie.security.hashing").tag("op", "matches").register(meterRegistry);
+		Gauge.builder("expensphie.security.hashing.queue", executor, e -> e.getQueue().size())
+				.description("password hashes waiting for a bcrypt thread")
+				.register(meterRegistry);
+		Gauge.builder("expensphie.security.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+				.register(meterRegistry);
+		Gauge.builder("expensphie.security.hashing.cost", this, PooledPasswordEncoder::getStrength)
+				.register(meterRegistry);
+		log.info("BCrypt cost {} on {} threads, queue {}", this.strength, poolSize, queueCapacity);
+	}
+
+	public int getStrength() {
+		return strength;
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return run(() -> delegate.encode(rawPassword), encodeTime);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> delegate.matches(rawPassword, encodedPassword), matchesTime);
+	}
+
+	//any other cost, lower is weak and higher is slower than the target
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		int cost = cost(encodedPassword);
+		return cost > 0 && cost != strength;
+	}
+
+	//spring call this on context close (inferred destroy method)
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private <T> T run(Callable<T> task, Timer timer) {
+		Future<T> result;
+		try {
+			result = executor.submit(() -> {
+				Timer.Sample sample = Timer.start();
+				try {
+					return task.call();
+				} finally {
+					sample.stop(timer);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new PasswordHashingBusyException("Too many sign-in requests right now, please try again shortly");
+		}
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.cancel(true);
+			throw new IllegalStateException("Interrupted while hashing password", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException r) {
+				throw r;
+			}
+			throw new IllegalStateException("Password hashing failed", e.getCause());
+		}
+	}
+
+	//measure MIN_COST once, every extra cost double the time, so step up while the estimate stay under target
+	static int calibrate(long targetMs) {
+		BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_COST);
+		//first run pay class loading and jit
+		probe.encode("calibration");
+		long start = System.nanoTime();
+		probe.encode("calibration");
+		double millis = (System.nanoTime() - start) / 1_000_000.0;
+		int cost = MIN_COST;
+		while (cost < MAX_COST && millis * 2 <= targetMs) {
+			cost++;
+			millis *= 2;
+		}
+		return cost;
+	}
+
+	static int cost(String encodedPassword) {
+		if (encodedPassword == null) {
+			return -1;
+		}
+		Matcher m = BCRYPT_COST.matcher(encodedPassword);
+		return m.find() ? Integer.parseInt(m.group(1)) : -1;
+	}
+}
@@ -0,0 +1,41 @@
+package com.be9expensphie.expensphie_backend.security;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.entity.UserEntity;
+
+import lombok.Getter;
+
+//principal stored in security context, keep user+membership loaded once per request
+//so services dont have to query user/member again
+@Getter
+@SuppressWarnings("serial")
+public class ResolvedPrincipal extends User {
+	private final transient UserEntity user;
+	//householdId->member of current user, fill lazily when service ask for it
+	//concurrent: async work (ai executor, sse) can read it while the request thread still fill it
+	private final transient Map<Long, HouseholdMember> memberships = new ConcurrentHashMap<>();
+
+	public ResolvedPrincipal(UserEntity user) {
+		super(user.getEmail(), user.getPassword(), List.of(new SimpleGrantedAuthority(user.getRole())));
+		this.user = user;
+	}
+
+	public Long getUserId() {
+		return user.getId();
+	}
+
+	public HouseholdMember getMembership(Long householdId) {
+		return memberships.get(householdId);
+	}
+
+	public void cacheMembership(Long householdId, HouseholdMember member) {
+		memberships.put(householdId, member);
+	}
+}
@@ -1,10 +1,11 @@
 package com.be9expensphie.expensphie_backend.security;
 
-import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.event.HouseholdMembershipChangedEvent;
 import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
-import com.be9expensphie.expensphie_backend.repository.UserRepository;
 import com.be9expensphie.expensphie_backend.service.AppUserDetailsService;
 import com.be9expensphie.expensphie_backend.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -15,8 +16,12 @@ import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.security.Principal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @RequiredArgsConstructor
 @Component
@@ -24,9 +29,15 @@ import java.security.Principal;
 public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
     private final JwtUtil jwtUtil;
     private final AppUserDetailsService userDetailsService;
-    private final UserRepository userRepository;
     private final HouseholdMemberRepository householdMemberRepository;
+    private final MeterRegistry meterRegistry;
+    //userId->membership version, bumped when the user join/create a household
+    private final Map<Long, Long> membershipVersions = new ConcurrentHashMap<>();
 
+    //session attribute keys
+    static final String USER_ID = "ws.userId";
+    static final String HOUSEHOLD_IDS = "ws.householdIds";
+    static final String MEMBERSHIP_VERSION = "ws.membershipVersion";
 
     //extract jwt token from frontend
     //this method run before message sent to the channel(message is the content)
@@ -35,6 +46,25 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
     public Message<?> preSend(Message<?> message, MessageChannel channel){
         //StompHeader allow to retrieve path/header/...
         StompHeaderAccessor accessor= MessageHeaderAccessor.getAccessor(message,StompHeaderAccessor.class);
+        if(accessor==null||accessor.getCommand()==null){
+            return message;
+        }
+        Timer.Sample sample=Timer.start(meterRegistry);
+        String outcome="allowed";
+        try{
+            return authorize(message,accessor);
+        }catch(RuntimeException e){
+            outcome="denied";
+            throw e;
+        }finally{
+            sample.stop(Timer.builder("expensphie.websocket.inbound.auth")
+                    .tag("command",accessor.getCommand().name())
+                    .tag("outcome",outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private Message<?> authorize(Message<?> message, StompHeaderAccessor accessor){
         if(accessor!=null&& StompCommand.CONNECT.equals((accessor.getCommand()))){
             String authHeader=accessor.getFirstNativeHeader("Authorization");
             //validate token
@@ -56,6 +86,12 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
                         userDetails.getAuthorities()
                 );
                 accessor.setUser(principal);
+                //resolve membership once, SUBSCRIBE frames check against this set
+                Map<String,Object> session=accessor.getSessionAttributes();
+                if(session!=null&&userDetails instanceof ResolvedPrincipal resolved){
+                    session.put(USER_ID,resolved.getUserId());
+                    resolveMemberships(session,resolved.getUserId());
+                }
             }else{
                 throw new IllegalArgumentException("token not valid");
             }
@@ -71,17 +107,49 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
             }
             //check if user in household
             Long householdId=extractHouseholdId(destination);
-            UserEntity user=userRepository.findByEmail(principal.getName())
-                    .orElseThrow(()->new IllegalArgumentException("User not found"));
+            if(!isMember(accessor.getSessionAttributes(),householdId)){
+                throw new IllegalArgumentException("Not Allowed");
+            }
+        }
 
-            boolean member=householdMemberRepository.findByUserAndHouseholdId(
-                    user,householdId
-            ).isPresent();
+        return message;
+    }
 
-            if(!member){throw new IllegalArgumentException("Not Allowed");}
+    @SuppressWarnings("unchecked")
+    private boolean isMember(Map<String,Object> session, Long householdId){
+        Long userId=session==null?null:(Long) session.get(USER_ID);
+        if(userId==null){
+            throw new IllegalArgumentException("Unauthorized");
+        }
+        //membership changed on this node since CONNECT -> resolve again
+        if(!membershipVersions.getOrDefault(userId,0L).equals(session.get(MEMBERSHIP_VERSION))){
+            resolveMemberships(session,userId);
+        }
+        Set<Long> householdIds=(Set<Long>) session.get(HOUSEHOLD_IDS);
+        if(householdIds.contains(householdId)){
+            return true;
+        }
+        //joined through another node, its event never reach here
+        if(householdMemberRepository.existsByUserIdAndHouseholdId(userId,householdId)){
+            householdIds.add(householdId);
+            return true;
         }
+        return false;
+    }
 
-        return message;
+    private void resolveMemberships(Map<String,Object> session, Long userId){
+        //read version first, a change during the query make the next SUBSCRIBE resolve again
+        session.put(MEMBERSHIP_VERSION,membershipVersions.getOrDefault(userId,0L));
+        //session may be used by inbound threads at the same time
+        Set<Long> householdIds=ConcurrentHashMap.newKeySet();
+        householdIds.addAll(householdMemberRepository.findHouseholdIdsByUserId(userId));
+        session.put(HOUSEHOLD_IDS,householdIds);
+    }
+
+    //after commit, so a resolve never miss the new row
+    @TransactionalEventListener
+    public void onMembershipChanged(HouseholdMembershipChangedEvent event){
+        membershipVersions.merge(event.getUserId(),1L,Long::sum);
     }
 
     private Long extractHouseholdId(String destination){
@@ -0,0 +1,194 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.be9expensphie.expensphie_backend.Exception.AiExpenseParseException;
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.AiExpenseJobDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseEventDTO.AiExpenseJobEventDTO;
+import com.be9expensphie.expensphie_backend.entity.AiExpenseJobEntity;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.enums.AiJobStatus;
+import com.be9expensphie.expensphie_backend.parser.ExpenseParser;
+import com.be9expensphie.expensphie_backend.repository.AiExpenseJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+//create expense from a paragraph, parsing run on the ai executor outside any transaction
+//only the insert afterwards hold a db connection, so pool usage dont grow with llm latency
+@Slf4j
+@Service
+public class AiExpenseService {
+	private static final int EXPIRE_BATCH = 100;
+
+	private final List<ExpenseParser> parsers;
+	private final HouseholdMemberService householdMemberService;
+	private final ExpenseService expenseService;
+	private final UserService userService;
+	private final AiExpenseJobRepository aiExpenseJobRepository;
+	private final OutboxService outboxService;
+	private final TransactionTemplate transactionTemplate;
+	private final AsyncTaskExecutor aiExecutor;
+	private final ObjectMapper mapper;
+	private final MeterRegistry meterRegistry;
+	private final long jobTimeoutMs;
+
+	public AiExpenseService(List<ExpenseParser> parsers,
+			HouseholdMemberService householdMemberService,
+			ExpenseService expenseService,
+			UserService userService,
+			AiExpenseJobRepository aiExpenseJobRepository,
+			OutboxService outboxService,
+			TransactionTemplate transactionTemplate,
+			@Qualifier("aiExecutor") AsyncTaskExecutor aiExecutor,
+			ObjectMapper mapper,
+			MeterRegistry meterRegistry,
+			@Value("${app.ai.job.timeout-ms:300000}") long jobTimeoutMs) {
+		this.parsers = parsers;
+		this.householdMemberService = householdMemberService;
+		this.expenseService = expenseService;
+		this.userService = userService;
+		this.aiExpenseJobRepository = aiExpenseJobRepository;
+		this.outboxService = outboxService;
+		this.transactionTemplate = transactionTemplate;
+		this.aiExecutor = aiExecutor;
+		this.mapper = mapper;
+		this.meterRegistry = meterRegistry;
+		this.jobTimeoutMs = jobTimeoutMs;
+	}
+
+	//blocking api kept for old clients, still run on the ai executor so the request thread touch no connection
+	public CompletableFuture<CreateExpenseResponseDTO> createExpense(Long householdId, String paragraph) {
+		return CompletableFuture.supplyAsync(
+				() -> expenseService.createExpense(householdId, parse(householdId, paragraph)), aiExecutor);
+	}
+
+	//return at once, the result come with the job status or the websocket event
+	public AiExpenseJobDTO submit(Long householdId, String paragraph) {
+		HouseholdMember member = userService.getCurrentMember(householdId)
+				.orElseThrow(() -> new RuntimeException("User is not in this household"));
+		AiExpenseJobEntity job = aiExpenseJobRepository.save(AiExpenseJobEntity.builder()
+				.id(UUID.randomUUID().toString())
+				.householdId(householdId)
+				.userId(member.getUser().getId())
+				.status(AiJobStatus.PENDING)
+				.build());
+		try {
+			aiExecutor.execute(() -> run(job.getId(), householdId, paragraph));
+		} catch (TaskRejectedException e) {
+			//executor full, fail now instead of leaving a job nobody will run
+			log.warn("AI expense job {} rejected by the executor", job.getId());
+			return transactionTemplate.execute(status ->
+					finish(job.getId(), AiJobStatus.FAILED, null, "AI is busy, please try again later"));
+		}
+		return toDTO(job);
+	}
+
+	//jobs lost with a node that died mid-parse stay PENDING, fail them after the timeout
+	//every node run it, the row lock in finish keep the failed event to one
+	@Scheduled(fixedDelayString = "${app.ai.job.expire-interval-ms:60000}")
+	public void expireStaleJobs() {
+		LocalDateTime cutoff = LocalDateTime.now().minus(jobTimeoutMs, ChronoUnit.MILLIS);
+		for (String jobId : aiExpenseJobRepository.findStaleIds(AiJobStatus.PENDING, cutoff, PageRequest.of(0, EXPIRE_BATCH))) {
+			log.warn("AI expense job {} timed out", jobId);
+			transactionTemplate.executeWithoutResult(status ->
+					finish(jobId, AiJobStatus.FAILED, null, "AI job timed out, please try again"));
+		}
+	}
+
+	public AiExpenseJobDTO getJob(Long householdId, String jobId) {
+		userService.getCurrentMember(householdId)
+				.orElseThrow(() -> new RuntimeException("User is not in this household"));
+		return aiExpenseJobRepository.findByIdAndHouseholdId(jobId, householdId)
+				.map(this::toDTO)
+				.orElseThrow(() -> new NoSuchElementException("AI job not found"));
+	}
+
+	private void run(String jobId, Long householdId, String paragraph) {
+		try {
+			CreateExpenseRequestDTO request = parse(householdId, paragraph);
+			//short transaction: expense, job result and completion event commit together
+			transactionTemplate.executeWithoutResult(status -> {
+				CreateExpenseResponseDTO expense = expenseService.createExpense(householdId, request);
+				if (finish(jobId, AiJobStatus.SUCCEEDED, expense.getId(), null).getStatus() != AiJobStatus.SUCCEEDED) {
+					//already expired, the client was told it failed so dont keep the expense
+					status.setRollbackOnly();
+				}
+			});
+		} catch (RuntimeException e) {
+			log.warn("AI expense job {} failed", jobId, e);
+			transactionTemplate.executeWithoutResult(status ->
+					finish(jobId, AiJobStatus.FAILED, null, e.getMessage()));
+		}
+	}
+
+	//locked so the worker and the expiry cannot both finish the job, the first one win
+	private AiExpenseJobDTO finish(String jobId, AiJobStatus status, Long expenseId, String error) {
+		AiExpenseJobEntity job = aiExpenseJobRepository.findForUpdateById(jobId)
+				.orElseThrow(() -> new NoSuchElementException("AI job not found"));
+		if (job.getStatus() != AiJobStatus.PENDING) {
+			return toDTO(job);
+		}
+		job.setStatus(status);
+		job.setExpenseId(expenseId);
+		job.setError(error == null ? null : error.substring(0, Math.min(error.length(), 500)));
+		aiExpenseJobRepository.save(job);
+		String type = status == AiJobStatus.SUCCEEDED ? "AI_EXPENSE_COMPLETED" : "AI_EXPENSE_FAILED";
+		try {
+			outboxService.enqueueHouseholdEvent(job.getHouseholdId(), "/topic/households/" + job.getHouseholdId() + "/expense",
+					mapper.writeValueAsString(new AiExpenseJobEventDTO(type, toDTO(job), job.getHouseholdId())));
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("Failed to serialize WebSocket payload", e);
+		}
+		return toDTO(job);
+	}
+
+	//no transaction here, the member read release its connection before any remote call
+	//parsers in order, first one that is sure win, the llm parser is last and always answer
+	private CreateExpenseRequestDTO parse(Long householdId, String paragraph) {
+		//send all member id for splits
+		List<MemberDTO> member = householdMemberService.getMembers(householdId);
+		for (ExpenseParser parser : parsers) {
+			Timer.Sample sample = Timer.start(meterRegistry);
+			Optional<CreateExpenseRequestDTO> request = parser.parse(paragraph, member);
+			sample.stop(Timer.builder("expensphie.expense.parser")
+					.tag("parser", parser.name())
+					.tag("outcome", request.isPresent() ? "parsed" : "escalated")
+					.register(meterRegistry));
+			if (request.isPresent()) {
+				return request.get();
+			}
+		}
+		throw new AiExpenseParseException("Please check make sure to fill all required category!");
+	}
+
+	private AiExpenseJobDTO toDTO(AiExpenseJobEntity job) {
+		return AiExpenseJobDTO.builder()
+				.jobId(job.getId())
+				.status(job.getStatus())
+				.expenseId(job.getExpenseId())
+				.error(job.getError())
+				.build();
+	}
+}
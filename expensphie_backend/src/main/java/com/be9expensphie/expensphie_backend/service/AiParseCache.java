@@ -0,0 +1,222 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+//raw llm answer of an ai expense parse, reused when the same paragraph come again
+//exact tier: shared cache keyed by normalized paragraph + member set + day (prompt contain both)
+//semantic tier (optional): per node cosine index over embeddings, only when the numbers of both paragraphs match
+@Slf4j
+@Service
+public class AiParseCache {
+	public static final String AI_PARSE = "ai_parse";
+	private static final Pattern NUMBER = Pattern.compile("\\d+(?:[.,]\\d+)?");
+
+	private final CacheManager cacheManager;
+	private final ObjectProvider<EmbeddingModel> embeddingModel;
+	private final com.github.benmanes.caffeine.cache.Cache<String, Entry> semanticIndex;
+	private final boolean semanticEnabled;
+	private final double similarityThreshold;
+	private final Counter exactHits;
+	private final Counter semanticHits;
+	private final Counter misses;
+	private final Timer llmLatency;
+	private final Counter savedSeconds;
+
+	public AiParseCache(CacheManager cacheManager,
+			ObjectProvider<EmbeddingModel> embeddingModel,
+			MeterRegistry meterRegistry,
+			@Value("${app.ai.parse-cache.semantic.enabled:false}") boolean semanticEnabled,
+			@Value("${app.ai.parse-cache.semantic.threshold:0.95}") double similarityThreshold,
+			@Value("${app.ai.parse-cache.semantic.max-entries:1000}") long maxEntries) {
+		this.cacheManager = cacheManager;
+		this.embeddingModel = embeddingModel;
+		this.semanticEnabled = semanticEnabled;
+		this.similarityThreshold = similarityThreshold;
+		this.semanticIndex = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfterWrite(Duration.ofDays(1))
+				.build();
+		this.exactHits = Counter.builder("expensphie.ai.parse.cache").tag("result", "exact").register(meterRegistry);
+		this.semanticHits = Counter.builder("expensphie.ai.parse.cache").tag("result", "semantic").register(meterRegistry);
+		this.misses = Counter.builder("expensphie.ai.parse.cache").tag("result", "miss").register(meterRegistry);
+		this.llmLatency = Timer.builder("expensphie.ai.parse.llm").register(meterRegistry);
+		//estimate: each hit save one average llm call
+		this.savedSeconds = Counter.builder("expensphie.ai.parse.cache.saved")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	public Lookup lookup(String paragraph, List<MemberDTO> members) {
+		String normalized = normalize(paragraph);
+		String scope = memberSetVersion(members) + ":" + LocalDate.now();
+		String key = scope + ":" + sha256(normalized);
+		String response = cacheGet(key);
+		if (response != null) {
+			hit(exactHits);
+			return new Lookup(key, scope, null, null, response);
+		}
+		if (!semanticEnabled) {
+			misses.increment();
+			return new Lookup(key, scope, null, null, null);
+		}
+		Set<String> numbers = numbers(normalized);
+		float[] vector = embed(normalized);
+		Entry nearest = vector == null ? null : nearest(scope, numbers, vector);
+		if (nearest != null) {
+			hit(semanticHits);
+			//next time the same wording hit the exact tier
+			cachePut(key, nearest.response());
+			return new Lookup(key, scope, numbers, vector, nearest.response());
+		}
+		misses.increment();
+		return new Lookup(key, scope, numbers, vector, null);
+	}
+
+	//call only with an answer that parsed, a broken one would be served again
+	public void store(Lookup lookup, String response, Duration llmTime) {
+		llmLatency.record(llmTime);
+		cachePut(lookup.key(), response);
+		if (lookup.vector() != null) {
+			semanticIndex.put(lookup.key(), new Entry(lookup.scope(), lookup.numbers(), lookup.vector(), response));
+		}
+	}
+
+	//cache down only cost the llm call, it must not fail the parse
+	private String cacheGet(String key) {
+		Cache cache = cacheManager.getCache(AI_PARSE);
+		try {
+			return cache == null ? null : cache.get(key, String.class);
+		} catch (RuntimeException e) {
+			log.warn("AI parse cache read failed", e);
+			return null;
+		}
+	}
+
+	private void cachePut(String key, String response) {
+		Cache cache = cacheManager.getCache(AI_PARSE);
+		try {
+			if (cache != null) {
+				cache.put(key, response);
+			}
+		} catch (RuntimeException e) {
+			log.warn("AI parse cache write failed", e);
+		}
+	}
+
+	private void hit(Counter counter) {
+		counter.increment();
+		savedSeconds.increment(llmLatency.mean(TimeUnit.SECONDS));
+	}
+
+	private Entry nearest(String scope, Set<String> numbers, float[] vector) {
+		return semanticIndex.asMap().values().stream()
+				.filter(e -> e.scope().equals(scope) && e.numbers().equals(numbers))
+				.map(e -> new Scored(e, cosine(vector, e.vector())))
+				.filter(s -> s.score() >= similarityThreshold)
+				.max(Comparator.comparingDouble(Scored::score))
+				.map(Scored::entry)
+				.orElse(null);
+	}
+
+	private float[] embed(String text) {
+		EmbeddingModel model = embeddingModel.getIfAvailable();
+		if (model == null) {
+			return null;
+		}
+		try {
+			return model.embed(text);
+		} catch (RuntimeException e) {
+			//semantic tier is best effort, fall back to the llm
+			log.warn("Embedding failed, semantic parse cache skipped", e);
+			return null;
+		}
+	}
+
+	//case, character width, spacing and trailing punctuation dont change the meaning
+	static String normalize(String paragraph) {
+		String text = Normalizer.normalize(paragraph, Normalizer.Form.NFKC).toLowerCase().trim();
+		text = text.replaceAll("\\s+", " ");
+		return text.replaceAll("[\\p{Punct}\\s]+$", "");
+	}
+
+	static Set<String> numbers(String normalized) {
+		Matcher m = NUMBER.matcher(normalized);
+		Set<String> numbers = new TreeSet<>();
+		while (m.find()) {
+			numbers.add(m.group().replace(',', '.'));
+		}
+		return numbers;
+	}
+
+	//changes when a member join or is renamed, old answers carry stale member ids
+	static String memberSetVersion(List<MemberDTO> members) {
+		String memberSet = members.stream()
+				.map(m -> m.getMemberId() + "|" + m.getFullName() + "|" + m.getRole())
+				.sorted()
+				.collect(Collectors.joining(","));
+		return sha256(memberSet).substring(0, 16);
+	}
+
+	private static double cosine(float[] a, float[] b) {
+		if (a.length != b.length) {
+			return 0;
+		}
+		double dot = 0, na = 0, nb = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+			na += a[i] * a[i];
+			nb += b[i] * b[i];
+		}
+		return na == 0 || nb == 0 ? 0 : dot / (Math.sqrt(na) * Math.sqrt(nb));
+	}
+
+	private static String sha256(String text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public record Lookup(String key, String scope, Set<String> numbers, float[] vector, String response) {
+		public boolean hit() {
+			return response != null;
+		}
+	}
+
+	private record Entry(String scope, Set<String> numbers, float[] vector, String response) {
+	}
+
+	private record Scored(Entry entry, double score) {
+	}
+}
@@ -1,24 +1,19 @@
 package com.be9expensphie.expensphie_backend.service;
 
 import org.springframework.stereotype.Service;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.beans.factory.annotation.Qualifier;
 
 
 @Service
 public class AiService {
-	private final ChatClient chatClient;
+	private final LlmGateway llmGateway;
 
-	public AiService(@Qualifier("openAiChatClient") ChatClient chatClient) {
-        this.chatClient = chatClient;
+	public AiService(LlmGateway llmGateway) {
+        this.llmGateway = llmGateway;
     }
 
+	//openai first, gemini when openai is slow, down or saturated
 	public String chat(String prompt) {
-		return chatClient
-			.prompt(prompt)
-			.call()
-			.content();
-
+		return llmGateway.call(LlmGateway.OPENAI, prompt);
 	}
 	
 }
@@ -0,0 +1,144 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.be9expensphie.expensphie_backend.event.ExpensesChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+//regenerate ai_suggestion in the background after expenses change instead of evicting it
+//old answer keep being served until the new one is written (stale-while-revalidate)
+//a household is refreshed once it stayed quiet for debounce-ms, a burst of edits cost one llm call
+//only the node that committed the change refresh, the cache put reach other nodes through redis
+@Slf4j
+@Service
+public class AiSuggestionRefresher {
+	private static final String AI_SUGGESTION = "ai_suggestion";
+
+	private final GeminiService geminiService;
+	private final CacheManager cacheManager;
+	private final AsyncTaskExecutor aiExecutor;
+	private final boolean enabled;
+	private final long debounceMs;
+	//rate limit: at most one refresh start every permitIntervalMs on this node
+	private final long permitIntervalMs;
+	private final Semaphore running;
+	//household -> time of its last change
+	private final Map<Long, Long> dirty = new ConcurrentHashMap<>();
+	private long nextPermitAt;
+
+	private final Counter refreshed;
+	private final Counter failed;
+	private final Counter deferred;
+
+	public AiSuggestionRefresher(GeminiService geminiService,
+			CacheManager cacheManager,
+			@Qualifier("aiExecutor") AsyncTaskExecutor aiExecutor,
+			MeterRegistry meterRegistry,
+			@Value("${app.ai.suggestion.refresh.enabled:true}") boolean enabled,
+			@Value("${app.ai.suggestion.refresh.debounce-ms:30000}") long debounceMs,
+			@Value("${app.ai.suggestion.refresh.max-concurrency:4}") int maxConcurrency,
+			@Value("${app.ai.suggestion.refresh.per-minute:30}") int perMinute) {
+		this.geminiService = geminiService;
+		this.cacheManager = cacheManager;
+		this.aiExecutor = aiExecutor;
+		this.enabled = enabled;
+		this.debounceMs = debounceMs;
+		this.permitIntervalMs = 60_000L / Math.max(1, perMinute);
+		this.running = new Semaphore(maxConcurrency);
+		this.refreshed = counter(meterRegistry, "refreshed");
+		this.failed = counter(meterRegistry, "failed");
+		this.deferred = counter(meterRegistry, "deferred");
+		Gauge.builder("expensphie.ai.suggestion.refresh.pending", dirty, Map::size)
+				.description("households waiting for a suggestion refresh")
+				.register(meterRegistry);
+	}
+
+	private static Counter counter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("expensphie.ai.suggestion.refresh").tag("result", result).register(meterRegistry);
+	}
+
+	//after commit so the refresh read the new expenses, outside a transaction (import) run at once
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onExpensesChanged(ExpensesChangedEvent event) {
+		if (!enabled) {
+			//no refresher: next read pay the llm call, like before
+			Cache cache = cacheManager.getCache(AI_SUGGESTION);
+			if (cache != null) {
+				cache.evict(String.valueOf(event.getHouseholdId()));
+			}
+			return;
+		}
+		dirty.put(event.getHouseholdId(), System.currentTimeMillis());
+	}
+
+	@Scheduled(fixedDelayString = "${app.ai.suggestion.refresh.interval-ms:5000}")
+	public void refreshDirty() {
+		long quietSince = System.currentTimeMillis() - debounceMs;
+		for (Map.Entry<Long, Long> entry : dirty.entrySet()) {
+			if (entry.getValue() > quietSince) {
+				continue;
+			}
+			//budget used up, the rest wait for the next tick
+			if (!running.tryAcquire()) {
+				deferred.increment();
+				return;
+			}
+			if (!tryAcquirePermit()) {
+				running.release();
+				deferred.increment();
+				return;
+			}
+			Long householdId = entry.getKey();
+			//changed again meanwhile, keep waiting for it to settle
+			if (!dirty.remove(householdId, entry.getValue())) {
+				running.release();
+				continue;
+			}
+			try {
+				aiExecutor.execute(() -> refresh(householdId));
+			} catch (RuntimeException e) {
+				running.release();
+				dirty.putIfAbsent(householdId, entry.getValue());
+				log.warn("AI suggestion refresh for household {} not scheduled", householdId, e);
+			}
+		}
+	}
+
+	private void refresh(Long householdId) {
+		try {
+			geminiService.refreshExpenseSuggestions(householdId);
+			refreshed.increment();
+		} catch (RuntimeException e) {
+			//stale answer stay in the cache, next change will try again
+			failed.increment();
+			log.warn("AI suggestion refresh for household {} failed", householdId, e);
+		} finally {
+			running.release();
+		}
+	}
+
+	//scheduler call this from one thread only
+	private boolean tryAcquirePermit() {
+		long now = System.currentTimeMillis();
+		if (now < nextPermitAt) {
+			return false;
+		}
+		nextPermitAt = now + permitIntervalMs;
+		return true;
+	}
+}
@@ -1,19 +1,20 @@
 package com.be9expensphie.expensphie_backend.service;
 
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import com.be9expensphie.expensphie_backend.entity.UserEntity;
 import com.be9expensphie.expensphie_backend.repository.UserRepository;
+import com.be9expensphie.expensphie_backend.security.ResolvedPrincipal;
 
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
-public class AppUserDetailsService implements UserDetailsService{
+public class AppUserDetailsService implements UserDetailsService, UserDetailsPasswordService{
     private final UserRepository userRepository;
     
     @Override
@@ -21,12 +22,21 @@ public class AppUserDetailsService implements UserDetailsService{
         UserEntity existingUser = userRepository.findByEmail(email)
                                     .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
         
-        return User.builder()
-                    .username(existingUser.getEmail())
-                    .password(existingUser.getPassword())
-                    .authorities(existingUser.getRole())
-                    .build();
+        //keep the loaded entity in principal so UserService can reuse it
+        return new ResolvedPrincipal(existingUser);
 
     }
 
+    //rehash on login: stored bcrypt cost differ from the current one, newPassword is already encoded
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        UserEntity entity = user instanceof ResolvedPrincipal principal
+                ? principal.getUser()
+                : userRepository.findByEmail(user.getUsername())
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        return new ResolvedPrincipal(entity);
+    }
+
 }
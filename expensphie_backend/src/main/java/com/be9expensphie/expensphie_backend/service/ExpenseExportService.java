@@ -0,0 +1,127 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
+import com.be9expensphie.expensphie_backend.entity.ExpenseSplitDetailsEntity;
+import com.be9expensphie.expensphie_backend.enums.ExpenseFileFormat;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+//full household history, written row by row while the result set is read
+@Service
+@RequiredArgsConstructor
+public class ExpenseExportService {
+	//same columns as import plus id/status/createdBy, so an export can be imported back
+	private static final String CSV_HEADER = "id,date,amount,currency,category,description,method,status,createdBy,splits";
+	private static final int CLEAR_EVERY = 1000;
+
+	private final ExpenseRepository expenseRepo;
+	private final UserService userService;
+	private final PlatformTransactionManager transactionManager;
+	private final EntityManager entityManager;
+	private final ObjectMapper mapper;
+
+	public StreamingResponseBody exportExpenses(Long householdId, ExpenseFileFormat format) {
+		//check membership here, body is written on another thread without security context
+		userService.getCurrentMember(householdId)
+				.orElseThrow(() -> new RuntimeException("User not in household"));
+
+		TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+		readOnlyTx.setReadOnly(true);
+
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			if (format == ExpenseFileFormat.CSV) {
+				writer.write(CSV_HEADER);
+				writer.write('\n');
+			}
+			readOnlyTx.executeWithoutResult(tx -> {
+				try (Stream<ExpenseEntity> rows = expenseRepo.streamByHouseholdId(householdId)) {
+					int written = 0;
+					for (ExpenseEntity expense : (Iterable<ExpenseEntity>) rows::iterator) {
+						writer.write(format == ExpenseFileFormat.CSV ? toCsv(expense) : toJson(expense));
+						writer.write('\n');
+						//keep persistence context small, memory stay flat for big household
+						if (++written % CLEAR_EVERY == 0) {
+							entityManager.clear();
+						}
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			writer.flush();
+		};
+	}
+
+	private String toCsv(ExpenseEntity expense) {
+		return String.join(",",
+				String.valueOf(expense.getId()),
+				expense.getDate() != null ? expense.getDate().toString() : "",
+				expense.getAmount() != null ? expense.getAmount().toPlainString() : "",
+				csv(expense.getCurrency()),
+				csv(expense.getCategory()),
+				csv(expense.getDescription()),
+				expense.getMethod() != null ? expense.getMethod().name() : "",
+				expense.getStatus() != null ? expense.getStatus().name() : "",
+				csv(expense.getCreated_by().getUser().getFullName()),
+				expense.getSplitDetails().stream()
+						.map(sd -> sd.getMember().getId() + ":" + sd.getAmount().toPlainString())
+						.collect(Collectors.joining(";")));
+	}
+
+	private String toJson(ExpenseEntity expense) throws IOException {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("id", expense.getId());
+		row.put("date", expense.getDate());
+		row.put("amount", expense.getAmount());
+		row.put("currency", expense.getCurrency());
+		row.put("category", expense.getCategory());
+		row.put("description", expense.getDescription());
+		row.put("method", expense.getMethod());
+		row.put("status", expense.getStatus());
+		row.put("createdBy", expense.getCreated_by().getUser().getFullName());
+		List<Map<String, Object>> splits = expense.getSplitDetails().stream()
+				.map(this::splitToMap)
+				.toList();
+		row.put("splits", splits);
+		return mapper.writeValueAsString(row);
+	}
+
+	private Map<String, Object> splitToMap(ExpenseSplitDetailsEntity split) {
+		Map<String, Object> m = new LinkedHashMap<>();
+		m.put("memberId", split.getMember().getId());
+		m.put("amount", split.getAmount());
+		return m;
+	}
+
+	//quote when value has comma, quote or new line
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+			return "\"" + value.replace("\"", "\"\"").replace("\r", " ").replace("\n", " ") + "\"";
+		}
+		return value;
+	}
+}
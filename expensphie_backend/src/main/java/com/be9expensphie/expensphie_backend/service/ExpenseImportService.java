@@ -0,0 +1,285 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ImportReportDTO;
+import com.be9expensphie.expensphie_backend.dto.SplitDTO.SplitRequestDTO;
+import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
+import com.be9expensphie.expensphie_backend.entity.ExpenseSplitDetailsEntity;
+import com.be9expensphie.expensphie_backend.entity.Household;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.enums.ExpenseFileFormat;
+import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.enums.Method;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
+import com.be9expensphie.expensphie_backend.repository.HouseholdRepository;
+import com.be9expensphie.expensphie_backend.validation.ExpenseValidation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+//bulk import read the body line by line, only one chunk of rows is kept in memory
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseImportService {
+	private static final int CHUNK_SIZE = 500;
+	private static final int MAX_REPORTED_ERRORS = 1000;
+
+	private final HouseholdRepository householdRepo;
+	private final HouseholdMemberRepository householdMemberRepo;
+	private final UserService userService;
+	private final ExpenseValidation expenseValidation;
+	private final ExpenseRepository expenseRepo;
+	private final SettlementService settlementService;
+	private final ExpenseRollupService expenseRollupService;
+	private final ExpenseService expenseService;
+	private final TransactionTemplate transactionTemplate;
+	private final EntityManager entityManager;
+	private final ObjectMapper mapper;
+
+	public ImportReportDTO importExpenses(Long householdId, InputStream body, ExpenseFileFormat format) throws IOException {
+		Household household = householdRepo.findById(householdId)
+				.orElseThrow(() -> new RuntimeException("Household not found"));
+		HouseholdMember admin = householdMemberRepo
+				.findByHouseholdAndRole(household, HouseholdRole.ROLE_ADMIN)
+				.orElseThrow(() -> new RuntimeException("No admin found for household"));
+		HouseholdMember member = userService.getCurrentMember(householdId)
+				.orElseThrow(() -> new RuntimeException("User is not in this household"));
+		ExpenseStatus status = (member.getRole() == HouseholdRole.ROLE_ADMIN) ? ExpenseStatus.APPROVED : ExpenseStatus.PENDING;
+
+		//load member once for the whole file instead of once per row
+		Map<Long, HouseholdMember> memberMap = householdMemberRepo.findByHouseholdId(householdId).stream()
+				.collect(Collectors.toMap(HouseholdMember::getId, Function.identity()));
+		Set<Long> memberIds = memberMap.keySet();
+
+		ImportReportDTO report = new ImportReportDTO();
+		Set<Long> affectedSettlementMembers = new HashSet<>();
+		List<ExpenseEntity> chunk = new ArrayList<>(CHUNK_SIZE);
+		List<Long> chunkLines = new ArrayList<>(CHUNK_SIZE);
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+			long lineNumber = 0;
+			Map<String, Integer> columns = null;
+			if (format == ExpenseFileFormat.CSV) {
+				String header = reader.readLine();
+				lineNumber++;
+				if (header == null) {
+					return report;
+				}
+				columns = parseHeader(header);
+			}
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank()) {
+					continue;
+				}
+				try {
+					CreateExpenseRequestDTO request = format == ExpenseFileFormat.CSV
+							? parseCsvRow(line, columns)
+							: mapper.readValue(line, CreateExpenseRequestDTO.class);
+					expenseValidation.validateExpense(request, memberIds);
+					chunk.add(toEntity(request, household, member, admin, status, memberMap));
+					chunkLines.add(lineNumber);
+				} catch (Exception e) {
+					addError(report, lineNumber, e.getMessage());
+				}
+
+				if (chunk.size() >= CHUNK_SIZE) {
+					saveChunk(chunk, chunkLines, report, affectedSettlementMembers);
+				}
+			}
+			saveChunk(chunk, chunkLines, report, affectedSettlementMembers);
+		}
+
+		if (report.getImported() > 0) {
+			expenseService.evictExpenseInRangeCaches(householdId, status);
+			expenseService.markAiSuggestionStale(householdId);
+			for (Long memberId : affectedSettlementMembers) {
+				settlementService.evictSettlementStatsCachesForMember(memberId, householdId);
+			}
+		}
+		log.info("Imported {} expenses into household {}, {} rows failed",
+				report.getImported(), householdId, report.getFailed());
+		return report;
+	}
+
+	//one short transaction per chunk, a failing chunk does not undo the ones before it
+	//rows are validated before, a chunk the db still refuse is saved again row by row so only the bad row is reported
+	private void saveChunk(List<ExpenseEntity> chunk, List<Long> chunkLines, ImportReportDTO report,
+			Set<Long> affectedSettlementMembers) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		try {
+			affectedSettlementMembers.addAll(saveRows(chunk));
+			report.setImported(report.getImported() + chunk.size());
+		} catch (RuntimeException e) {
+			log.warn("Import chunk of {} rows rejected, saving row by row: {}", chunk.size(), e.getMessage());
+			for (int i = 0; i < chunk.size(); i++) {
+				ExpenseEntity expense = chunk.get(i);
+				//ids given by the rolled back insert are not in the db
+				expense.setId(null);
+				expense.getSplitDetails().forEach(split -> split.setId(null));
+				try {
+					affectedSettlementMembers.addAll(saveRows(List.of(expense)));
+					report.setImported(report.getImported() + 1);
+				} catch (RuntimeException rowError) {
+					addError(report, chunkLines.get(i), NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+				}
+			}
+		}
+		chunk.clear();
+		chunkLines.clear();
+	}
+
+	private Set<Long> saveRows(List<ExpenseEntity> rows) {
+		return transactionTemplate.execute(tx -> {
+			expenseRepo.saveAll(rows);
+			expenseRollupService.recordCreatedAll(rows);
+			Set<Long> ids = settlementService.createSettlementsForNewExpenses(rows);
+			entityManager.flush();
+			//drop saved rows from persistence context so heap stay bounded
+			entityManager.clear();
+			return ids;
+		});
+	}
+
+	private ExpenseEntity toEntity(CreateExpenseRequestDTO request, Household household, HouseholdMember member,
+			HouseholdMember admin, ExpenseStatus status, Map<Long, HouseholdMember> memberMap) {
+		ExpenseEntity expense = ExpenseEntity.builder()
+				.amount(request.getAmount())
+				.category(request.getCategory())
+				.description(request.getDescription())
+				.created_by(member)
+				.method(request.getMethod())
+				.status(status)
+				.household(household)
+				.reviewed_by(admin)
+				.date(request.getDate())
+				.currency(request.getCurrency())
+				.build();
+		for (SplitRequestDTO split : request.getSplits()) {
+			expense.getSplitDetails().add(ExpenseSplitDetailsEntity.builder()
+					.amount(split.getAmount())
+					.member(memberMap.get(split.getMemberId()))
+					.expense(expense)
+					.build());
+		}
+		return expense;
+	}
+
+	private static void addError(ImportReportDTO report, long line, String message) {
+		report.setFailed(report.getFailed() + 1);
+		if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+			report.getErrors().add(new ImportReportDTO.RowError(line, message));
+		}
+	}
+
+	//header: date,amount,currency,category,description,method,splits
+	private static Map<String, Integer> parseHeader(String header) {
+		List<String> names = splitCsvLine(header);
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			columns.put(names.get(i).trim().toLowerCase(), i);
+		}
+		for (String required : List.of("amount", "currency", "category", "method", "splits")) {
+			if (!columns.containsKey(required)) {
+				throw new IllegalArgumentException("Missing CSV column: " + required);
+			}
+		}
+		return columns;
+	}
+
+	//splits column: memberId:amount;memberId:amount
+	private static CreateExpenseRequestDTO parseCsvRow(String line, Map<String, Integer> columns) {
+		List<String> values = splitCsvLine(line);
+		Function<String, String> col = name -> {
+			Integer i = columns.get(name);
+			if (i == null || i >= values.size()) {
+				return null;
+			}
+			String v = values.get(i).trim();
+			return v.isEmpty() ? null : v;
+		};
+
+		List<SplitRequestDTO> splits = new ArrayList<>();
+		String rawSplits = col.apply("splits");
+		if (rawSplits != null) {
+			for (String part : rawSplits.split(";")) {
+				String[] kv = part.split(":");
+				if (kv.length != 2) {
+					throw new IllegalArgumentException("Invalid split: " + part);
+				}
+				splits.add(new SplitRequestDTO(Long.valueOf(kv[0].trim()), new BigDecimal(kv[1].trim())));
+			}
+		}
+
+		String amount = col.apply("amount");
+		String date = col.apply("date");
+		String method = col.apply("method");
+		return CreateExpenseRequestDTO.builder()
+				.amount(amount != null ? new BigDecimal(amount) : null)
+				.date(date != null ? LocalDate.parse(date) : null)
+				.currency(col.apply("currency"))
+				.category(col.apply("category"))
+				.description(col.apply("description"))
+				.method(method != null ? Method.valueOf(method.toUpperCase()) : null)
+				.splits(splits)
+				.build();
+	}
+
+	//comma separated, double quote to escape comma, "" for a literal quote
+	private static List<String> splitCsvLine(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					current.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					current.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(current.toString());
+				current.setLength(0);
+			} else {
+				current.append(c);
+			}
+		}
+		values.add(current.toString());
+		return values;
+	}
+}
@@ -0,0 +1,137 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ExpenseTotalsDTO;
+import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
+import com.be9expensphie.expensphie_backend.entity.ExpenseRollupEntity;
+import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
+import com.be9expensphie.expensphie_backend.enums.TimeRange;
+import com.be9expensphie.expensphie_backend.repository.AppMigrationRepository;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRollupRepository;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+//keep expense_rollup in sync with expenses
+//caller must already be inside the transaction that write the expense
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseRollupService {
+    //bump the suffix to rebuild the table once more on next deploy
+    static final String ROLLUP_BACKFILL = "expense_rollup_backfill_v1";
+
+    private final ExpenseRollupRepository expenseRollupRepository;
+    private final ExpenseRepository expenseRepository;
+    private final AppMigrationRepository appMigrationRepository;
+
+    //new expense
+    public void recordCreated(ExpenseEntity expense) {
+        recordCreatedAll(List.of(expense));
+    }
+
+    //many new expenses at once, sum per rollup row first so each row is written once
+    public void recordCreatedAll(List<ExpenseEntity> expenses) {
+        Map<String, ExpenseRollupEntity> deltas = new LinkedHashMap<>();
+        for (ExpenseEntity e : expenses) {
+            add(deltas, e.getHousehold().getId(), e.getStatus(), e.getCategory(), e.getCurrency(), e.getDate(),
+                    e.getAmount(), 1);
+        }
+        expenseRollupRepository.addAll(deltas.values());
+    }
+
+    //status/category/currency/date/amount changed, pass the values before the change
+    public void recordChanged(ExpenseEntity expense, ExpenseStatus oldStatus, String oldCategory,
+                              String oldCurrency, LocalDate oldDate, BigDecimal oldAmount) {
+        //same key only move the amount, the 2 deltas merge into one write
+        Map<String, ExpenseRollupEntity> deltas = new LinkedHashMap<>();
+        Long householdId = expense.getHousehold().getId();
+        add(deltas, householdId, oldStatus, oldCategory, oldCurrency, oldDate, oldAmount.negate(), -1);
+        add(deltas, householdId, expense.getStatus(), expense.getCategory(), expense.getCurrency(),
+                expense.getDate(), expense.getAmount(), 1);
+        deltas.values().removeIf(r -> r.getExpenseCount() == 0 && r.getTotalAmount().signum() == 0);
+        expenseRollupRepository.addAll(deltas.values());
+    }
+
+    //[start, end) read from the rollup and grouped into buckets of the range
+    public ExpenseTotalsDTO getTotals(Long householdId, ExpenseStatus status, TimeRange range,
+                                      LocalDate start, LocalDate end) {
+        //bucketStart->currency->[total, count], sorted so buckets come out oldest first
+        Map<LocalDate, Map<String, ExpenseTotalsDTO.Bucket>> buckets = new TreeMap<>();
+        Map<String, ExpenseTotalsDTO.CategoryTotal> categories = new TreeMap<>();
+        for (ExpenseRollupEntity r : expenseRollupRepository.findWindow(householdId, status, start, end)) {
+            LocalDate bucketStart = range == TimeRange.WEEKLY ? r.getDay().with(DayOfWeek.MONDAY) : r.getDay();
+            ExpenseTotalsDTO.Bucket bucket = buckets
+                    .computeIfAbsent(bucketStart, k -> new TreeMap<>())
+                    .computeIfAbsent(r.getCurrency(),
+                            c -> new ExpenseTotalsDTO.Bucket(bucketStart, c, BigDecimal.ZERO, 0));
+            bucket.setTotal(bucket.getTotal().add(r.getTotalAmount()));
+            bucket.setCount(bucket.getCount() + r.getExpenseCount());
+
+            ExpenseTotalsDTO.CategoryTotal category = categories.computeIfAbsent(
+                    r.getCategory() + ":" + r.getCurrency(),
+                    k -> new ExpenseTotalsDTO.CategoryTotal(r.getCategory(), r.getCurrency(), BigDecimal.ZERO, 0));
+            category.setTotal(category.getTotal().add(r.getTotalAmount()));
+            category.setCount(category.getCount() + r.getExpenseCount());
+        }
+
+        ExpenseTotalsDTO totals = ExpenseTotalsDTO.builder()
+                .range(range)
+                .status(status)
+                .start(start)
+                .end(end)
+                .build();
+        buckets.values().forEach(byCurrency -> totals.getBuckets().addAll(byCurrency.values()));
+        totals.getCategories().addAll(categories.values());
+        return totals;
+    }
+
+    //rebuild from expenses once per db, the marker row let only the first node in
+    //count()>0 was not a guard: nodes starting together both filled it, an early expense made it skip
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillOnce() {
+        if (!appMigrationRepository.claim(ROLLUP_BACKFILL)) {
+            return;
+        }
+        //delete before reading the sums, same ordering as the member_balance rebuild:
+        //a writer that upserted first hold its row until commit, a later one add its delta on top of ours
+        expenseRollupRepository.deleteAllInBatch();
+        Map<String, ExpenseRollupEntity> rows = new LinkedHashMap<>();
+        for (Object[] r : expenseRepository.sumForRollup()) {
+            add(rows, (Long) r[0], (ExpenseStatus) r[1], (String) r[2], (String) r[3], (LocalDate) r[4],
+                    (BigDecimal) r[5], (Long) r[6]);
+        }
+        expenseRollupRepository.addAll(rows.values());
+        log.info("Backfilled {} expense rollup rows", rows.size());
+    }
+
+    private static void add(Map<String, ExpenseRollupEntity> deltas, Long householdId, ExpenseStatus status,
+                            String category, String currency, LocalDate day, BigDecimal amount, long count) {
+        ExpenseRollupEntity row = deltas.computeIfAbsent(
+                householdId + ":" + status + ":" + category + ":" + currency + ":" + day,
+                k -> ExpenseRollupEntity.builder()
+                        .householdId(householdId)
+                        .status(status)
+                        .category(category)
+                        .currency(currency)
+                        .day(day)
+                        .totalAmount(BigDecimal.ZERO)
+                        .build());
+        row.setTotalAmount(row.getTotalAmount().add(amount));
+        row.setExpenseCount(row.getExpenseCount() + count);
+    }
+}
@@ -2,13 +2,12 @@ package com.be9expensphie.expensphie_backend.service;
 
 import com.be9expensphie.expensphie_backend.dto.CursorDTO;
 import com.be9expensphie.expensphie_backend.dto.ExpenseEventDTO.CreateExpenseEventDTO;
-import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -18,22 +17,22 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.be9expensphie.expensphie_backend.entity.*;
+import com.be9expensphie.expensphie_backend.event.ExpensesChangedEvent;
 import com.be9expensphie.expensphie_backend.enums.SettlementStatus;
 import com.be9expensphie.expensphie_backend.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
 import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
 import com.be9expensphie.expensphie_backend.enums.TimeRange;
-import com.be9expensphie.expensphie_backend.Exception.AiExpenseParseException;
-import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.enums.ExpenseSort;
+import com.be9expensphie.expensphie_backend.util.KeysetCursor;
 import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
 import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ExpenseTotalsDTO;
 import com.be9expensphie.expensphie_backend.dto.SplitDTO.SplitRequestDTO;
 import com.be9expensphie.expensphie_backend.security.HouseholdSecurity;
 import com.be9expensphie.expensphie_backend.validation.ExpenseValidation;
@@ -41,6 +40,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -54,22 +54,24 @@ public class ExpenseService {
 	private final HouseholdMemberRepository householdMemberRepo;
 	private final HouseholdSecurity householdSecurity;
 	private final SettlementService settlementService;
-	private final HouseholdMemberService householdMemberService;
 	private final ExpenseValidation expenseValidation;
-	private final AiService aiService;
 	private final ExpenseSplitDetailsRepository expenseSplitDetailsRepo;
 	private final SettlementRepository settlementRepository;
+	private final MemberBalanceService memberBalanceService;
+	private final ExpenseRollupService expenseRollupService;
 	private final CacheManager cacheManager;
-	private static final String AI_SUGGESTION = "ai_suggestion";
 	private static final String EXPENSE_IN_RANGE="expense_in_range";
-	private final KafkaTemplate<String, WebSocketEvent> wsKafkaTemplate;
+	private static final String EXPENSE_TOTALS="expense_totals";
+	//first page key, above every real row
+	private static final LocalDate LAST_DATE=LocalDate.of(9999,12,31);
+	private static final BigDecimal MAX_AMOUNT=BigDecimal.valueOf(Long.MAX_VALUE);
+	private final OutboxService outboxService;
+	private final ApplicationEventPublisher eventPublisher;
 	@Autowired
 	private final ObjectMapper mapper;
 
 	@Transactional
 	public CreateExpenseResponseDTO createExpense(Long householdId, CreateExpenseRequestDTO createRequest) {
-		UserEntity currentUser = userService.getCurrentUser();
-
 		// find household to retrieve member
 		Household household = householdRepo.findById(householdId)
 				.orElseThrow(() -> new RuntimeException("Household not found"));
@@ -77,8 +79,8 @@ public class ExpenseService {
 		HouseholdMember admin = householdMemberRepo
 				.findByHouseholdAndRole(household, HouseholdRole.ROLE_ADMIN)
 				.orElseThrow(() -> new RuntimeException("No admin found for household"));
-		// find member
-		Optional<HouseholdMember> memberOptional = householdMemberRepo.findByUserAndHousehold(currentUser, household);
+		// find member, cached on principal for this request
+		Optional<HouseholdMember> memberOptional = userService.getCurrentMember(householdId);
 		if (memberOptional.isEmpty()) {
 			throw new RuntimeException("User is not in this household");
 		}
@@ -123,14 +125,15 @@ public class ExpenseService {
 			expense.getSplitDetails().add(splitDetails);
 		}
 		ExpenseEntity savedExpense = expenseRepo.save(expense);
+		expenseRollupService.recordCreated(savedExpense);
 		evictExpenseInRangeCaches(householdId,status);
-		evictCacheForAiSuggestion(householdId);
+		markAiSuggestionStale(householdId);
 		if (savedExpense.getStatus() == ExpenseStatus.APPROVED) {
 			settlementService.createSettlementsForExpense(savedExpense);
 		}
 
 		CreateExpenseResponseDTO response = toDTO(savedExpense);
-		sendWebSocketEvent(expenseTopic(householdId), new CreateExpenseEventDTO("EXPENSE_CREATED", response, householdId));
+		sendWebSocketEvent(householdId, new CreateExpenseEventDTO("EXPENSE_CREATED", response, householdId));
 		return response;
 	}
 
@@ -150,65 +153,52 @@ public class ExpenseService {
 	}
 
 	//get all expense or approved
-	public CursorDTO<CreateExpenseResponseDTO> getExpense(Long householdId, ExpenseStatus status, int limit, Long cursor) {
-		UserEntity currentUser=userService.getCurrentUser();
-		List<ExpenseEntity> expenses;
+	public CursorDTO<CreateExpenseResponseDTO> getExpense(Long householdId, ExpenseStatus status, int limit, String cursor, ExpenseSort sort) {
+		List<CreateExpenseResponseDTO> expenses;
 		//find household and check if user in this household
 		Household household=householdRepo.findById(householdId)
 				.orElseThrow(()->new RuntimeException("Household not found"));
 
-		HouseholdMember member = householdMemberRepo.findByUserAndHousehold(currentUser, household)
+		HouseholdMember member = userService.getCurrentMember(householdId)
 				.orElseThrow(() -> new RuntimeException("User not in household"));
 
-		Pageable pageable= PageRequest.of(0,limit+1, Sort.by("id").descending());
-
-		if(status==null) {
-			//first page auto query first 10 expense
-			if(cursor==null){
-				//take 11 expense for checking has more, no need for additional query
-				expenses=expenseRepo.findNextExpense(Long.MAX_VALUE, household, pageable);
-			}else{
-				expenses=expenseRepo.findNextExpense(cursor,household,pageable);
-			}
-			if(!expenses.isEmpty()){
-				expenseRepo.fetchsplitDeatils(expenses);
-			}
-		}else {
-			if(cursor==null){
-				expenses=expenseRepo.findExpenseByStatus(householdId,status,Long.MAX_VALUE,pageable);
-			}else{
-				expenses=expenseRepo.findExpenseByStatus(householdId, status,cursor,pageable);
-			}
-
-		}
-		boolean hasMore=expenses.size()>limit;
-
-		//trim to 10 expense per page
-		if(hasMore){
-			expenses=expenses.subList(0,limit);
+		//take 11 expense for checking has more, no need for additional query
+		//order is in the query, page only limit the rows
+		Pageable pageable= PageRequest.of(0,limit+1);
+		//first page start above every real row, next pages start after the last row of previous page
+		KeysetCursor from=cursor==null?null:KeysetCursor.decode(cursor,sort.name());
+		long id=from==null?Long.MAX_VALUE:from.id();
+
+		//dto projection, no entity hydrated for a list page
+		switch(sort) {
+			case DATE:
+				LocalDate date=from==null?LAST_DATE:LocalDate.parse(from.key());
+				expenses=status==null
+						?expenseRepo.findExpensePageByDate(householdId,date,id,pageable)
+						:expenseRepo.findExpensePageByStatusAndDate(householdId,status,date,id,pageable);
+				return KeysetCursor.page(expenses,limit,sort.name(),CreateExpenseResponseDTO::getDate,CreateExpenseResponseDTO::getId);
+			case AMOUNT:
+				BigDecimal amount=from==null?MAX_AMOUNT:new BigDecimal(from.key());
+				expenses=status==null
+						?expenseRepo.findExpensePageByAmount(householdId,amount,id,pageable)
+						:expenseRepo.findExpensePageByStatusAndAmount(householdId,status,amount,id,pageable);
+				return KeysetCursor.page(expenses,limit,sort.name(),e->e.getAmount().toPlainString(),CreateExpenseResponseDTO::getId);
+			default:
+				expenses=status==null
+						?expenseRepo.findExpensePage(householdId,id,pageable)
+						:expenseRepo.findExpensePageByStatus(householdId,status,id,pageable);
+				return KeysetCursor.page(expenses,limit,sort.name(),CreateExpenseResponseDTO::getId,CreateExpenseResponseDTO::getId);
 		}
-		//next cursor=expenseId, compare with id index for better complexity
-		Long nextCursor=expenses.isEmpty()?null:expenses.get(expenses.size()-1).getId();
-
-
-		return CursorDTO.<CreateExpenseResponseDTO>builder()
-				.hasMore(hasMore)
-				.nextCursor(nextCursor)
-				.data(expenses.stream().map(this::toDTO).toList())
-				.build();
 	}
 
 
 	public CreateExpenseResponseDTO getSingleExpense(Long householdId, Long expenseId) {
-		UserEntity currentUser = userService.getCurrentUser();
-
 		// check household exist
 		Household household = householdRepo.findById(householdId)
 				.orElseThrow(() -> new RuntimeException("No household found"));
 
 		// check user belong to group
-		HouseholdMember member = householdMemberRepo
-				.findByUserAndHousehold(currentUser, household)
+		HouseholdMember member = userService.getCurrentMember(householdId)
 				.orElseThrow(() -> new RuntimeException("User not in this group"));
 
 		ExpenseEntity expense = expenseRepo.findByIdAndHousehold(expenseId, household)
@@ -226,12 +216,18 @@ public class ExpenseService {
 				.build();
 	}
 
+	@Transactional
 	public CreateExpenseResponseDTO updateExpense(Long householdId, Long expenseId,CreateExpenseRequestDTO request){
 		Household household = householdRepo.findById(householdId)
 				.orElseThrow(() -> new RuntimeException("No household found"));
 
 		ExpenseEntity expense=expenseRepo.findByIdAndHousehold(expenseId,household)
 				.orElseThrow(()-> new RuntimeException("Expense not found"));
+		//rollup key before the change
+		String rollupCategory=expense.getCategory();
+		String rollupCurrency=expense.getCurrency();
+		LocalDate rollupDate=expense.getDate();
+		BigDecimal rollupAmount=expense.getAmount();
 
 
 		//update expense
@@ -322,11 +318,15 @@ public class ExpenseService {
 									.status(SettlementStatus.PENDING)
 									.build();
 							settlementRepository.save(newSettlement);
+							memberBalanceService.recordCreated(newSettlement);
 						}else{
 							//else, change amount
+							BigDecimal oldAmount=settlement.getAmount();
+							String oldCurrency=settlement.getCurrency();
 							settlement.setAmount(split.getAmount());
 							settlement.setCurrency(expense.getCurrency());
 							settlementRepository.save(settlement);
+							memberBalanceService.recordChanged(settlement,settlement.getStatus(),oldAmount,oldCurrency);
 						}
 						//new settlement
 					}else{
@@ -340,6 +340,7 @@ public class ExpenseService {
 								.status(SettlementStatus.PENDING)
 								.build();
 						settlementRepository.save(newSettlement);
+						memberBalanceService.recordCreated(newSettlement);
 					}
 					affectedSettlementMembers.add(split.getMember().getId());
 
@@ -353,7 +354,9 @@ public class ExpenseService {
 		} // end if splits not null
 
 		ExpenseEntity savedExpense=expenseRepo.save(expense);
-		evictCacheForAiSuggestion(householdId);
+		expenseRollupService.recordChanged(savedExpense,savedExpense.getStatus(),rollupCategory,rollupCurrency,rollupDate,rollupAmount);
+		evictExpenseInRangeCaches(householdId,savedExpense.getStatus());
+		markAiSuggestionStale(householdId);
 		return toDTO(savedExpense);
 	}
 
@@ -384,15 +387,16 @@ public class ExpenseService {
 
 		expense.setStatus(ExpenseStatus.APPROVED);
 		expenseRepo.save(expense);
+		expenseRollupService.recordChanged(expense,ExpenseStatus.PENDING,expense.getCategory(),expense.getCurrency(),expense.getDate(),expense.getAmount());
 
-		evictCacheForAiSuggestion(householdId);
+		markAiSuggestionStale(householdId);
 		evictExpenseInRangeCaches(householdId,ExpenseStatus.PENDING);
 		evictExpenseInRangeCaches(householdId,ExpenseStatus.APPROVED);
 
 		settlementService.createSettlementsForExpense(expense);
 
 		CreateExpenseResponseDTO response = toDTO(expense);
-		sendWebSocketEvent(expenseTopic(householdId), new CreateExpenseEventDTO("EXPENSE_ACCEPTED", response, householdId));
+		sendWebSocketEvent(householdId, new CreateExpenseEventDTO("EXPENSE_ACCEPTED", response, householdId));
 		return response;
 	}
 
@@ -409,135 +413,110 @@ public class ExpenseService {
 			throw new RuntimeException("Only pending expense can be rejected");
 		}
 		expense.setStatus(ExpenseStatus.REJECTED);
+		expenseRollupService.recordChanged(expense,ExpenseStatus.PENDING,expense.getCategory(),expense.getCurrency(),expense.getDate(),expense.getAmount());
 
-		sendWebSocketEvent(expenseTopic(householdId), new CreateExpenseEventDTO("EXPENSE_REJECTED", toDTO(expense), householdId));
 		expenseRepo.save(expense);
+		sendWebSocketEvent(householdId, new CreateExpenseEventDTO("EXPENSE_REJECTED", toDTO(expense), householdId));
 		evictExpenseInRangeCaches(householdId,ExpenseStatus.PENDING);
 		evictExpenseInRangeCaches(householdId,ExpenseStatus.REJECTED);
-		evictCacheForAiSuggestion(householdId);
+		markAiSuggestionStale(householdId);
 	}
 
 	//filter query
 	@Cacheable(key = "#householdId + ':' + #status + ':' + #range",cacheNames = EXPENSE_IN_RANGE)
 	public List<CreateExpenseResponseDTO> getExpenseByPeriod(ExpenseStatus status,Long householdId,TimeRange range){
-		LocalDate now=LocalDate.now();
-		LocalDate start;
-		LocalDate end;
-
-		switch(range) {
-			case DAILY:
-				start=now.with(DayOfWeek.MONDAY);
-				end=start.plusWeeks(1);
-				break;
-			case WEEKLY:
-				start=now.minusWeeks(8).with(DayOfWeek.MONDAY);
-				end=now.plusDays(1);
-				break;
-			case MONTHLY:
-				start=now.withDayOfMonth(1);
-				end=start.plusMonths(1);
-				break;
-			default:
-				throw new RuntimeException("Invalid range of time");
-		}
+		LocalDate[] window=rangeWindow(range);
 		List<ExpenseEntity> expenses = expenseRepo.findExpenseInRange(
 				householdId,
 				status,
-				start,
-				end);
+				window[0],
+				window[1]);
 		return expenses.stream()
 				.map(this::toDTO)
 				.toList();
 	}
 
-	public List<CreateExpenseResponseDTO> getExpenseLastMonth(Long householdId) {
-		List<ExpenseEntity> expenses = expenseRepo.findExpenseInLastMonth(householdId);
-		return expenses.stream()
-				.map(this::toDTO)
-				.toList();
+	//chart totals of the range from expense_rollup, a few rows per day instead of every expense
+	//cache read by hand so the membership check run before it, @Cacheable would answer without calling us
+	public ExpenseTotalsDTO getExpenseTotals(ExpenseStatus status,Long householdId,TimeRange range){
+		userService.getCurrentMember(householdId)
+				.orElseThrow(() -> new RuntimeException("User not in household"));
+
+		LocalDate[] window=rangeWindow(range);
+		Cache cache=cacheManager.getCache(EXPENSE_TOTALS);
+		if(cache==null) {
+			return expenseRollupService.getTotals(householdId,status,range,window[0],window[1]);
+		}
+		return cache.get(householdId + ":" + status + ":" + range,
+				() -> expenseRollupService.getTotals(householdId,status,range,window[0],window[1]));
 	}
 
-	//create expense with ai
-	@Transactional
-	public CreateExpenseResponseDTO createExpenseAI(Long householdId, String paragraph) {
-		//send all member id for splits
-		List<MemberDTO> member=householdMemberService.getMembers(householdId);
+	//same window as getExpenseByPeriod but bounded, newest date first
+	public CursorDTO<CreateExpenseResponseDTO> getExpenseByPeriodPage(ExpenseStatus status,Long householdId,TimeRange range,int limit,String cursor){
+		userService.getCurrentMember(householdId)
+				.orElseThrow(() -> new RuntimeException("User not in household"));
 
-		String prompt=buildPrompt(paragraph,member);
-		String aiResponse=aiService.chat(prompt);
+		LocalDate[] window=rangeWindow(range);
+		KeysetCursor from=cursor==null?null:KeysetCursor.decode(cursor,ExpenseSort.DATE.name());
+		LocalDate date=from==null?LAST_DATE:LocalDate.parse(from.key());
+		long id=from==null?Long.MAX_VALUE:from.id();
 
-		//check response ai for debug
-		System.out.println("AI response"+aiResponse);
+		List<CreateExpenseResponseDTO> expenses=expenseRepo.findExpensePageInRange(
+				householdId,status,window[0],window[1],date,id,PageRequest.of(0,limit+1));
+		return KeysetCursor.page(expenses,limit,ExpenseSort.DATE.name(),CreateExpenseResponseDTO::getDate,CreateExpenseResponseDTO::getId);
+	}
 
-		try {
-			//use mapper to map response to dto
-			CreateExpenseRequestDTO request=
-					mapper.readValue(aiResponse, CreateExpenseRequestDTO.class);
-			return createExpense(householdId,request);
-		}catch(JsonProcessingException e) {
-			throw new AiExpenseParseException("Please check make sure to fill all required category!");
+	//[start, end) of the range
+	private static LocalDate[] rangeWindow(TimeRange range) {
+		LocalDate now=LocalDate.now();
+		switch(range) {
+			case DAILY:
+				LocalDate monday=now.with(DayOfWeek.MONDAY);
+				return new LocalDate[] {monday,monday.plusWeeks(1)};
+			case WEEKLY:
+				return new LocalDate[] {now.minusWeeks(8).with(DayOfWeek.MONDAY),now.plusDays(1)};
+			case MONTHLY:
+				LocalDate first=now.withDayOfMonth(1);
+				return new LocalDate[] {first,first.plusMonths(1)};
+			default:
+				throw new RuntimeException("Invalid range of time");
 		}
 	}
 
-	private String buildPrompt(String paragraph,List<MemberDTO> member) {
-		String today = LocalDate.now()
-				.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-
-		return
-				"""
-				today is(format: dd/mm/yyyy)""" + today +
-						"""
-                        according to this memberList: 
-                        """+member+
-						""" 
-                        extract information from the paragraph below.
-                        return ONLY valid JSON in this format
-                        Do not include markdown.
-                        Do not wrap in ```json.
-                        If the paragraph didnt provide information about these attributes: amount,category,method and split(who paid what),
-                        You are NOT allowed to assume or add any missing information.
-                        If missing any information just LEAVE IT BLANK
-                        {
-                          "amount": number type,
-                          "date": "yyyy-MM-dd"(set today is local date),
-                          "category": "string type"(write in enum format:ELECTRICITY/FOOD/...->NOT NULL),
-                          "description": "string type"(description for that expense,if not mention, LEAVE BLANK),
-                          "method": "EQUAL|AMOUNT" (EQUAL:bills split equally, AMOUNT: bills splits customized->NOT NULL)
-                          "currency: "AUD|USD|VND"
-                          "splits": [
-                            { "memberId": number, "amount": number },
-                            ....
-                          ]
-                        }
-                        """+paragraph;
+	//may run on the ai executor, no open session there for created_by
+	@Transactional
+	public List<CreateExpenseResponseDTO> getExpenseLastMonth(Long householdId) {
+		List<ExpenseEntity> expenses = expenseRepo.findExpenseInLastMonth(householdId);
+		return expenses.stream()
+				.map(this::toDTO)
+				.toList();
 	}
 
-	private void evictCacheForAiSuggestion(Long householdId){
-		String key=String.valueOf(householdId);
-		Cache cache=cacheManager.getCache(AI_SUGGESTION);
-		if(cache!=null){
-			cache.evict(key);
-		}
+	//AiSuggestionRefresher regenerate (or evict) the suggestion once the transaction committed
+	void markAiSuggestionStale(Long householdId){
+		eventPublisher.publishEvent(new ExpensesChangedEvent(householdId));
 	}
 
-	private void sendWebSocketEvent(String destination, Object payload) {
+	//written to the outbox in the caller transaction, OutboxRelay publish it after commit
+	private void sendWebSocketEvent(Long householdId, Object payload) {
 		try {
-			wsKafkaTemplate.send("websocket-events", new WebSocketEvent(destination, mapper.writeValueAsString(payload)));
+			outboxService.enqueueHouseholdEvent(householdId, expenseTopic(householdId), mapper.writeValueAsString(payload));
 		} catch (JsonProcessingException e) {
 			throw new RuntimeException("Failed to serialize WebSocket payload", e);
 		}
 	}
 
 	//evict all combination in range with id and status
-	private void evictExpenseInRangeCaches(Long householdId, ExpenseStatus changedStatus) {
-		Cache cache = cacheManager.getCache(EXPENSE_IN_RANGE);
-		if (cache == null) {
-			return;
-		}
-
-		for (TimeRange range : TimeRange.values()) {
-			cache.evict(householdId + ":" + changedStatus + ":" + range);
-			cache.evict(householdId + ":" + null + ":" + range);
+	void evictExpenseInRangeCaches(Long householdId, ExpenseStatus changedStatus) {
+		for (String name : List.of(EXPENSE_IN_RANGE, EXPENSE_TOTALS)) {
+			Cache cache = cacheManager.getCache(name);
+			if (cache == null) {
+				continue;
+			}
+			for (TimeRange range : TimeRange.values()) {
+				cache.evict(householdId + ":" + changedStatus + ":" + range);
+				cache.evict(householdId + ":" + null + ":" + range);
+			}
 		}
 	}
 }
@@ -13,6 +13,7 @@ import com.be9expensphie.expensphie_backend.entity.UserEntity;
 import com.be9expensphie.expensphie_backend.repository.ForgotPasswordRepository;
 import com.be9expensphie.expensphie_backend.repository.UserRepository;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -23,7 +24,9 @@ public class ForgotPasswordService {
     private final PasswordEncoder passwordEncoder;
     private final EmailProducer emailProducer;
 
+    //otp row and email commit together
     @SuppressWarnings("null")
+    @Transactional
     public void verifyEmail(String email) {
         UserEntity existingUser = userRepository.findByEmail(email)
                                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
@@ -1,53 +1,96 @@
 package com.be9expensphie.expensphie_backend.service;
 
+import java.time.LocalDate;
 import java.util.List;
 
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
 import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.be9expensphie.expensphie_backend.util.ExpenseFeatureSummary;
+
+import reactor.core.publisher.Flux;
 
 @Service
 public class GeminiService {
     private final ExpenseService expenseService;
-    private final ChatClient chatClient;
+    private final LlmGateway llmGateway;
+    private final CacheManager cacheManager;
     private static final String AI_SUGGESTION="ai_suggestion";
+    private static final String NO_EXPENSES = "No recent expenses found to analyze.";
 
     public GeminiService(ExpenseService expenseService,
             ExpenseRepository expenseRepo,
-            @Qualifier("geminiChatClient") ChatClient chatClient) {
+            LlmGateway llmGateway,
+            CacheManager cacheManager) {
         this.expenseService = expenseService;
-        this.chatClient = chatClient;
+        this.llmGateway = llmGateway;
+        this.cacheManager = cacheManager;
     }
 
     @Cacheable(key = "#householdId", cacheNames=AI_SUGGESTION)
     public String getExpenseSuggestions(Long householdId) {
+        return generate(householdId);
+    }
+
+    //background refresh: always ask the model, replace the entry only when it answered
+    @CachePut(key = "#householdId", cacheNames=AI_SUGGESTION)
+    public String refreshExpenseSuggestions(Long householdId) {
+        return generate(householdId);
+    }
+
+    //tokens as the model produce them, the whole answer go to the same cache entry as the blocking call
+    //only a stream that complete is cached, an error or a client that leave early store nothing
+    public Flux<String> streamExpenseSuggestions(Long householdId) {
+        Cache cache = cacheManager.getCache(AI_SUGGESTION);
+        String cached = cache == null ? null : cache.get(householdId, String.class);
+        if (cached != null) {
+            return Flux.just(cached);
+        }
+        String prompt = buildPrompt(householdId);
+        if (prompt == null) {
+            return Flux.just(NO_EXPENSES);
+        }
+        StringBuilder answer = new StringBuilder();
+        return llmGateway.stream(LlmGateway.GEMINI, prompt)
+                .doOnNext(answer::append)
+                .doOnComplete(() -> {
+                    if (cache != null && !answer.isEmpty()) {
+                        cache.put(householdId, answer.toString());
+                    }
+                });
+    }
+
+    private String generate(Long householdId) {
+        String prompt = buildPrompt(householdId);
+        if (prompt == null) {
+            return NO_EXPENSES;
+        }
+        return llmGateway.call(LlmGateway.GEMINI, prompt);
+    }
+
+    private String buildPrompt(Long householdId) {
         List<CreateExpenseResponseDTO> expenses = expenseService.getExpenseLastMonth(householdId);
 
         if (expenses.isEmpty()) {
-            return "No recent expenses found to analyze.";
+            return null;
         }
 
+        //aggregates instead of one line per expense, prompt size stay bounded for busy households
         StringBuilder prompt = new StringBuilder();
-        prompt.append("Based on the following household expenses from the last month, ")
-                .append("provide practical financial suggestions and spending insights:\n\n");
-
-        for (CreateExpenseResponseDTO expense : expenses) {
-            prompt.append(String.format("- Category: %s | Currency: %s | Amount: %s | Date: %s%n",
-                    expense.getCategory(),
-                    expense.getCurrency(),
-                    expense.getAmount(),
-                    expense.getDate()));
-        }
+        prompt.append("Based on the following summary of household expenses from the last month, ")
+                .append("provide practical financial suggestions and spending insights:\n\n")
+                .append(ExpenseFeatureSummary.summarize(expenses, LocalDate.now()));
 
         prompt.append("\nPlease provide (in a friendly language and keep it concise):\n")
                 .append("1. Spending pattern analysis\n")
                 .append("2. Cost-saving suggestions\n")
                 .append("3. Budget recommendations\n");
 
-        return chatClient.prompt(prompt.toString()).call().content();
+        return prompt.toString();
     }
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.be9expensphie.expensphie_backend.dto.HouseholdDTO;
@@ -15,6 +16,7 @@ import com.be9expensphie.expensphie_backend.entity.Household;
 import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
 import com.be9expensphie.expensphie_backend.entity.UserEntity;
 import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.event.HouseholdMembershipChangedEvent;
 import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
 import com.be9expensphie.expensphie_backend.repository.HouseholdRepository;
 
@@ -27,6 +29,7 @@ public class HouseholdService {
 	private final HouseholdRepository householdRepository;
 	private final HouseholdMemberRepository householdmemberRepository;
 	private final UserService userService;
+	private final ApplicationEventPublisher eventPublisher;
 	//check and get user that currently login
 	
 	
@@ -53,6 +56,7 @@ public class HouseholdService {
 				.role(HouseholdRole.ROLE_ADMIN)
 				.build();
 		householdmemberRepository.save(householdMember);
+		eventPublisher.publishEvent(new HouseholdMembershipChangedEvent(user.getId(), household.getId()));
 		
 		return CreateResponse.builder()
 				.id(household.getId())
@@ -82,7 +86,9 @@ public class HouseholdService {
 		            .user(user)
 		            .role(HouseholdRole.ROLE_MEMBER)
 		            .build();
-		    return householdmemberRepository.save(newMember);
+		    HouseholdMember saved = householdmemberRepository.save(newMember);
+		    eventPublisher.publishEvent(new HouseholdMembershipChangedEvent(user.getId(), household.getId()));
+		    return saved;
 		});
 
 		return JoinHouseholdResponseDTO.builder()
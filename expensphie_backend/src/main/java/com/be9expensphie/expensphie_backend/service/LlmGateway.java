@@ -0,0 +1,279 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.be9expensphie.expensphie_backend.Exception.LlmUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+//every llm call go through here: per provider bulkhead, timeout, circuit breaker, then failover to the other provider
+//a slow or broken provider cost at most max-concurrent threads and timeout per call, never the whole node
+@Slf4j
+@Service
+public class LlmGateway {
+	public static final String GEMINI = "gemini";
+	public static final String OPENAI = "openai";
+
+	private final Map<String, Provider> providers = new LinkedHashMap<>();
+	private final MeterRegistry meterRegistry;
+	private final Duration timeout;
+	private final long bulkheadWaitMs;
+	private final int failureThreshold;
+	private final long openMs;
+	//blocking calls run here so the caller can stop waiting, the permit is held until the call really end
+	private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public LlmGateway(@Qualifier("geminiChatClient") ChatClient geminiChatClient,
+			@Qualifier("openAiChatClient") ChatClient openAiChatClient,
+			MeterRegistry meterRegistry,
+			@Value("${app.ai.llm.timeout-ms:30000}") long timeoutMs,
+			@Value("${app.ai.llm.bulkhead.max-concurrent:50}") int maxConcurrent,
+			@Value("${app.ai.llm.bulkhead.max-wait-ms:100}") long bulkheadWaitMs,
+			@Value("${app.ai.llm.breaker.failure-threshold:5}") int failureThreshold,
+			@Value("${app.ai.llm.breaker.open-ms:30000}") long openMs) {
+		this.meterRegistry = meterRegistry;
+		this.timeout = Duration.ofMillis(timeoutMs);
+		this.bulkheadWaitMs = bulkheadWaitMs;
+		this.failureThreshold = failureThreshold;
+		this.openMs = openMs;
+		providers.put(GEMINI, new Provider(GEMINI, geminiChatClient, maxConcurrent));
+		providers.put(OPENAI, new Provider(OPENAI, openAiChatClient, maxConcurrent));
+	}
+
+	public String call(String preferred, String prompt) {
+		RuntimeException last = null;
+		for (Provider p : order(preferred)) {
+			if (!acquire(p, bulkheadWaitMs)) {
+				continue;
+			}
+			Timer.Sample sample = Timer.start(meterRegistry);
+			Future<String> answer;
+			try {
+				answer = callExecutor.submit(() -> {
+					try {
+						return p.client.prompt(prompt).call().content();
+					} finally {
+						p.bulkhead.release();
+					}
+				});
+			} catch (RuntimeException e) {
+				p.bulkhead.release();
+				p.onCancel();
+				throw e;
+			}
+			try {
+				String content = answer.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+				p.onSuccess();
+				record(sample, p, "success");
+				return content;
+			} catch (TimeoutException e) {
+				answer.cancel(true);
+				p.onFailure();
+				record(sample, p, "timeout");
+				last = new RuntimeException(p.name + " did not answer within " + timeout.toMillis() + "ms", e);
+			} catch (ExecutionException e) {
+				p.onFailure();
+				record(sample, p, "error");
+				last = e.getCause() instanceof RuntimeException r ? r : new RuntimeException(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				answer.cancel(true);
+				p.onCancel();
+				throw new LlmUnavailableException("AI request was interrupted", e);
+			}
+			log.warn("LLM provider {} failed, trying the next one", p.name, last);
+		}
+		throw new LlmUnavailableException("AI service is unavailable, please try again later", last);
+	}
+
+	//failover only before the first token, after that the client already show part of the answer
+	//timeout apply to the first token and to every gap between tokens
+	public Flux<String> stream(String preferred, String prompt) {
+		return Flux.defer(() -> streamFrom(order(preferred), 0, prompt, null));
+	}
+
+	private Flux<String> streamFrom(List<Provider> order, int index, String prompt, Throwable last) {
+		if (index >= order.size()) {
+			return Flux.error(new LlmUnavailableException("AI service is unavailable, please try again later", last));
+		}
+		Provider p = order.get(index);
+		//no waiting for a permit on a reactive thread
+		if (!acquire(p, 0)) {
+			return streamFrom(order, index + 1, prompt, last);
+		}
+		Timer.Sample sample = Timer.start(meterRegistry);
+		AtomicBoolean started = new AtomicBoolean();
+		//free the slot before the signal go downstream, the next provider may already be answering
+		AtomicBoolean released = new AtomicBoolean();
+		Runnable release = () -> {
+			if (released.compareAndSet(false, true)) {
+				p.bulkhead.release();
+			}
+		};
+		return Flux.defer(() -> p.client.prompt(prompt).stream().content())
+				.timeout(timeout)
+				.doOnNext(token -> started.set(true))
+				.doOnTerminate(release)
+				.doOnComplete(() -> {
+					p.onSuccess();
+					record(sample, p, "success");
+				})
+				.doOnCancel(() -> {
+					p.onCancel();
+					release.run();
+				})
+				.onErrorResume(e -> {
+					p.onFailure();
+					record(sample, p, e instanceof TimeoutException ? "timeout" : "error");
+					if (started.get()) {
+						return Flux.error(e);
+					}
+					log.warn("LLM provider {} failed before the first token, trying the next one", p.name, e);
+					return streamFrom(order, index + 1, prompt, e);
+				});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		callExecutor.shutdownNow();
+	}
+
+	private List<Provider> order(String preferred) {
+		List<Provider> order = new ArrayList<>(providers.size());
+		Provider first = providers.get(preferred);
+		if (first != null) {
+			order.add(first);
+		}
+		providers.values().stream().filter(p -> p != first).forEach(order::add);
+		return order;
+	}
+
+	//bulkhead first, then breaker, so a half-open trial is only spent on a call that really start
+	private boolean acquire(Provider p, long waitMs) {
+		boolean permit;
+		try {
+			permit = p.bulkhead.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LlmUnavailableException("AI request was interrupted", e);
+		}
+		if (!permit) {
+			p.bulkheadFull.increment();
+			return false;
+		}
+		if (!p.allowRequest()) {
+			p.bulkhead.release();
+			p.breakerOpen.increment();
+			return false;
+		}
+		return true;
+	}
+
+	private void record(Timer.Sample sample, Provider p, String outcome) {
+		sample.stop(Timer.builder("expensphie.ai.llm.calls")
+				.tag("provider", p.name)
+				.tag("outcome", outcome)
+				.register(meterRegistry));
+	}
+
+	private enum BreakerState {
+		CLOSED, HALF_OPEN, OPEN
+	}
+
+	private final class Provider {
+		private final String name;
+		private final ChatClient client;
+		private final Semaphore bulkhead;
+		private final Counter bulkheadFull;
+		private final Counter breakerOpen;
+		private BreakerState state = BreakerState.CLOSED;
+		private int consecutiveFailures;
+		private long openedAt;
+		private boolean trialInFlight;
+
+		private Provider(String name, ChatClient client, int maxConcurrent) {
+			this.name = name;
+			this.client = client;
+			this.bulkhead = new Semaphore(maxConcurrent);
+			this.bulkheadFull = Counter.builder("expensphie.ai.llm.rejected")
+					.tag("provider", name).tag("reason", "bulkhead").register(meterRegistry);
+			this.breakerOpen = Counter.builder("expensphie.ai.llm.rejected")
+					.tag("provider", name).tag("reason", "breaker").register(meterRegistry);
+			Gauge.builder("expensphie.ai.llm.bulkhead.available", bulkhead, Semaphore::availablePermits)
+					.tag("provider", name)
+					.description("free call slots for this provider on this node")
+					.register(meterRegistry);
+			//0 closed, 1 half open, 2 open
+			Gauge.builder("expensphie.ai.llm.breaker.state", this, p -> p.state().ordinal())
+					.tag("provider", name)
+					.register(meterRegistry);
+		}
+
+		private synchronized BreakerState state() {
+			return state;
+		}
+
+		//open -> half open after open-ms, then a single trial call decide
+		private synchronized boolean allowRequest() {
+			if (state == BreakerState.OPEN) {
+				if (System.currentTimeMillis() - openedAt < openMs) {
+					return false;
+				}
+				state = BreakerState.HALF_OPEN;
+			}
+			if (state == BreakerState.HALF_OPEN) {
+				if (trialInFlight) {
+					return false;
+				}
+				trialInFlight = true;
+			}
+			return true;
+		}
+
+		private synchronized void onSuccess() {
+			consecutiveFailures = 0;
+			trialInFlight = false;
+			state = BreakerState.CLOSED;
+		}
+
+		private synchronized void onFailure() {
+			consecutiveFailures++;
+			trialInFlight = false;
+			if (state == BreakerState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+				if (state != BreakerState.OPEN) {
+					log.warn("Circuit breaker for LLM provider {} opened", name);
+				}
+				state = BreakerState.OPEN;
+				openedAt = System.currentTimeMillis();
+			}
+		}
+
+		//call abandoned without a verdict, let the next trial through
+		private synchronized void onCancel() {
+			trialInFlight = false;
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.be9expensphie.expensphie_backend.dto.SettlementDTO.SimplifiedSettlementDTO;
+import com.be9expensphie.expensphie_backend.entity.MemberBalanceEntity;
+import com.be9expensphie.expensphie_backend.entity.SettlementEntity;
+import com.be9expensphie.expensphie_backend.enums.SettlementStatus;
+import com.be9expensphie.expensphie_backend.repository.AppMigrationRepository;
+import com.be9expensphie.expensphie_backend.repository.MemberBalanceRepository;
+import com.be9expensphie.expensphie_backend.repository.SettlementRepository;
+import com.be9expensphie.expensphie_backend.util.DebtSimplifier;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+//keep member_balance in sync with settlements
+//caller must already be inside the transaction that write the settlement
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberBalanceService {
+    //bump the suffix to rebuild the ledger once more, v2 fill the counts of rows written before they existed
+    static final String LEDGER_BACKFILL = "member_balance_backfill_v2";
+
+    private final MemberBalanceRepository memberBalanceRepository;
+    private final SettlementRepository settlementRepository;
+    private final AppMigrationRepository appMigrationRepository;
+
+    //new settlement
+    public void recordCreated(SettlementEntity settlement) {
+        recordCreatedAll(List.of(settlement));
+    }
+
+    //many new settlements at once, sum per ledger row first so each row is written once
+    public void recordCreatedAll(List<SettlementEntity> settlements) {
+        Map<String, MemberBalanceEntity> deltas = new HashMap<>();
+        for (SettlementEntity s : settlements) {
+            add(deltas, s, s.getCurrency(), s.getStatus(), s.getAmount(), BigDecimal.ONE);
+        }
+        memberBalanceRepository.addAll(deltas.values());
+    }
+
+    //status/amount/currency changed, pass the values before the change
+    public void recordChanged(SettlementEntity settlement, SettlementStatus oldStatus,
+                              BigDecimal oldAmount, String oldCurrency) {
+        //a toggle move the amount between 2 columns of the same row, one write
+        Map<String, MemberBalanceEntity> deltas = new HashMap<>();
+        add(deltas, settlement, oldCurrency, oldStatus, oldAmount, BigDecimal.ONE.negate());
+        add(deltas, settlement, settlement.getCurrency(), settlement.getStatus(), settlement.getAmount(), BigDecimal.ONE);
+        memberBalanceRepository.addAll(deltas.values());
+    }
+
+    //currency->amount member still owe, and currency->amount owed to member
+    public Map<String, Object> getBalanceForMember(Long memberId, Long householdId) {
+        return Map.of(
+                "owes", toCurrencyMap(memberBalanceRepository.sumOwedByMember(householdId, memberId)),
+                "owed", toCurrencyMap(memberBalanceRepository.sumOwedToMember(householdId, memberId)));
+    }
+
+    //net open debts of the household into minimal transfers, per currency
+    public List<SimplifiedSettlementDTO> simplifyHousehold(Long householdId) {
+        //currency->memberId->net cents, positive means member should receive
+        Map<String, Map<Long, Long>> netByCurrency = new TreeMap<>();
+        for (Object[] r : memberBalanceRepository.sumOutstandingByPair(householdId)) {
+            Long fromMemberId = (Long) r[0];
+            Long toMemberId = (Long) r[1];
+            long cents = toCents((BigDecimal) r[3]);
+            if (cents == 0) {
+                continue;
+            }
+            Map<Long, Long> net = netByCurrency.computeIfAbsent((String) r[2], k -> new HashMap<>());
+            net.merge(fromMemberId, -cents, Long::sum);
+            net.merge(toMemberId, cents, Long::sum);
+        }
+
+        List<SimplifiedSettlementDTO> result = new ArrayList<>();
+        netByCurrency.forEach((currency, net) -> {
+            long[] memberIds = new long[net.size()];
+            long[] amounts = new long[net.size()];
+            int i = 0;
+            for (Map.Entry<Long, Long> e : net.entrySet()) {
+                memberIds[i] = e.getKey();
+                amounts[i] = e.getValue();
+                i++;
+            }
+            for (DebtSimplifier.Transfer t : DebtSimplifier.simplify(amounts)) {
+                result.add(SimplifiedSettlementDTO.builder()
+                        .fromMemberId(memberIds[t.from()])
+                        .toMemberId(memberIds[t.to()])
+                        .amount(BigDecimal.valueOf(t.cents(), 2))
+                        .currency(currency)
+                        .build());
+            }
+        });
+        return result;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    //open settlements member owe in [fromMonth, toMonth): total, count and currency (null when mixed)
+    //a few ledger rows per month, no settlement is loaded
+    public Map<String, Object> getOutstandingForMember(Long memberId, Long householdId,
+                                                       LocalDate fromMonth, LocalDate toMonth) {
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        List<Object[]> byCurrency = memberBalanceRepository.sumOutstandingForMember(householdId, memberId, fromMonth, toMonth);
+        for (Object[] r : byCurrency) {
+            total = total.add(r[1] != null ? (BigDecimal) r[1] : BigDecimal.ZERO);
+            count += r[2] != null ? ((Number) r[2]).longValue() : 0;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalPendingAmount", total);
+        stats.put("pendingCount", count);
+        stats.put("currency", byCurrency.size() == 1 ? byCurrency.get(0)[0] : null);
+        return stats;
+    }
+
+    //rebuild the ledger from settlements, once per db no matter how many nodes start together
+    //the other nodes block on the marker key until this commit, then skip
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillOnce() {
+        if (!appMigrationRepository.claim(LEDGER_BACKFILL)) {
+            return;
+        }
+        //delete before reading the sums: a writer that already upserted hold its row until it commit so the sums see it,
+        //a later writer wait on our delete and add its delta on top of the rebuilt row
+        memberBalanceRepository.deleteAllInBatch();
+        Map<String, MemberBalanceEntity> rows = new HashMap<>();
+        List<Object[]> sums = settlementRepository.sumOutstandingByDay(
+                List.of(SettlementStatus.PENDING, SettlementStatus.AWAITING_APPROVAL));
+        for (Object[] r : sums) {
+            Long householdId = (Long) r[0];
+            Long fromMemberId = (Long) r[1];
+            Long toMemberId = (Long) r[2];
+            String currency = (String) r[3];
+            LocalDate month = monthOf((LocalDate) r[4]);
+            SettlementStatus status = (SettlementStatus) r[5];
+            BigDecimal amount = (BigDecimal) r[6];
+            long count = (Long) r[7];
+
+            MemberBalanceEntity row = rows.computeIfAbsent(
+                    householdId + ":" + fromMemberId + ":" + toMemberId + ":" + currency + ":" + month,
+                    k -> MemberBalanceEntity.builder()
+                            .householdId(householdId)
+                            .fromMemberId(fromMemberId)
+                            .toMemberId(toMemberId)
+                            .currency(currency)
+                            .balanceMonth(month)
+                            .pendingAmount(BigDecimal.ZERO)
+                            .awaitingApprovalAmount(BigDecimal.ZERO)
+                            .build());
+            if (status == SettlementStatus.PENDING) {
+                row.setPendingAmount(row.getPendingAmount().add(amount));
+                row.setPendingCount(row.getPendingCount() + count);
+            } else {
+                row.setAwaitingApprovalAmount(row.getAwaitingApprovalAmount().add(amount));
+                row.setAwaitingApprovalCount(row.getAwaitingApprovalCount() + count);
+            }
+        }
+        if (!rows.isEmpty()) {
+            memberBalanceRepository.saveAll(rows.values());
+            log.info("Backfilled {} member balance rows", rows.size());
+        }
+    }
+
+    static LocalDate monthOf(LocalDate date) {
+        return (date != null ? date : LocalDate.now()).withDayOfMonth(1);
+    }
+
+    //sum the change into the delta row of its ledger key, settlement only give household/members/month
+    private static void add(Map<String, MemberBalanceEntity> deltas, SettlementEntity settlement, String currency,
+                            SettlementStatus status, BigDecimal amount, BigDecimal sign) {
+        if (amount == null || status == null || status == SettlementStatus.COMPLETED) {
+            return;
+        }
+        Long householdId = settlement.getFromMember().getHousehold().getId();
+        Long fromMemberId = settlement.getFromMember().getId();
+        Long toMemberId = settlement.getToMember().getId();
+        LocalDate month = monthOf(settlement.getDate());
+        MemberBalanceEntity delta = deltas.computeIfAbsent(
+                householdId + ":" + fromMemberId + ":" + toMemberId + ":" + currency + ":" + month,
+                k -> MemberBalanceEntity.builder()
+                        .householdId(householdId)
+                        .fromMemberId(fromMemberId)
+                        .toMemberId(toMemberId)
+                        .currency(currency)
+                        .balanceMonth(month)
+                        .pendingAmount(BigDecimal.ZERO)
+                        .awaitingApprovalAmount(BigDecimal.ZERO)
+                        .build());
+        BigDecimal change = amount.multiply(sign);
+        if (status == SettlementStatus.PENDING) {
+            delta.setPendingAmount(delta.getPendingAmount().add(change));
+            delta.setPendingCount(delta.getPendingCount() + sign.signum());
+        } else {
+            delta.setAwaitingApprovalAmount(delta.getAwaitingApprovalAmount().add(change));
+            delta.setAwaitingApprovalCount(delta.getAwaitingApprovalCount() + sign.signum());
+        }
+    }
+
+    private static Map<String, BigDecimal> toCurrencyMap(List<Object[]> rows) {
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (Object[] r : rows) {
+            result.put((String) r[0], r[1] != null ? (BigDecimal) r[1] : BigDecimal.ZERO);
+        }
+        return result;
+    }
+}
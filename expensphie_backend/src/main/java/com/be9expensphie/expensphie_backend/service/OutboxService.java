@@ -0,0 +1,49 @@
+package com.be9expensphie.expensphie_backend.service;
+
+import org.springframework.stereotype.Service;
+
+import com.be9expensphie.expensphie_backend.entity.OutboxEventEntity;
+import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import com.be9expensphie.expensphie_backend.repository.HouseholdEventSequenceRepository;
+import com.be9expensphie.expensphie_backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+//queue kafka events in the db, join the caller transaction so a rollback also drop the event
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    private static final String WEBSOCKET_TOPIC = "websocket-events";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final HouseholdEventSequenceRepository householdEventSequenceRepository;
+    private final ObjectMapper mapper;
+
+    public void enqueue(String topic, String key, Object event) {
+        try {
+            outboxEventRepository.save(OutboxEventEntity.builder()
+                    .topic(topic)
+                    .messageKey(key)
+                    .payload(mapper.writeValueAsString(event))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize outbox event for " + topic, e);
+        }
+    }
+
+    //keyed by household so its events stay on one partition, in sequence order
+    //sequence is taken before the outbox insert, a second writer of the household wait on the row lock until commit
+    public void enqueueHouseholdEvent(Long householdId, String destination, String payload) {
+        long sequence = nextSequence(householdId);
+        enqueue(WEBSOCKET_TOPIC, String.valueOf(householdId),
+                new WebSocketEvent(destination, payload, householdId, sequence));
+    }
+
+    //the upsert lock the row until commit, so the value read back is ours
+    private long nextSequence(Long householdId) {
+        householdEventSequenceRepository.increment(householdId);
+        return householdEventSequenceRepository.findLastSequence(householdId);
+    }
+}
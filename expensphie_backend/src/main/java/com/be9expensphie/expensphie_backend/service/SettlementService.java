@@ -13,7 +13,6 @@ import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
@@ -23,62 +22,57 @@ import com.be9expensphie.expensphie_backend.enums.SettlementStatus;
 import com.be9expensphie.expensphie_backend.entity.UserEntity;
 import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
 import com.be9expensphie.expensphie_backend.dto.SettlementDTO.SettlementDTO;
+import com.be9expensphie.expensphie_backend.dto.SettlementDTO.SimplifiedSettlementDTO;
 import com.be9expensphie.expensphie_backend.entity.ExpenseSplitDetailsEntity;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
-import com.be9expensphie.expensphie_backend.repository.HouseholdRepository;
 import com.be9expensphie.expensphie_backend.repository.SettlementRepository;
+import com.be9expensphie.expensphie_backend.util.KeysetCursor;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class SettlementService {
+    private static final String SETTLEMENT_SORT = "DATE";
     private static final String CACHE_SETTLEMENT_STATS_CURRENT_MONTH = "settlement-stats-current-month";
     private static final String CACHE_SETTLEMENT_STATS_LAST_THREE_MONTHS = "settlement-stats-last-three-months";
+    public static final String PERIOD_CURRENT_MONTH = "current-month";
+    public static final String PERIOD_LAST_THREE_MONTHS = "last-three-months";
 
     private final SettlementRepository settlementRepository;
     private final UserService userService;
     private final HouseholdMemberRepository householdMemberRepository;
-    private final HouseholdRepository householdRepository;
     private final CacheManager cacheManager;
+    private final MemberBalanceService memberBalanceService;
 
     @SuppressWarnings("null")
-    public CursorDTO<SettlementDTO> getSettlementsForCurrentUser(Long memberId, Long householdId, int limit,Long cursor) {
+    public CursorDTO<SettlementDTO> getSettlementsForCurrentUser(Long memberId, Long householdId, int limit,String cursor) {
         try {
             List<SettlementEntity> settlements;
-            UserEntity user = userService.getCurrentUser();
-            HouseholdMember householdMember = householdMemberRepository
-                    .findByUserAndHousehold(user, householdRepository.findById(householdId)
-                            .orElseThrow(() -> new NoSuchElementException("Household not found")))
+            HouseholdMember householdMember = userService.getCurrentMember(householdId)
                     .orElseThrow(() -> new NoSuchElementException("Household member not found"));
 
             if (!householdMember.getId().equals(memberId)) {
                 throw new IllegalArgumentException("Unauthorized access to settlements");
             }
 
-            Pageable pageable= PageRequest.of(0,limit+1, Sort.by("id").descending());
-            if(cursor==null){
-                settlements=settlementRepository.findNextSettlement(Long.MAX_VALUE,householdMember,ExpenseStatus.APPROVED,pageable);
-            }else{
-                settlements=settlementRepository.findNextSettlement(cursor,householdMember,ExpenseStatus.APPROVED,pageable);
-            }
-
-            boolean hasMore=settlements.size()>limit;
-            if(hasMore){
-                settlements = new java.util.ArrayList<>(settlements.subList(0,limit));
-            }
-
-            Long nextCursor=settlements.isEmpty()?null: settlements.getLast().getId();
+            //order is in the query, keyset on (date desc, id desc)
+            Pageable pageable= PageRequest.of(0,limit+1);
+            KeysetCursor from=cursor==null?null:KeysetCursor.decode(cursor,SETTLEMENT_SORT);
+            LocalDate date=from==null?LocalDate.of(9999,12,31):LocalDate.parse(from.key());
+            long id=from==null?Long.MAX_VALUE:from.id();
+            settlements=settlementRepository.findNextSettlement(householdMember,ExpenseStatus.APPROVED,date,id,pageable);
 
+            CursorDTO<SettlementEntity> page=KeysetCursor.page(settlements,limit,SETTLEMENT_SORT,SettlementEntity::getDate,SettlementEntity::getId);
             return CursorDTO.<SettlementDTO>builder()
-                    .hasMore(hasMore)
-                    .nextCursor(nextCursor)
+                    .hasMore(page.isHasMore())
+                    .nextCursor(page.getNextCursor())
                     .data(
-                            settlements.stream().map(this::toDTO).collect(Collectors.toList())
+                            page.getData().stream().map(this::toDTO).collect(Collectors.toList())
                     )
                     .build();
 
@@ -91,6 +85,7 @@ public class SettlementService {
 
     // Only done by corresponding fromMember
     @SuppressWarnings("null")
+    @Transactional
     public SettlementDTO toggleSettlementStatus(Long settlementId, Long memberId) {
         try {
             UserEntity user = userService.getCurrentUser();
@@ -106,6 +101,7 @@ public class SettlementService {
                 throw new IllegalArgumentException("Unmatch member for toggling settlement status");
             }
 
+            SettlementStatus oldStatus = settlement.getStatus();
             switch (settlement.getStatus()) {
                 case PENDING:
                     settlement.setStatus(SettlementStatus.AWAITING_APPROVAL);
@@ -120,6 +116,7 @@ public class SettlementService {
             }
 
             SettlementEntity newSettlement = settlementRepository.save(settlement);
+            memberBalanceService.recordChanged(newSettlement, oldStatus, settlement.getAmount(), settlement.getCurrency());
             evictSettlementStatsCachesForMember(memberId, householdMember.getHousehold().getId());
             return toDTO(newSettlement);
         } catch (NoSuchElementException e) {
@@ -132,10 +129,7 @@ public class SettlementService {
     @SuppressWarnings("null")
     public List<SettlementDTO> getAwaitingApprovalForReceiver(Long memberId, Long householdId) {
         try {
-            UserEntity user = userService.getCurrentUser();
-            HouseholdMember householdMember = householdMemberRepository
-                    .findByUserAndHousehold(user, householdRepository.findById(householdId)
-                            .orElseThrow(() -> new NoSuchElementException("Household not found")))
+            HouseholdMember householdMember = userService.getCurrentMember(householdId)
                     .orElseThrow(() -> new NoSuchElementException("Household member not found"));
 
             if (!householdMember.getId().equals(memberId)) {
@@ -154,6 +148,7 @@ public class SettlementService {
     }
 
     @SuppressWarnings("null")
+    @Transactional
     public SettlementDTO approveSettlement(Long settlementId, Long memberId) {
         try {
             UserEntity user = userService.getCurrentUser();
@@ -175,6 +170,8 @@ public class SettlementService {
 
             settlement.setStatus(SettlementStatus.COMPLETED);
             SettlementEntity updated = settlementRepository.save(settlement);
+            memberBalanceService.recordChanged(updated, SettlementStatus.AWAITING_APPROVAL,
+                    settlement.getAmount(), settlement.getCurrency());
             evictSettlementStatsCachesForMember(
                     settlement.getFromMember().getId(),
                     settlement.getFromMember().getHousehold().getId());
@@ -187,6 +184,7 @@ public class SettlementService {
     }
 
     @SuppressWarnings("null")
+    @Transactional
     public SettlementDTO rejectSettlement(Long settlementId, Long memberId) {
         try {
             UserEntity user = userService.getCurrentUser();
@@ -208,6 +206,8 @@ public class SettlementService {
 
             settlement.setStatus(SettlementStatus.PENDING);
             SettlementEntity updated = settlementRepository.save(settlement);
+            memberBalanceService.recordChanged(updated, SettlementStatus.AWAITING_APPROVAL,
+                    settlement.getAmount(), settlement.getCurrency());
             evictSettlementStatsCachesForMember(
                     settlement.getFromMember().getId(),
                     settlement.getFromMember().getHousehold().getId());
@@ -226,10 +226,7 @@ public class SettlementService {
     )
     public Map<String, Object> getCurrentMonthSettlementStatisticsForMember(Long memberId, Long householdId) {
         try {
-            UserEntity user = userService.getCurrentUser();
-            HouseholdMember householdMember = householdMemberRepository
-                    .findByUserAndHousehold(user, householdRepository.findById(householdId)
-                            .orElseThrow(() -> new NoSuchElementException("Household not found")))
+            HouseholdMember householdMember = userService.getCurrentMember(householdId)
                     .orElseThrow(() -> new NoSuchElementException("Household member not found"));
             if (!householdMember.getId().equals(memberId)) {
                 throw new IllegalArgumentException("Unauthorized access to settlement statistics");
@@ -237,16 +234,9 @@ public class SettlementService {
             if (!householdId.equals(householdMember.getHousehold().getId())) {
                 throw new IllegalArgumentException("Household member does not belong to the specified household");
             }
-            LocalDate start = LocalDate.now().withDayOfMonth(1);
-            LocalDate end = start.plusMonths(1);
-            List<SettlementEntity> currentMonthPendingSettlements = settlementRepository
-                    .findCurrentMonthPendingSettlementsForMember(householdMember, start, end);
-            BigDecimal totalPendingAmount = settlementRepository
-                    .findCurrentMonthTotalPendingAmountForMember(householdMember, start, end);
-            return Map.of(
-                    "pendingSettlements",
-                    currentMonthPendingSettlements.stream().map(this::toDTO).collect(Collectors.toList()),
-                    "totalPendingAmount", totalPendingAmount != null ? totalPendingAmount : BigDecimal.ZERO);
+            //total and count read from member_balance, the list is paged by getPendingSettlementsForMember
+            LocalDate[] window = pendingWindow(PERIOD_CURRENT_MONTH);
+            return memberBalanceService.getOutstandingForMember(memberId, householdId, window[0], window[1]);
         } catch (NoSuchElementException e) {
             throw new NoSuchElementException("Failed to get settlement statistics: " + e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -261,10 +251,7 @@ public class SettlementService {
     )
     public Map<String, Object> getLastThreeMonthsSettlementStatisticsForMember(Long memberId, Long householdId) {
         try {
-            UserEntity user = userService.getCurrentUser();
-            HouseholdMember householdMember = householdMemberRepository
-                    .findByUserAndHousehold(user, householdRepository.findById(householdId)
-                            .orElseThrow(() -> new NoSuchElementException("Household not found")))
+            HouseholdMember householdMember = userService.getCurrentMember(householdId)
                     .orElseThrow(() -> new NoSuchElementException("Household member not found"));
             if (!householdMember.getId().equals(memberId)) {
                 throw new IllegalArgumentException("Unauthorized access to settlement statistics");
@@ -272,15 +259,8 @@ public class SettlementService {
             if (!householdId.equals(householdMember.getHousehold().getId())) {
                 throw new IllegalArgumentException("Household member does not belong to the specified household");
             }
-            LocalDate threeMonthsAgo = LocalDate.now().minusMonths(3);
-            List<SettlementEntity> lastThreeMonthsPendingSettlements = settlementRepository
-                    .findLastThreeMonthsPendingSettlementsForMember(householdMember, threeMonthsAgo);
-            BigDecimal totalPendingAmount = settlementRepository
-                    .findLastThreeMonthsTotalPendingAmountForMember(householdMember);
-            return Map.of(
-                    "pendingSettlements",
-                    lastThreeMonthsPendingSettlements.stream().map(this::toDTO).collect(Collectors.toList()),
-                    "totalPendingAmount", totalPendingAmount != null ? totalPendingAmount : BigDecimal.ZERO);
+            LocalDate[] window = pendingWindow(PERIOD_LAST_THREE_MONTHS);
+            return memberBalanceService.getOutstandingForMember(memberId, householdId, window[0], window[1]);
         } catch (NoSuchElementException e) {
             throw new NoSuchElementException("Failed to get settlement statistics: " + e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -288,6 +268,76 @@ public class SettlementService {
         }
     }
 
+    //open settlements behind the stats, one page at a time
+    @SuppressWarnings("null")
+    public CursorDTO<SettlementDTO> getPendingSettlementsForMember(Long memberId, Long householdId, String period,
+                                                                   int limit, String cursor) {
+        try {
+            HouseholdMember householdMember = userService.getCurrentMember(householdId)
+                    .orElseThrow(() -> new NoSuchElementException("Household member not found"));
+            if (!householdMember.getId().equals(memberId)) {
+                throw new IllegalArgumentException("Unauthorized access to pending settlements");
+            }
+            LocalDate[] window = pendingWindow(period);
+            KeysetCursor from = cursor == null ? null : KeysetCursor.decode(cursor, SETTLEMENT_SORT);
+            LocalDate date = from == null ? LocalDate.of(9999, 12, 31) : LocalDate.parse(from.key());
+            long id = from == null ? Long.MAX_VALUE : from.id();
+            List<SettlementEntity> settlements = settlementRepository.findNextPendingSettlement(
+                    householdMember, window[0], window[1], date, id, PageRequest.of(0, limit + 1));
+
+            CursorDTO<SettlementEntity> page = KeysetCursor.page(settlements, limit, SETTLEMENT_SORT,
+                    SettlementEntity::getDate, SettlementEntity::getId);
+            return CursorDTO.<SettlementDTO>builder()
+                    .hasMore(page.isHasMore())
+                    .nextCursor(page.getNextCursor())
+                    .data(page.getData().stream().map(this::toDTO).collect(Collectors.toList()))
+                    .build();
+        } catch (NoSuchElementException e) {
+            throw new NoSuchElementException("Failed to get pending settlements: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Failed to get pending settlements: " + e.getMessage());
+        }
+    }
+
+    //[start, end) of a stats period, whole months because the ledger is per month
+    private static LocalDate[] pendingWindow(String period) {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        return switch (period) {
+            case PERIOD_CURRENT_MONTH -> new LocalDate[] { thisMonth, thisMonth.plusMonths(1) };
+            case PERIOD_LAST_THREE_MONTHS -> new LocalDate[] { thisMonth.minusMonths(3), thisMonth.plusMonths(1) };
+            default -> throw new IllegalArgumentException("Unknown period " + period);
+        };
+    }
+
+    @SuppressWarnings("null")
+    public Map<String, Object> getBalanceForMember(Long memberId, Long householdId) {
+        try {
+            HouseholdMember householdMember = userService.getCurrentMember(householdId)
+                    .orElseThrow(() -> new NoSuchElementException("Household member not found"));
+            if (!householdMember.getId().equals(memberId)) {
+                throw new IllegalArgumentException("Unauthorized access to balance");
+            }
+            return memberBalanceService.getBalanceForMember(memberId, householdId);
+        } catch (NoSuchElementException e) {
+            throw new NoSuchElementException("Failed to get balance: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Failed to get balance: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("null")
+    public List<SimplifiedSettlementDTO> getSimplifiedSettlements(Long householdId) {
+        try {
+            userService.getCurrentMember(householdId)
+                    .orElseThrow(() -> new NoSuchElementException("Household member not found"));
+            return memberBalanceService.simplifyHousehold(householdId);
+        } catch (NoSuchElementException e) {
+            throw new NoSuchElementException("Failed to simplify settlements: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Failed to simplify settlements: " + e.getMessage());
+        }
+    }
+
     public SettlementDTO toDTO(SettlementEntity settlementEntity) {
         String fromMemberName = null;
         String toMemberName = null;
@@ -354,6 +404,7 @@ public class SettlementService {
                 : settlementRepository.findExistingSplitIds(splits);
 
         Set<Long> affectedMemberIds = new HashSet<>();
+        List<SettlementEntity> newSettlements = new java.util.ArrayList<>();
         for (ExpenseSplitDetailsEntity splitDetails : splits) {
             if (splitDetails.getMember().getId().equals(receiver.getId())) {
                 continue;
@@ -362,19 +413,12 @@ public class SettlementService {
                 continue;
             }
 
-            SettlementEntity settlement = SettlementEntity.builder()
-                    .fromMember(splitDetails.getMember())
-                    .toMember(receiver)
-                    .expenseSplitDetails(splitDetails)
-                    .amount(splitDetails.getAmount())
-                    .date(expense.getDate())
-                    .currency(expense.getCurrency())
-                    .status(SettlementStatus.PENDING)
-                    .build();
-
-            settlementRepository.save(settlement);
+            newSettlements.add(newPendingSettlement(splitDetails, expense));
             affectedMemberIds.add(splitDetails.getMember().getId());
         }
+        //one batched insert instead of a round-trip per settlement, and one batched upsert for the ledger
+        settlementRepository.saveAll(newSettlements);
+        memberBalanceService.recordCreatedAll(newSettlements);
 
         if (!affectedMemberIds.isEmpty()) {
             Long householdId = expense.getHousehold().getId();
@@ -385,6 +429,40 @@ public class SettlementService {
         }
     }
 
+    //bulk path for expenses that were just inserted, so no existing settlement to check
+    //return affected member ids, caller evict the stats cache once at the end
+    public Set<Long> createSettlementsForNewExpenses(List<ExpenseEntity> expenses) {
+        Set<Long> affectedMemberIds = new HashSet<>();
+        List<SettlementEntity> newSettlements = new java.util.ArrayList<>();
+        for (ExpenseEntity expense : expenses) {
+            if (expense.getStatus() != ExpenseStatus.APPROVED) {
+                continue;
+            }
+            for (ExpenseSplitDetailsEntity splitDetails : expense.getSplitDetails()) {
+                if (splitDetails.getMember().getId().equals(expense.getCreated_by().getId())) {
+                    continue;
+                }
+                newSettlements.add(newPendingSettlement(splitDetails, expense));
+                affectedMemberIds.add(splitDetails.getMember().getId());
+            }
+        }
+        settlementRepository.saveAll(newSettlements);
+        memberBalanceService.recordCreatedAll(newSettlements);
+        return affectedMemberIds;
+    }
+
+    private SettlementEntity newPendingSettlement(ExpenseSplitDetailsEntity splitDetails, ExpenseEntity expense) {
+        return SettlementEntity.builder()
+                .fromMember(splitDetails.getMember())
+                .toMember(expense.getCreated_by())
+                .expenseSplitDetails(splitDetails)
+                .amount(splitDetails.getAmount())
+                .date(expense.getDate())
+                .currency(expense.getCurrency())
+                .status(SettlementStatus.PENDING)
+                .build();
+    }
+
     //helper to reduce duplication evict
     void evictSettlementStatsCachesForMember(Long memberId, Long householdId) {
         String key = memberId + ":" + householdId;
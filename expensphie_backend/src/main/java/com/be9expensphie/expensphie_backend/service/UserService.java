@@ -2,6 +2,7 @@ package com.be9expensphie.expensphie_backend.service;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -18,18 +19,24 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.be9expensphie.expensphie_backend.Exception.PasswordHashingBusyException;
 import com.be9expensphie.expensphie_backend.dto.AuthDTO;
 import com.be9expensphie.expensphie_backend.dto.UserDTO;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
 import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
 import com.be9expensphie.expensphie_backend.repository.UserRepository;
+import com.be9expensphie.expensphie_backend.security.ResolvedPrincipal;
 import com.be9expensphie.expensphie_backend.util.JwtUtil;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final HouseholdMemberRepository householdMemberRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
@@ -38,6 +45,8 @@ public class UserService {
     @Value("${app.base-url}")
     private String baseUrl;
 
+    //user row and activation email commit together
+    @Transactional
     public UserDTO registerUser(UserDTO userDTO) {
         UserEntity newUser = toEntity(userDTO);
         newUser.setActivationToken(UUID.randomUUID().toString());
@@ -98,10 +107,29 @@ public class UserService {
 
     public UserEntity getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        //jwt filter already loaded the user, no need to query again
+        if (authentication.getPrincipal() instanceof ResolvedPrincipal principal) {
+            return principal.getUser();
+        }
         return userRepository.findByEmail(authentication.getName())
                             .orElseThrow(() -> new UsernameNotFoundException("Account not found with email: " + authentication.getName()));
     }
 
+    //membership of current user in household, cached on principal for the rest of the request
+    public Optional<HouseholdMember> getCurrentMember(Long householdId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication.getPrincipal() instanceof ResolvedPrincipal principal)) {
+            return householdMemberRepository.findByUserAndHouseholdId(getCurrentUser(), householdId);
+        }
+        HouseholdMember cached = principal.getMembership(householdId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<HouseholdMember> member = householdMemberRepository.findByUserAndHouseholdId(principal.getUser(), householdId);
+        member.ifPresent(m -> principal.cacheMembership(householdId, m));
+        return member;
+    }
+
     public UserDTO getPublicUser(String email) {
         UserEntity currentUser = null;
         if (email == null) {
@@ -131,6 +159,9 @@ public class UserService {
                 "token", token,
                 "user", getPublicUser(authDTO.getEmail())
             );
+        } catch (PasswordHashingBusyException e) {
+            //not a wrong password, the client should retry
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Invalid email or password");
         }
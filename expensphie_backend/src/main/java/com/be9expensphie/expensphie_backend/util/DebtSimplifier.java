@@ -0,0 +1,60 @@
+package com.be9expensphie.expensphie_backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//net out household debts into as few transfers as possible
+//greedy: always match the biggest creditor with the biggest debtor
+public final class DebtSimplifier {
+
+    //from/to are indexes into the net array passed to simplify
+    public record Transfer(int from, int to, long cents) {
+    }
+
+    private DebtSimplifier() {
+    }
+
+    //net[i] > 0: member i should receive, net[i] < 0: member i should pay
+    //net must sum to 0
+    public static List<Transfer> simplify(long[] net) {
+        long[] remaining = net.clone();
+        long total = 0;
+        for (long v : remaining) {
+            total += v;
+        }
+        if (total != 0) {
+            throw new IllegalArgumentException("Net balances do not sum to zero");
+        }
+
+        //max-heaps over indexes, ordered by amount still to receive/pay
+        PriorityQueue<Integer> creditors = new PriorityQueue<>((a, b) -> Long.compare(remaining[b], remaining[a]));
+        PriorityQueue<Integer> debtors = new PriorityQueue<>((a, b) -> Long.compare(remaining[a], remaining[b]));
+        for (int i = 0; i < remaining.length; i++) {
+            if (remaining[i] > 0) {
+                creditors.add(i);
+            } else if (remaining[i] < 0) {
+                debtors.add(i);
+            }
+        }
+
+        List<Transfer> transfers = new ArrayList<>();
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            int creditor = creditors.poll();
+            int debtor = debtors.poll();
+            long amount = Math.min(remaining[creditor], -remaining[debtor]);
+            transfers.add(new Transfer(debtor, creditor, amount));
+
+            //update before re-adding so heap order stay correct
+            remaining[creditor] -= amount;
+            remaining[debtor] += amount;
+            if (remaining[creditor] > 0) {
+                creditors.add(creditor);
+            }
+            if (remaining[debtor] < 0) {
+                debtors.add(debtor);
+            }
+        }
+        return transfers;
+    }
+}
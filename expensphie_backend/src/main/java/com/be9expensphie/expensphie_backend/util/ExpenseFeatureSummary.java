@@ -0,0 +1,174 @@
+package com.be9expensphie.expensphie_backend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+
+//compress a month of expenses into a fixed size text for the suggestion prompt
+//size depend on categories/currencies/weeks (all small enums), not on the number of expenses
+public final class ExpenseFeatureSummary {
+    private static final int WEEKS = 5;
+    private static final int TOP_MERCHANTS = 5;
+    private static final int OUTLIERS = 3;
+    private static final int MERCHANT_LENGTH = 40;
+    //an expense this many standard deviations above its currency mean is reported
+    private static final double OUTLIER_SIGMA = 2.0;
+    //below this the standard deviation mean nothing
+    private static final int OUTLIER_MIN_COUNT = 5;
+
+    private ExpenseFeatureSummary() {
+    }
+
+    public static String summarize(List<CreateExpenseResponseDTO> expenses, LocalDate today) {
+        //one pass, everything else work on the aggregates
+        Map<String, Stats> byCurrency = new TreeMap<>();
+        Map<String, Map<String, Stats>> byCategory = new TreeMap<>();
+        Map<String, BigDecimal[]> byWeek = new TreeMap<>();
+        Map<Merchant, Stats> byMerchant = new HashMap<>();
+        for (CreateExpenseResponseDTO e : expenses) {
+            String currency = String.valueOf(e.getCurrency());
+            BigDecimal amount = e.getAmount() == null ? BigDecimal.ZERO : e.getAmount();
+            byCurrency.computeIfAbsent(currency, k -> new Stats()).add(amount);
+            byCategory.computeIfAbsent(currency, k -> new TreeMap<>())
+                    .computeIfAbsent(String.valueOf(e.getCategory()), k -> new Stats()).add(amount);
+            BigDecimal[] weeks = byWeek.computeIfAbsent(currency, k -> zeros());
+            int week = weekIndex(e.getDate(), today);
+            weeks[week] = weeks[week].add(amount);
+            String merchant = merchant(e.getDescription());
+            if (merchant != null) {
+                byMerchant.computeIfAbsent(new Merchant(merchant, currency), k -> new Stats()).add(amount);
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Period: last month up to %s, %d expenses%n", today, expenses.size()));
+
+        out.append("\nTotals per currency and category (share of currency total):\n");
+        byCurrency.forEach((currency, total) -> {
+            out.append(String.format("- %s: %s over %d expenses (avg %s)%n",
+                    currency, money(total.sum), total.count, money(total.mean())));
+            byCategory.get(currency).entrySet().stream()
+                    .sorted(Map.Entry.<String, Stats>comparingByValue(Comparator.comparing(s -> s.sum)).reversed())
+                    .forEach(c -> out.append(String.format("  - %s: %s (%d%%, %d expenses)%n",
+                            c.getKey(), money(c.getValue().sum), percent(c.getValue().sum, total.sum), c.getValue().count)));
+        });
+
+        out.append("\nWeekly totals, oldest to newest (change vs previous week):\n");
+        byWeek.forEach((currency, weeks) -> {
+            List<String> cells = new ArrayList<>();
+            for (int w = WEEKS - 1; w >= 0; w--) {
+                String cell = money(weeks[w]);
+                if (w < WEEKS - 1 && weeks[w + 1].signum() != 0) {
+                    cell += String.format(" (%+d%%)", percent(weeks[w].subtract(weeks[w + 1]), weeks[w + 1]));
+                }
+                cells.add(cell);
+            }
+            out.append("- ").append(currency).append(": ").append(String.join(", ", cells)).append('\n');
+        });
+
+        if (!byMerchant.isEmpty()) {
+            out.append("\nTop merchants by spend:\n");
+            byMerchant.entrySet().stream()
+                    .sorted(Map.Entry.<Merchant, Stats>comparingByValue(Comparator.comparing(s -> s.sum)).reversed())
+                    .limit(TOP_MERCHANTS)
+                    .forEach(m -> out.append(String.format("- %s: %s %s over %d expenses%n",
+                            m.getKey().name(), money(m.getValue().sum), m.getKey().currency(), m.getValue().count)));
+        }
+
+        List<CreateExpenseResponseDTO> outliers = outliers(expenses, byCurrency);
+        if (!outliers.isEmpty()) {
+            out.append("\nUnusually large expenses:\n");
+            for (CreateExpenseResponseDTO e : outliers) {
+                out.append(String.format("- %s %s %s on %s%s%n", e.getCategory(), money(e.getAmount()), e.getCurrency(),
+                        e.getDate(), merchant(e.getDescription()) == null ? "" : " (" + merchant(e.getDescription()) + ")"));
+            }
+        }
+        return out.toString();
+    }
+
+    //second pass needs the mean and deviation of the first
+    private static List<CreateExpenseResponseDTO> outliers(List<CreateExpenseResponseDTO> expenses, Map<String, Stats> byCurrency) {
+        Map<String, Double> limits = new HashMap<>();
+        byCurrency.forEach((currency, s) -> {
+            if (s.count >= OUTLIER_MIN_COUNT) {
+                limits.put(currency, s.mean().doubleValue() + OUTLIER_SIGMA * s.deviation());
+            }
+        });
+        return expenses.stream()
+                .filter(e -> e.getAmount() != null && limits.containsKey(String.valueOf(e.getCurrency()))
+                        && e.getAmount().doubleValue() > limits.get(String.valueOf(e.getCurrency())))
+                .sorted(Comparator.comparing(CreateExpenseResponseDTO::getAmount).reversed())
+                .limit(OUTLIERS)
+                .toList();
+    }
+
+    //0 = last 7 days, older than the window fall in the oldest bucket
+    private static int weekIndex(LocalDate date, LocalDate today) {
+        if (date == null) {
+            return 0;
+        }
+        long days = today.toEpochDay() - date.toEpochDay();
+        return (int) Math.max(0, Math.min(WEEKS - 1, days / 7));
+    }
+
+    //description is free text, it is the closest thing to a merchant the expense has
+    private static String merchant(String description) {
+        if (description == null || description.isBlank()) {
+            return null;
+        }
+        String merchant = description.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return merchant.length() > MERCHANT_LENGTH ? merchant.substring(0, MERCHANT_LENGTH) : merchant;
+    }
+
+    private static BigDecimal[] zeros() {
+        BigDecimal[] weeks = new BigDecimal[WEEKS];
+        Arrays.fill(weeks, BigDecimal.ZERO);
+        return weeks;
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static int percent(BigDecimal part, BigDecimal whole) {
+        if (whole.signum() == 0) {
+            return 0;
+        }
+        return part.multiply(BigDecimal.valueOf(100)).divide(whole, 0, RoundingMode.HALF_UP).intValue();
+    }
+
+    private record Merchant(String name, String currency) {
+    }
+
+    private static final class Stats {
+        private BigDecimal sum = BigDecimal.ZERO;
+        private long count;
+        //running sums for the deviation, double is enough for a threshold
+        private double squares;
+
+        private void add(BigDecimal amount) {
+            sum = sum.add(amount);
+            count++;
+            squares += amount.doubleValue() * amount.doubleValue();
+        }
+
+        private BigDecimal mean() {
+            return count == 0 ? BigDecimal.ZERO : sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+        }
+
+        private double deviation() {
+            double mean = sum.doubleValue() / count;
+            return Math.sqrt(Math.max(0, squares / count - mean * mean));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.be9expensphie.expensphie_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import com.be9expensphie.expensphie_backend.dto.CursorDTO;
+
+//keyset pagination over (sort column desc, id desc)
+//token is opaque to client: base64url of "sort|key|id" taken from the last row of the page
+public record KeysetCursor(String sort, String key, long id) {
+
+    public static String encode(String sort, Object key, long id) {
+        String raw = sort + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //reject token made for another sort, its key would compare against the wrong column
+    public static KeysetCursor decode(String token, String expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String sort = raw.substring(0, first);
+            if (!sort.equals(expectedSort)) {
+                throw new IllegalArgumentException("Cursor does not match sort " + expectedSort);
+            }
+            return new KeysetCursor(sort, raw.substring(first + 1, last), Long.parseLong(raw.substring(last + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    //rows were fetched with limit+1, extra row only tell there is a next page
+    public static <T> CursorDTO<T> page(List<T> rows, int limit, String sort,
+                                        Function<T, Object> keyOf, Function<T, Long> idOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> data = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = null;
+        if (hasMore && !data.isEmpty()) {
+            T last = data.getLast();
+            nextCursor = encode(sort, keyOf.apply(last), idOf.apply(last));
+        }
+        return CursorDTO.<T>builder()
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .data(data)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.be9expensphie.expensphie_backend.util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+//count sql statement hibernate prepare on current thread
+//registered through spring.jpa.properties.hibernate.session_factory.statement_inspector
+public class QueryCountInspector implements StatementInspector {
+    private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNTER.get()[0]++;
+        //return sql unchanged
+        return sql;
+    }
+
+    public static void reset() {
+        COUNTER.get()[0] = 0;
+    }
+
+    public static long count() {
+        return COUNTER.get()[0];
+    }
+}
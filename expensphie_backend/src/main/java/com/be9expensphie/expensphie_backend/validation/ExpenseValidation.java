@@ -23,10 +23,27 @@ public class ExpenseValidation {
 	
 	//validate each attribute
 	public void validateExpense(CreateExpenseRequestDTO request,Long householdId) {
+		//get member id using hashset
+		List<MemberDTO> member=householdMemberService.getMembers(householdId);
+		Set<Long>memberId=new HashSet<>();
+		//check valid member 
+		for(MemberDTO m:member) {
+			memberId.add(m.getMemberId());
+		}
+		validateExpense(request,memberId);
+	}
+	
+	//same check with member ids loaded by caller, bulk import load them once
+	public void validateExpense(CreateExpenseRequestDTO request,Set<Long> memberId) {
 		if (request.getAmount()==null||request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
 	        throw new RuntimeException("Amount must be greater than 0");
 	    }
 		
+		//not null in expense table, catch it here instead of failing the insert
+		if(request.getDate()==null) {
+			throw new RuntimeException("Date must be filled");
+		}
+		
 		if(request.getCategory()==null||request.getCategory().isBlank()) {
 			throw new RuntimeException("Category must be filled");
 		}
@@ -44,14 +61,6 @@ public class ExpenseValidation {
 			throw new RuntimeException("Must have at least 1 splits");
 		}
 		
-		//get member id using hashset
-		List<MemberDTO> member=householdMemberService.getMembers(householdId);
-		Set<Long>memberId=new HashSet<>();
-		//check valid member 
-		for(MemberDTO m:member) {
-			memberId.add(m.getMemberId());
-		}
-		
 		//validate for each spits
 		BigDecimal total=BigDecimal.ZERO;
 		for(SplitRequestDTO split:request.getSplits()) {
@@ -0,0 +1,147 @@
+package com.be9expensphie.expensphie_backend.cacheTests;
+
+import com.be9expensphie.expensphie_backend.cache.CacheInvalidationListener;
+import com.be9expensphie.expensphie_backend.cache.CacheInvalidationPublisher;
+import com.be9expensphie.expensphie_backend.cache.TwoTierCache;
+import com.be9expensphie.expensphie_backend.cache.TwoTierCacheManager;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class TwoTierCacheTests {
+    private static final String CACHE = "ai_suggestion";
+
+    //stand-in for redis: one shared L2 and a pub/sub channel delivered to every node, sender included
+    private final ConcurrentMapCacheManager redis = new ConcurrentMapCacheManager();
+    private final List<CacheInvalidationListener> subscribers = new ArrayList<>();
+    private SimpleMeterRegistry metersA;
+    private TwoTierCacheManager nodeA;
+    private TwoTierCacheManager nodeB;
+
+    @BeforeEach
+    public void setUp(){
+        metersA = new SimpleMeterRegistry();
+        nodeA = node(metersA);
+        nodeB = node(new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void get_AfterPut_ShouldBeServedFromLocalTier(){
+        //arrange: redis lose the entry, own invalidation message must not drop L1
+        nodeA.getCache(CACHE).put(1L, "tips");
+        redis.getCache(CACHE).clear();
+
+        //act
+        Cache.ValueWrapper value = nodeA.getCache(CACHE).get(1L);
+
+        //assert
+        assertEquals("tips", value.get());
+        assertEquals(1.0, count(metersA, "l1", "hit"));
+        assertEquals(0.0, count(metersA, "l2", "hit"));
+    }
+
+    @Test
+    public void get_LocalMiss_ShouldFallBackToRedisAndKeepValueLocally(){
+        //arrange
+        redis.getCache(CACHE).put(1L, "tips");
+
+        //act
+        Object first = nodeA.getCache(CACHE).get(1L).get();
+        redis.getCache(CACHE).clear();
+        Object second = nodeA.getCache(CACHE).get("1").get();
+
+        //assert: L1 key 1L and "1" are the same entry, like in redis
+        assertEquals("tips", first);
+        assertEquals("tips", second);
+        assertEquals(1.0, count(metersA, "l2", "hit"));
+        assertEquals(1.0, count(metersA, "l1", "hit"));
+        assertNull(nodeA.getCache(CACHE).get(2L));
+        assertEquals(1.0, count(metersA, "l2", "miss"));
+    }
+
+    @Test
+    public void put_OnOneNode_ShouldInvalidateOtherNodesLocalTier(){
+        //arrange: node B hold the old value in L1
+        nodeA.getCache(CACHE).put(1L, "old");
+        assertEquals("old", nodeB.getCache(CACHE).get(1L).get());
+
+        //act: @CachePut refresh on node A
+        nodeA.getCache(CACHE).put(1L, "new");
+
+        //assert
+        assertEquals("new", nodeB.getCache(CACHE).get(1L).get());
+    }
+
+    @Test
+    public void evictAndClear_OnOneNode_ShouldInvalidateOtherNodesLocalTier(){
+        //arrange
+        nodeA.getCache(CACHE).put(1L, "one");
+        nodeA.getCache(CACHE).put(2L, "two");
+        nodeB.getCache(CACHE).get(1L);
+        nodeB.getCache(CACHE).get(2L);
+
+        //act + assert
+        nodeA.getCache(CACHE).evict(1L);
+        assertNull(nodeB.getCache(CACHE).get(1L));
+        assertEquals("two", nodeB.getCache(CACHE).get(2L).get());
+
+        nodeA.getCache(CACHE).clear();
+        assertNull(nodeB.getCache(CACHE).get(2L));
+    }
+
+    @Test
+    public void get_AfterLocalTtl_ShouldReadRedisAgain(){
+        //arrange: invalidation message lost, only the L1 ttl bound staleness
+        AtomicLong nanos = new AtomicLong();
+        Cache remote = redis.getCache(CACHE);
+        TwoTierCache cache = new TwoTierCache(CACHE, remote,
+                Caffeine.newBuilder().expireAfterWrite(Duration.ofSeconds(30)).ticker(nanos::get).build(),
+                mock(CacheInvalidationPublisher.class), new SimpleMeterRegistry());
+        cache.put(1L, "old");
+        remote.put(1L, "new");
+
+        //act + assert
+        assertEquals("old", cache.get(1L).get());
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertEquals("new", cache.get(1L).get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private TwoTierCacheManager node(SimpleMeterRegistry meterRegistry){
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        doAnswer(invocation -> {
+            byte[] body = ((String) invocation.getArgument(1)).getBytes(StandardCharsets.UTF_8);
+            DefaultMessage message = new DefaultMessage(CacheInvalidationPublisher.CHANNEL.getBytes(StandardCharsets.UTF_8), body);
+            subscribers.forEach(s -> s.onMessage(message, null));
+            return (long) subscribers.size();
+        }).when(redisTemplate).convertAndSend(eq(CacheInvalidationPublisher.CHANNEL), any());
+        CacheInvalidationPublisher publisher = new CacheInvalidationPublisher(redisTemplate);
+        TwoTierCacheManager manager = new TwoTierCacheManager(redis, publisher, meterRegistry, 100, Duration.ofSeconds(30));
+        subscribers.add(new CacheInvalidationListener(manager, publisher.getNodeId()));
+        return manager;
+    }
+
+    private double count(SimpleMeterRegistry meterRegistry, String tier, String result){
+        return meterRegistry.get("expensphie.cache.requests")
+                .tag("cache", CACHE).tag("tier", tier).tag("result", result)
+                .counter().count();
+    }
+}
@@ -0,0 +1,184 @@
+package com.be9expensphie.expensphie_backend.configTests;
+
+import com.be9expensphie.expensphie_backend.config.AIConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//2k concurrent llm calls through the aiExecutor, virtual threads against the platform pool
+//real openai client on a local stub model server that answer after a fixed latency, like LlmGatewayTests
+public class AiExecutorBenchmarkTests {
+    private static final int REQUESTS = 2_000;
+    private static final long LLM_LATENCY_MS = 200;
+    //application.properties defaults
+    private static final int POOL_SIZE = 20;
+    private static final int MAX_CONCURRENCY = 200;
+
+    private static HttpServer server;
+    private static ChatClient chatClient;
+
+    @BeforeAll
+    static void startModelServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), REQUESTS);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/llm/v1/chat/completions", exchange -> {
+            sleep(LLM_LATENCY_MS);
+            byte[] body = """
+                    {"id":"stub","object":"chat.completion","created":1,"model":"stub",
+                     "choices":[{"index":0,"message":{"role":"assistant","content":"spend less"},"finish_reason":"stop"}],
+                     "usage":{"prompt_tokens":1,"completion_tokens":1,"total_tokens":2}}
+                    """.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        OpenAiApi api = OpenAiApi.builder()
+                .baseUrl("http://localhost:" + server.getAddress().getPort() + "/llm")
+                .apiKey("test-key")
+                .restClientBuilder(RestClient.builder().requestFactory(new JdkClientHttpRequestFactory()))
+                .build();
+        chatClient = ChatClient.create(OpenAiChatModel.builder()
+                .openAiApi(api)
+                .retryTemplate(RetryTemplate.builder().maxAttempts(1).build())
+                .build());
+        //first call load the json and http classes, keep it out of the numbers
+        chatClient.prompt("warm up").call().content();
+    }
+
+    @AfterAll
+    static void stopModelServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void aiExecutor_2kConcurrentCalls_VirtualShouldNotQueueBehindThePool() throws Exception {
+        // act: limit raised to 2k so both modes admit every call and only the way they run differ
+        Run platform = run(false);
+        Run virtual = run(true);
+
+        // assert: the pool run 20 at a time, virtual threads run them all while they wait on the network
+        assertEquals(0, platform.failed());
+        assertEquals(0, virtual.failed());
+        assertThat(virtual.wallMs()).isLessThan(platform.wallMs());
+        assertThat(virtual.p99Ms()).isLessThan(platform.p99Ms());
+        System.out.println("ai executor benchmark, " + REQUESTS + " calls, " + LLM_LATENCY_MS + " ms llm latency");
+        System.out.println(platform);
+        System.out.println(virtual);
+    }
+
+    @Test
+    public void aiExecutor_Saturated_ShouldRejectAtOnceInBothModes() throws Exception {
+        for (boolean virtualThreads : new boolean[] {true, false}) {
+            // arrange: production limits, every admitted task hold its slot until released
+            AsyncTaskExecutor executor = new AIConfig().aiExecutor(virtualThreads, MAX_CONCURRENCY, POOL_SIZE);
+            CountDownLatch release = new CountDownLatch(1);
+            int accepted = 0;
+            int rejected = 0;
+
+            // act
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                try {
+                    executor.execute(() -> await(release));
+                    accepted++;
+                } catch (TaskRejectedException e) {
+                    rejected++;
+                }
+            }
+            long submitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            release.countDown();
+            ((DisposableBean) executor).destroy();
+
+            // assert: virtual admit max-concurrency running, the pool its threads plus a queue of max-concurrency
+            int capacity = virtualThreads ? MAX_CONCURRENCY : POOL_SIZE + MAX_CONCURRENCY;
+            assertEquals(capacity, accepted, virtualThreads ? "virtual" : "platform");
+            assertEquals(REQUESTS - capacity, rejected);
+            //nobody waited for a slot, the submitting request thread is never blocked
+            assertThat(submitMs).isLessThan(2_000);
+        }
+    }
+
+    private Run run(boolean virtualThreads) throws Exception {
+        AsyncTaskExecutor executor = new AIConfig().aiExecutor(virtualThreads, REQUESTS, POOL_SIZE);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[REQUESTS];
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int n = i;
+            long submitted = System.nanoTime();
+            calls[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    chatClient.prompt("advice").call().content();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+                latencies[n] = System.nanoTime() - submitted;
+            }, executor);
+        }
+        CompletableFuture.allOf(calls).get(120, TimeUnit.SECONDS);
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        ((DisposableBean) executor).destroy();
+        Arrays.sort(latencies);
+        return new Run(virtualThreads ? "virtual" : "platform", wallMs, REQUESTS * 1000.0 / wallMs,
+                latencies[REQUESTS / 2] / 1e6, latencies[(int) Math.ceil(REQUESTS * 0.99) - 1] / 1e6,
+                threads.getPeakThreadCount(), failed.get());
+    }
+
+    //peak platform threads of the jvm, virtual threads are not counted
+    private record Run(String mode, long wallMs, double callsPerSecond, double p50Ms, double p99Ms,
+            int peakPlatformThreads, int failed) {
+        @Override
+        public String toString() {
+            return String.format("%-8s %6d ms  %7.0f calls/s  p50 %7.1f ms  p99 %7.1f ms  peak threads %d",
+                    mode, wallMs, callsPerSecond, p50Ms, p99Ms, peakPlatformThreads);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.be9expensphie.expensphie_backend.configTests;
+
+import com.be9expensphie.expensphie_backend.config.KafkaProducerConfig;
+import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.ProducerState;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//100k websocket events through the production producer settings into an embedded kafka
+//batching and compression are read from the producer metrics, idempotence from the broker producer state
+@EmbeddedKafka(partitions = KafkaProducerBenchmarkTests.PARTITIONS, topics = KafkaProducerBenchmarkTests.TOPIC)
+public class KafkaProducerBenchmarkTests {
+    static final String TOPIC = "websocket-events-benchmark";
+    static final int PARTITIONS = 3;
+    private static final int EVENTS = 100_000;
+    private static final int HOUSEHOLDS = 100;
+
+    @Test
+    public void producer_100kEvents_ShouldBatchCompressAndWriteEachOnce(EmbeddedKafkaBroker broker) throws Exception {
+        // arrange: values from application.properties, only the broker address differ
+        KafkaProducerConfig config = new KafkaProducerConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", broker.getBrokersAsString());
+        ReflectionTestUtils.setField(config, "lingerMs", 10);
+        ReflectionTestUtils.setField(config, "batchSize", 65536);
+        ReflectionTestUtils.setField(config, "compressionType", "lz4");
+        ReflectionTestUtils.setField(config, "maxBlockMs", 5000L);
+        ReflectionTestUtils.setField(config, "requestTimeoutMs", 15000);
+        ReflectionTestUtils.setField(config, "deliveryTimeoutMs", 30000);
+        ProducerFactory<String, Object> factory = config.producerFactory(new SimpleMeterRegistry());
+        KafkaTemplate<String, WebSocketEvent> template = config.wsKafkaTemplate(factory);
+        long[] latencies = new long[EVENTS];
+        CountDownLatch acked = new CountDownLatch(EVENTS);
+        AtomicInteger failed = new AtomicInteger();
+
+        // act: send like the outbox relay, household id as key, ack latency per record
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            long householdId = i % HOUSEHOLDS;
+            WebSocketEvent event = new WebSocketEvent("/topic/households/" + householdId + "/expense",
+                    payload(i, householdId), householdId, (long) (i / HOUSEHOLDS + 1));
+            int n = i;
+            long sentAt = System.nanoTime();
+            template.send(TOPIC, String.valueOf(householdId), event).whenComplete((result, e) -> {
+                latencies[n] = System.nanoTime() - sentAt;
+                if (e != null) {
+                    failed.incrementAndGet();
+                }
+                acked.countDown();
+            });
+        }
+        assertTrue(acked.await(120, TimeUnit.SECONDS), "not every send was acked");
+        long elapsedNs = System.nanoTime() - start;
+        Map<MetricName, ? extends Metric> metrics = template.execute(Producer::metrics);
+        ((DefaultKafkaProducerFactory<String, Object>) factory).destroy();
+
+        // assert: every record acked, many records per produce request, payload smaller on the wire
+        assertEquals(0, failed.get());
+        assertEquals(EVENTS, metric(metrics, "record-send-total"), 0.0);
+        assertThat(metric(metrics, "records-per-request-avg")).isGreaterThan(10);
+        assertThat(metric(metrics, "compression-rate-avg")).isLessThan(0.7);
+        //idempotent producer: one producer id per partition, its sequence cover exactly what the log hold
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            List<TopicPartition> partitions = IntStream.range(0, PARTITIONS)
+                    .mapToObj(p -> new TopicPartition(TOPIC, p))
+                    .toList();
+            Map<TopicPartition, ListOffsetsResultInfo> ends = admin.listOffsets(partitions.stream()
+                    .collect(Collectors.toMap(Function.identity(), p -> OffsetSpec.latest()))).all().get();
+            long written = 0;
+            for (var entry : admin.describeProducers(partitions).all().get().entrySet()) {
+                List<ProducerState> producers = entry.getValue().activeProducers();
+                long end = ends.get(entry.getKey()).offset();
+                assertEquals(1, producers.size());
+                assertThat(producers.get(0).producerId()).isNotNegative();
+                assertEquals(end - 1, producers.get(0).lastSequence());
+                written += end;
+            }
+            assertEquals(EVENTS, written);
+        }
+        Arrays.sort(latencies);
+        System.out.printf("kafka producer benchmark: %d events in %d ms (%.0f events/s), send p50 %.1f ms, p99 %.1f ms, "
+                        + "%.0f records/request, compression rate %.2f%n",
+                EVENTS, TimeUnit.NANOSECONDS.toMillis(elapsedNs), EVENTS * 1e9 / elapsedNs,
+                latencies[EVENTS / 2] / 1e6, latencies[(int) Math.ceil(EVENTS * 0.99) - 1] / 1e6,
+                metric(metrics, "records-per-request-avg"), metric(metrics, "compression-rate-avg"));
+    }
+
+    //shape of a real EXPENSE_CREATED payload, the repeated field names are what lz4 win on
+    private static String payload(int i, long householdId) {
+        return "{\"type\":\"EXPENSE_CREATED\",\"householdId\":" + householdId + ",\"expense\":{\"id\":" + i
+                + ",\"amount\":" + (i % 500) + ".25,\"currency\":\"USD\",\"category\":\"Food\","
+                + "\"description\":\"Lunch with the team\",\"method\":\"EQUAL\",\"status\":\"PENDING\","
+                + "\"date\":\"2025-03-03\",\"splits\":[{\"memberId\":1,\"amount\":10.00},{\"memberId\":2,\"amount\":10.00}]}}";
+    }
+
+    private static double metric(Map<MetricName, ? extends Metric> metrics, String name) {
+        return metrics.entrySet().stream()
+                .filter(e -> e.getKey().group().equals("producer-metrics") && e.getKey().name().equals(name))
+                .map(e -> ((Number) e.getValue().metricValue()).doubleValue())
+                .findFirst()
+                .orElseThrow();
+    }
+}
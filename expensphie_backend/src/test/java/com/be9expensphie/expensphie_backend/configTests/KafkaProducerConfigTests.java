@@ -0,0 +1,45 @@
+package com.be9expensphie.expensphie_backend.configTests;
+
+import com.be9expensphie.expensphie_backend.config.KafkaProducerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KafkaProducerConfigTests {
+
+    @Test
+    public void producerFactory_ShouldBeSharedAndTunedForThroughput() {
+        // arrange
+        KafkaProducerConfig config = new KafkaProducerConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", "localhost:9092");
+        ReflectionTestUtils.setField(config, "lingerMs", 10);
+        ReflectionTestUtils.setField(config, "batchSize", 65536);
+        ReflectionTestUtils.setField(config, "compressionType", "zstd");
+        ReflectionTestUtils.setField(config, "maxBlockMs", 5000L);
+        ReflectionTestUtils.setField(config, "requestTimeoutMs", 15000);
+        ReflectionTestUtils.setField(config, "deliveryTimeoutMs", 30000);
+
+        // act
+        ProducerFactory<String, Object> factory = config.producerFactory(new SimpleMeterRegistry());
+        Map<String, Object> props = factory.getConfigurationProperties();
+
+        // assert: email and websocket templates use the same factory, so the same producer
+        assertThat(config.kafkaTemplate(factory).getProducerFactory())
+                .isSameAs(config.wsKafkaTemplate(factory).getProducerFactory());
+        assertThat(props)
+                .containsEntry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true)
+                .containsEntry(ProducerConfig.ACKS_CONFIG, "all")
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 10)
+                .containsEntry(ProducerConfig.BATCH_SIZE_CONFIG, 65536)
+                .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd")
+                .containsEntry(ProducerConfig.MAX_BLOCK_MS_CONFIG, 5000L)
+                .containsEntry(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 15000);
+        assertThat(factory.getListeners()).hasSize(1);
+    }
+}
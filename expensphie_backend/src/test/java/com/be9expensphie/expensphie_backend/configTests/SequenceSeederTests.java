@@ -0,0 +1,73 @@
+package com.be9expensphie.expensphie_backend.configTests;
+
+import com.be9expensphie.expensphie_backend.config.SequenceSeeder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//h2 use native sequences, so a mysql style sequence table is made by hand
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(SequenceSeeder.class)
+public class SequenceSeederTests {
+    @Autowired
+    private SequenceSeeder sequenceSeeder;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        //ddl commit on h2, the tables outlive the test transaction
+        jdbcTemplate.execute("create table if not exists legacy_rows (id bigint primary key)");
+        jdbcTemplate.execute("create table if not exists legacy_seq (next_val bigint)");
+        jdbcTemplate.update("delete from legacy_rows");
+        jdbcTemplate.update("delete from legacy_seq");
+        jdbcTemplate.update("insert into legacy_seq values (1)");
+        //ids given by auto increment before the switch
+        for (long id = 1; id <= 120; id++) {
+            jdbcTemplate.update("insert into legacy_rows values (?)", id);
+        }
+    }
+
+    @Test
+    public void seed_ShouldRaiseNextValAboveMaxId() {
+        // act
+        long seeded = sequenceSeeder.seed("legacy_seq", "legacy_rows");
+
+        // assert: next fetch give ids 121..170
+        assertThat(seeded).isEqualTo(170);
+        assertThat(nextVal()).isEqualTo(170);
+    }
+
+    @Test
+    public void seed_ShouldNeverLowerASequenceAlreadyInUse() {
+        // arrange: another node already handed out ids past the seed
+        jdbcTemplate.update("update legacy_seq set next_val = 500");
+
+        // act
+        long seeded = sequenceSeeder.seed("legacy_seq", "legacy_rows");
+
+        // assert
+        assertThat(seeded).isEqualTo(-1);
+        assertThat(nextVal()).isEqualTo(500);
+    }
+
+    @Test
+    public void seed_NativeSequence_ShouldBeSkipped() {
+        // act: expense_seq is a real sequence on h2
+        long seeded = sequenceSeeder.seed("expense_seq", "expense");
+
+        // assert
+        assertThat(seeded).isEqualTo(-1);
+    }
+
+    private long nextVal() {
+        return jdbcTemplate.queryForObject("select next_val from legacy_seq", Long.class);
+    }
+}
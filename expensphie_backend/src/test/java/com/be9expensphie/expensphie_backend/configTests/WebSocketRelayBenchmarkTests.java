@@ -0,0 +1,172 @@
+package com.be9expensphie.expensphie_backend.configTests;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//relay mode against an embedded artemis, the broker WebSocketConfig is documented and tested with
+//the relay handler is the one enableStompBrokerRelay build, websocket sessions are replaced by their inbound frames
+//50k subscriptions on the household destinations the app really use: 500 sessions x 100 households
+//run by the benchmark surefire execution, artemis keep a queue per subscription and need the bigger heap
+public class WebSocketRelayBenchmarkTests {
+    private static final int SESSIONS = 500;
+    private static final int HOUSEHOLDS = 100;
+    private static final int SUBSCRIPTIONS = SESSIONS * HOUSEHOLDS;
+
+    private static EmbeddedActiveMQ artemis;
+    private static int port;
+
+    @BeforeAll
+    static void startBroker(@TempDir Path dir) throws Exception {
+        //artemis audit and per queue warnings are one line per subscription
+        LoggingSystem.get(WebSocketRelayBenchmarkTests.class.getClassLoader())
+                .setLogLevel("org.apache.activemq", LogLevel.ERROR);
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        //same acceptor as production: stomp only, /topic/ destinations are multicast addresses
+        //client sessions send no heartbeat, the long ttl keep early sessions open while the others subscribe
+        Configuration config = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .setJournalDirectory(dir.resolve("journal").toString())
+                .setBindingsDirectory(dir.resolve("bindings").toString())
+                .setLargeMessagesDirectory(dir.resolve("large").toString())
+                .setPagingDirectory(dir.resolve("paging").toString())
+                .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port + "?protocols=STOMP;multicastPrefix=/topic/;connectionTtl=600000");
+        artemis = new EmbeddedActiveMQ().setConfiguration(config);
+        artemis.start();
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        artemis.stop();
+    }
+
+    @Test
+    public void relay_50kSubscriptions_ShouldDeliverEveryHouseholdEvent() throws Exception {
+        // arrange
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        CountDownLatch connected = new CountDownLatch(SESSIONS);
+        CountDownLatch receipts = new CountDownLatch(SESSIONS);
+        CountDownLatch delivered = new CountDownLatch(SUBSCRIPTIONS);
+        AtomicInteger errors = new AtomicInteger();
+        clientOutbound.subscribe(message -> {
+            StompCommand command = StompHeaderAccessor.wrap(message).getCommand();
+            if (command == StompCommand.CONNECTED) {
+                connected.countDown();
+            } else if (command == StompCommand.RECEIPT) {
+                receipts.countDown();
+            } else if (command == StompCommand.MESSAGE) {
+                delivered.countDown();
+            } else if (command == StompCommand.ERROR) {
+                errors.incrementAndGet();
+            }
+        });
+        StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(
+                clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        relay.setRelayHost("127.0.0.1");
+        relay.setRelayPort(port);
+        relay.start();
+        waitFor(relay::isBrokerAvailable);
+
+        try {
+            // act: like a browser, subscribe once CONNECTED came back, the relay drop frames sent before
+            long subscribeStart = System.nanoTime();
+            for (int s = 0; s < SESSIONS; s++) {
+                clientInbound.send(frame(StompCommand.CONNECT, "s" + s, null, null));
+            }
+            assertTrue(connected.await(300, TimeUnit.SECONDS), "sessions not connected");
+            //the receipt on each session's last SUBSCRIBE mean the broker hold all of them
+            for (int s = 0; s < SESSIONS; s++) {
+                for (int h = 0; h < HOUSEHOLDS; h++) {
+                    clientInbound.send(frame(StompCommand.SUBSCRIBE, "s" + s, "sub-" + h,
+                            destination(h), h == HOUSEHOLDS - 1));
+                }
+            }
+            assertTrue(receipts.await(300, TimeUnit.SECONDS), "subscriptions not confirmed");
+            long subscribeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - subscribeStart);
+
+            //one event per household, sent like the kafka consumer does through the broker channel
+            long fanOutStart = System.nanoTime();
+            SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+            template.setMessageConverter(new StringMessageConverter());
+            for (int h = 0; h < HOUSEHOLDS; h++) {
+                template.convertAndSend(destination(h), "{\"type\":\"EXPENSE_CREATED\",\"householdId\":" + h + "}");
+            }
+            assertTrue(delivered.await(300, TimeUnit.SECONDS),
+                    "delivered " + (SUBSCRIPTIONS - delivered.getCount()) + " of " + SUBSCRIPTIONS);
+            long fanOutMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fanOutStart);
+
+            // assert: one tcp connection per client session plus the shared system one
+            assertEquals(SESSIONS + 1, relay.getConnectionCount());
+            assertEquals(0, errors.get());
+            System.out.printf("relay benchmark: %d subscriptions in %d ms, %d deliveries in %d ms (%.0f msg/s)%n",
+                    SUBSCRIPTIONS, subscribeMs, SUBSCRIPTIONS, fanOutMs, SUBSCRIPTIONS * 1000.0 / Math.max(fanOutMs, 1));
+        } finally {
+            for (int s = 0; s < SESSIONS; s++) {
+                clientInbound.send(frame(StompCommand.DISCONNECT, "s" + s, null, null));
+            }
+            relay.stop();
+        }
+    }
+
+    private static String destination(int householdId) {
+        return "/topic/households/" + householdId + "/expense";
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        return frame(command, sessionId, subscriptionId, destination, false);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId,
+            String destination, boolean receipt) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        if (command == StompCommand.CONNECT) {
+            accessor.setAcceptVersion("1.2");
+            accessor.setHeartbeat(0, 0);
+        }
+        if (receipt) {
+            accessor.setReceipt(sessionId);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "relay did not connect to the broker");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -2,10 +2,18 @@ package com.be9expensphie.expensphie_backend.controllerTests;
 
 import com.be9expensphie.expensphie_backend.controller.ExpenseController;
 import com.be9expensphie.expensphie_backend.dto.CursorDTO;
+import com.be9expensphie.expensphie_backend.enums.ExpenseSort;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.AiExpenseJobDTO;
 import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
 import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ImportReportDTO;
+import com.be9expensphie.expensphie_backend.enums.AiJobStatus;
+import com.be9expensphie.expensphie_backend.enums.ExpenseFileFormat;
 import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
 import com.be9expensphie.expensphie_backend.security.JwtRequestFilter;
+import com.be9expensphie.expensphie_backend.service.AiExpenseService;
+import com.be9expensphie.expensphie_backend.service.ExpenseExportService;
+import com.be9expensphie.expensphie_backend.service.ExpenseImportService;
 import com.be9expensphie.expensphie_backend.service.ExpenseService;
 import com.be9expensphie.expensphie_backend.util.JwtUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -21,19 +29,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers= ExpenseController.class)
@@ -49,6 +62,15 @@ public class ExpenseControllerTest {
     @MockitoBean
     private ExpenseService expenseService;
 
+    @MockitoBean
+    private ExpenseImportService expenseImportService;
+
+    @MockitoBean
+    private ExpenseExportService expenseExportService;
+
+    @MockitoBean
+    private AiExpenseService aiExpenseService;
+
     @MockitoBean
     private JwtUtil jwtUtil;
 
@@ -129,24 +151,24 @@ public class ExpenseControllerTest {
         List<CreateExpenseResponseDTO> expense= Arrays.asList(validResponse);
         CursorDTO<CreateExpenseResponseDTO> cursorResponse=CursorDTO.<CreateExpenseResponseDTO>builder()
                 .data(expense)
-                .nextCursor(200L)
+                .nextCursor("next-token")
                 .hasMore(true)
                 .build();
         //eq-> must equal inside(), any-> only need to match type
-        when(expenseService.getExpense(eq(householdId),eq(ExpenseStatus.PENDING),eq(10),eq(50L)))
+        when(expenseService.getExpense(eq(householdId),eq(ExpenseStatus.PENDING),eq(10),eq("prev-token"),eq(ExpenseSort.DATE)))
                 .thenReturn(cursorResponse);
         //act
         mockMvc.perform(get("/households/{householdId}/expenses", householdId)
                 .param("status","PENDING")
                 .param("limit","10")
-                .param("cursor","50"))
+                .param("cursor","prev-token"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data", hasSize(1)))
-                .andExpect(jsonPath("$.nextCursor").value(200))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
                 .andExpect(jsonPath("$.hasMore").value(true))
                 .andExpect(jsonPath("$.data[0].id").value(expenseId));
         //assert
-        verify(expenseService,times(1)).getExpense(householdId,ExpenseStatus.PENDING,10,50L);
+        verify(expenseService,times(1)).getExpense(householdId,ExpenseStatus.PENDING,10,"prev-token",ExpenseSort.DATE);
         //if run 1 times with the variable correct with in getExpense(...)
     }
 
@@ -377,13 +399,16 @@ public class ExpenseControllerTest {
                 .date(LocalDate.from(LocalDateTime.now()))
                 .build();
 
-        when(expenseService.createExpenseAI(eq(householdId), any(String.class)))
-                .thenReturn(aiResponse);
+        when(aiExpenseService.createExpense(eq(householdId), any(String.class)))
+                .thenReturn(CompletableFuture.completedFuture(aiResponse));
 
-        //act
-        mockMvc.perform(post("/households/{householdId}/expenses/ai", householdId)
+        //act: response is written on async dispatch
+        MvcResult started = mockMvc.perform(post("/households/{householdId}/expenses/ai", householdId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(paragraph))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(expenseId))
                 .andExpect(jsonPath("$.amount").value(50.00))
@@ -391,7 +416,25 @@ public class ExpenseControllerTest {
                 .andExpect(jsonPath("$.category").value("Food"));
 
         //assert
-        verify(expenseService, times(1)).createExpenseAI(eq(householdId), any(String.class));
+        verify(aiExpenseService, times(1)).createExpense(eq(householdId), any(String.class));
+    }
+
+    @Test
+    public void testSubmitExpenseAi_ShouldReturnJobAtOnce() throws Exception{
+        //arrange
+        when(aiExpenseService.submit(eq(householdId), any(String.class)))
+                .thenReturn(AiExpenseJobDTO.builder().jobId("job-1").status(AiJobStatus.PENDING).build());
+
+        //act
+        mockMvc.perform(post("/households/{householdId}/expenses/ai/jobs", householdId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("I spent 50 dollars on groceries"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        //assert
+        verify(aiExpenseService, times(1)).submit(eq(householdId), any(String.class));
     }
 
     @Test
@@ -406,6 +449,41 @@ public class ExpenseControllerTest {
                 .andExpect(status().isBadRequest());
 
         //assert - service should never be called
-        verify(expenseService, never()).createExpenseAI(any(), any());
+        verify(aiExpenseService, never()).createExpense(any(), any());
+    }
+
+    @Test
+    public void testImportExpenses_Csv() throws Exception{
+        //arrange
+        ImportReportDTO report = ImportReportDTO.builder().imported(1).failed(0).build();
+        when(expenseImportService.importExpenses(eq(householdId), any(), eq(ExpenseFileFormat.CSV))).thenReturn(report);
+
+        //act
+        mockMvc.perform(post("/households/{householdId}/expenses/import", householdId)
+                .contentType("text/csv")
+                .content("date,amount,currency,category,description,method,splits\n2025-01-01,20,USD,Food,Lunch,EQUAL,1:10;2:10\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        //assert
+        verify(expenseImportService, times(1)).importExpenses(eq(householdId), any(), eq(ExpenseFileFormat.CSV));
+    }
+
+    @Test
+    public void testExportExpenses_ShouldGetLongAsyncTimeout() throws Exception{
+        //arrange
+        when(expenseExportService.exportExpenses(householdId, ExpenseFileFormat.CSV))
+                .thenReturn(out -> out.write("id\n".getBytes()));
+
+        //act
+        MvcResult result = mockMvc.perform(get("/households/{householdId}/expenses/export", householdId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //assert: only the export get the long timeout, other async requests keep the default
+        assertEquals(Duration.ofMinutes(10).toMillis(),
+                result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
     }
 }
@@ -1,7 +1,11 @@
 package com.be9expensphie.expensphie_backend.repositoryTests;
 
 
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.dto.SplitDTO.SplitRequestDTO;
 import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
+import com.be9expensphie.expensphie_backend.entity.ExpenseSplitDetailsEntity;
 import com.be9expensphie.expensphie_backend.entity.Household;
 import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
 import com.be9expensphie.expensphie_backend.entity.UserEntity;
@@ -9,33 +13,134 @@ import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
 import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
 import com.be9expensphie.expensphie_backend.enums.Method;
 import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.be9expensphie.expensphie_backend.repository.SettlementRepository;
+import com.be9expensphie.expensphie_backend.security.HouseholdSecurity;
+import com.be9expensphie.expensphie_backend.service.ExpenseRollupService;
+import com.be9expensphie.expensphie_backend.service.ExpenseService;
+import com.be9expensphie.expensphie_backend.service.MemberBalanceService;
+import com.be9expensphie.expensphie_backend.service.OutboxService;
+import com.be9expensphie.expensphie_backend.service.SettlementService;
+import com.be9expensphie.expensphie_backend.service.UserService;
+import com.be9expensphie.expensphie_backend.util.QueryCountInspector;
+import com.be9expensphie.expensphie_backend.validation.ExpenseValidation;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
 
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 
 //check if query data is true or not
-@DataJpaTest
-@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+//h2 in mysql mode, the service path write the ledger with on duplicate key update
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:expense_repository_testdb;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ExpenseService.class, SettlementService.class, MemberBalanceService.class, ExpenseRollupService.class,
+        JacksonAutoConfiguration.class, ExpenseRepositoryTest.StatementCounting.class})
 public class ExpenseRepositoryTest {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private SettlementRepository settlementRepository;
+
+    @Autowired
+    private ExpenseService expenseService;
+
     @Autowired
     private TestEntityManager entityManager;//use to reate obj dtb for testing
 
+    @MockitoBean
+    private UserService userService;
+    @MockitoBean
+    private HouseholdSecurity householdSecurity;
+    @MockitoBean
+    private ExpenseValidation expenseValidation;
+    @MockitoBean
+    private OutboxService outboxService;
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    //count statements executed on the datasource, hibernate and jdbcTemplate alike
+    //QueryCountInspector only see hibernate, a jdbc batch count once like its single round-trip
+    @TestConfiguration
+    static class StatementCounting {
+        private static final AtomicLong EXECUTED = new AtomicLong();
+
+        static void reset() {
+            EXECUTED.set(0);
+        }
+
+        static long count() {
+            return EXECUTED.get();
+        }
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? counting(dataSource, DataSource.class) : bean;
+                }
+            };
+        }
+
+        private static Object counting(Object target, Class<?> type) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (method.getName().startsWith("execute")) {
+                    EXECUTED.incrementAndGet();
+                }
+                if (result instanceof Connection c) {
+                    return counting(c, Connection.class);
+                }
+                if (result instanceof CallableStatement s) {
+                    return counting(s, CallableStatement.class);
+                }
+                if (result instanceof PreparedStatement s) {
+                    return counting(s, PreparedStatement.class);
+                }
+                if (result instanceof Statement s && !(target instanceof Statement)) {
+                    return counting(s, Statement.class);
+                }
+                return result;
+            });
+        }
+    }
+
     @Test//should never return value
     public void findByIdAndHouseholdId_ShouldReturnExpenses(){
         //arrange: prep data, mock obj
@@ -55,7 +160,7 @@ public class ExpenseRepositoryTest {
     }
 
     @Test
-    public void findExpensesByHouseholdWithCursor_ShouldReturnCorrectOrder(){
+    public void findExpensePage_ShouldReturnNewestFirst(){
         //arrange
         UserEntity user = createUser("test");
         Household household = createHousehold("Test House 2", "CODE456", user);
@@ -68,10 +173,10 @@ public class ExpenseRepositoryTest {
             entityManager.merge(expense);//update current obj
         }
         entityManager.flush();
-        Pageable pageable = PageRequest.of(0, 11, Sort.by("id").descending());
+        Pageable pageable = PageRequest.of(0, 11);
 
         //act
-        List<ExpenseEntity> found = expenseRepository.findNextExpense(Long.MAX_VALUE, household, pageable);
+        List<CreateExpenseResponseDTO> found = expenseRepository.findExpensePage(household.getId(), Long.MAX_VALUE, pageable);
 
 
         //assert
@@ -81,7 +186,7 @@ public class ExpenseRepositoryTest {
     }
 
     @Test
-    public void findExpenseByStatus_ShouldFilterCorrectly(){
+    public void findExpensePageByStatus_ShouldFilterCorrectly(){
         //arrange
         UserEntity user = createUser("test");
         Household household = createHousehold("Test House 3", "CODE134", user);
@@ -101,10 +206,10 @@ public class ExpenseRepositoryTest {
         }
         entityManager.flush();
 
-        Pageable pageable=PageRequest.of(0,20,Sort.by("id").descending());
+        Pageable pageable=PageRequest.of(0,20);
 
         //act
-        List<ExpenseEntity> found=expenseRepository.findExpenseByStatus(household.getId(),ExpenseStatus.PENDING,Long.MAX_VALUE,pageable);
+        List<CreateExpenseResponseDTO> found=expenseRepository.findExpensePageByStatus(household.getId(),ExpenseStatus.PENDING,Long.MAX_VALUE,pageable);
 
         //assert
         assertThat(found).hasSize(2);
@@ -112,7 +217,7 @@ public class ExpenseRepositoryTest {
     }
 
     @Test
-    public void findExpenseByStatus_WithCursor_ShouldPaginate(){
+    public void findExpensePageByStatus_WithCursor_ShouldPaginate(){
         //arrange
         UserEntity user = createUser("test");
         Household household = createHousehold("Test House 4", "CODE1389", user);
@@ -125,13 +230,13 @@ public class ExpenseRepositoryTest {
         }
         entityManager.flush();
 
-        Pageable pageable1=PageRequest.of(0,10,Sort.by("id").descending());
+        Pageable pageable1=PageRequest.of(0,10);
 
         //act
-        List<ExpenseEntity> found1=expenseRepository.findExpenseByStatus(household.getId(),ExpenseStatus.PENDING,Long.MAX_VALUE,pageable1);
+        List<CreateExpenseResponseDTO> found1=expenseRepository.findExpensePageByStatus(household.getId(),ExpenseStatus.PENDING,Long.MAX_VALUE,pageable1);
         Long cursor=found1.getLast().getId();
 
-        List<ExpenseEntity> found2=expenseRepository.findExpenseByStatus(household.getId(),ExpenseStatus.PENDING,cursor,pageable1);
+        List<CreateExpenseResponseDTO> found2=expenseRepository.findExpensePageByStatus(household.getId(),ExpenseStatus.PENDING,cursor,pageable1);
 
         //assert
         assertThat(found1).hasSize(10);
@@ -179,6 +284,144 @@ public class ExpenseRepositoryTest {
         assertThat(found.get(0).getDescription()).isEqualTo("inRange");
     }
 
+    @Test
+    public void streamByHouseholdId_ShouldReturnEachExpenseOnceWithSplits(){
+        //arrange: 3 expenses with 2 splits each
+        UserEntity user = createUser("stream@example.com");
+        Household household = createHousehold("Stream House", "STREAM1", user);
+        HouseholdMember admin = createMember(user, household, HouseholdRole.ROLE_ADMIN);
+        HouseholdMember other = createMember(createUser("stream2@example.com"), household, HouseholdRole.ROLE_MEMBER);
+        for(int i=0; i<3; i++){
+            ExpenseEntity expense = createExpense(BigDecimal.valueOf(20), household, admin);
+            expense.getSplitDetails().add(ExpenseSplitDetailsEntity.builder()
+                    .expense(expense).member(admin).amount(BigDecimal.TEN).build());
+            expense.getSplitDetails().add(ExpenseSplitDetailsEntity.builder()
+                    .expense(expense).member(other).amount(BigDecimal.TEN).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        //act: clear after every row like the export does periodically
+        List<Long> ids = new ArrayList<>();
+        List<Integer> splitCounts = new ArrayList<>();
+        try (Stream<ExpenseEntity> rows = expenseRepository.streamByHouseholdId(household.getId())) {
+            rows.forEach(e -> {
+                ids.add(e.getId());
+                splitCounts.add(e.getSplitDetails().size());
+                entityManager.clear();
+            });
+        }
+
+        //assert
+        assertThat(ids).hasSize(3).doesNotHaveDuplicates().isSorted();
+        assertThat(splitCounts).containsOnly(2);
+    }
+
+    @Test
+    public void findExpensePage_ShouldUseOneQueryWithoutManagedEntities(){
+        //arrange
+        UserEntity user = createUser("page@example.com");
+        Household household = createHousehold("Page House", "PAGE1", user);
+        HouseholdMember member = createMember(user, household, HouseholdRole.ROLE_ADMIN);
+        List<Long> ids = new ArrayList<>();
+        for(int i=1; i<=15; i++){
+            ExpenseEntity expense = createExpense(BigDecimal.valueOf(i), household, member);
+            expense.getSplitDetails().add(ExpenseSplitDetailsEntity.builder()
+                    .expense(expense).member(member).amount(BigDecimal.valueOf(i)).build());
+            ids.add(expense.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        Pageable pageable = PageRequest.of(0, 11);
+
+        //act: projection
+        QueryCountInspector.reset();
+        List<CreateExpenseResponseDTO> page = expenseRepository.findExpensePage(household.getId(), Long.MAX_VALUE, pageable);
+        long newQueries = QueryCountInspector.count();
+        int newManaged = session.getStatistics().getEntityCount();
+
+        //assert: same page, single statement, nothing added to persistence context
+        assertThat(page).hasSize(11);
+        assertThat(page).extracting(CreateExpenseResponseDTO::getId)
+                .containsExactlyElementsOf(ids.reversed().subList(0, 11));
+        assertThat(page.get(0).getCreatedBy()).isEqualTo("Test User");
+        assertThat(newQueries).isEqualTo(1);
+        assertThat(newManaged).isZero();
+    }
+
+    @Test
+    public void findExpensePageByDate_ShouldWalkTiesWithoutGapsOrRepeats(){
+        //arrange: 3 days x 4 expenses, many rows share the same date
+        UserEntity user = createUser("keyset@example.com");
+        Household household = createHousehold("Keyset House", "KEY1", user);
+        HouseholdMember member = createMember(user, household, HouseholdRole.ROLE_ADMIN);
+        LocalDate today = LocalDate.now();
+        for(int d=0; d<3; d++){
+            for(int i=0; i<4; i++){
+                createExpense(BigDecimal.ONE, household, member).setDate(today.minusDays(d));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        //act: page of 5 using the last row of each page as next key
+        List<CreateExpenseResponseDTO> all = new ArrayList<>();
+        LocalDate date = LocalDate.of(9999, 12, 31);
+        long id = Long.MAX_VALUE;
+        List<CreateExpenseResponseDTO> page;
+        do {
+            page = expenseRepository.findExpensePageByDate(household.getId(), date, id, PageRequest.of(0, 5));
+            all.addAll(page);
+            if(!page.isEmpty()){
+                date = page.getLast().getDate();
+                id = page.getLast().getId();
+            }
+        } while(page.size() == 5);
+
+        //assert: every row once, date desc then id desc
+        assertThat(all).hasSize(12);
+        assertThat(all).extracting(CreateExpenseResponseDTO::getId).doesNotHaveDuplicates();
+        assertThat(all).isSortedAccordingTo(
+                Comparator.comparing(CreateExpenseResponseDTO::getDate)
+                        .thenComparing(CreateExpenseResponseDTO::getId).reversed());
+    }
+
+    @Test
+    public void createTwentyWaySplit_ShouldBatchInserts(){
+        //arrange: 20 members in one household, admin pay so the expense is approved right away
+        UserEntity owner = createUser("owner@example.com");
+        Household household = createHousehold("Batch House", "BATCH1", owner);
+        HouseholdMember payer = createMember(owner, household, HouseholdRole.ROLE_ADMIN);
+        List<SplitRequestDTO> splits = new ArrayList<>();
+        splits.add(new SplitRequestDTO(payer.getId(), BigDecimal.TEN));
+        for(int i=1; i<20; i++){
+            HouseholdMember m = createMember(createUser("member" + i + "@example.com"), household, HouseholdRole.ROLE_MEMBER);
+            splits.add(new SplitRequestDTO(m.getId(), BigDecimal.TEN));
+        }
+        entityManager.flush();
+        when(userService.getCurrentMember(household.getId())).thenReturn(Optional.of(payer));
+
+        //act: createExpense -> createSettlementsForExpense -> ledger, flushed like the commit would
+        StatementCounting.reset();
+        expenseService.createExpense(household.getId(), CreateExpenseRequestDTO.builder()
+                .amount(BigDecimal.valueOf(200))
+                .date(LocalDate.now())
+                .category("Food")
+                .description("Team dinner")
+                .method(Method.EQUAL)
+                .currency("USD")
+                .splits(splits)
+                .build());
+        entityManager.flush();
+        long statements = StatementCounting.count();
+
+        //assert: 1 expense + 20 splits + 19 settlements + 19 ledger rows used to be ~60 round-trips
+        //now lookups, sequence fetches, the rollup write, one batch per table and one ledger upsert batch
+        assertThat(statements).isLessThanOrEqualTo(14);
+        assertThat(settlementRepository.count()).isEqualTo(19);
+    }
+
     // Helper methods to create test data with all required fields
     private UserEntity createUser(String email) {
         UserEntity user = new UserEntity();
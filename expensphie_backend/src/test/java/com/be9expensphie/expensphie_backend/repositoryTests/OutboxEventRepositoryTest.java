@@ -0,0 +1,135 @@
+package com.be9expensphie.expensphie_backend.repositoryTests;
+
+import com.be9expensphie.expensphie_backend.entity.OutboxEventEntity;
+import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import com.be9expensphie.expensphie_backend.repository.HouseholdEventSequenceRepository;
+import com.be9expensphie.expensphie_backend.repository.OutboxEventRepository;
+import com.be9expensphie.expensphie_backend.service.OutboxService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//mysql mode for the sequence upsert (on duplicate key update)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:outbox_testdb;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class OutboxEventRepositoryTest {
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private HouseholdEventSequenceRepository householdEventSequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void enqueueHouseholdEvent_ShouldKeyByHouseholdAndNumberEachHouseholdFromOne() throws Exception {
+        //arrange
+        OutboxService outboxService = new OutboxService(outboxEventRepository, householdEventSequenceRepository, mapper);
+
+        //act: households interleaved
+        outboxService.enqueueHouseholdEvent(1L, "/topic/households/1/expense", "{}");
+        outboxService.enqueueHouseholdEvent(2L, "/topic/households/2/expense", "{}");
+        outboxService.enqueueHouseholdEvent(1L, "/topic/households/1/expense", "{}");
+        outboxService.enqueueHouseholdEvent(1L, "/topic/households/1/expense", "{}");
+
+        //assert: pending rows come back in insert order with their own household sequence
+        List<OutboxEventEntity> pending = outboxEventRepository.findClaimable(LocalDateTime.now(), PageRequest.of(0, 10));
+        List<String> keyAndSequence = new ArrayList<>();
+        for (OutboxEventEntity row : pending) {
+            WebSocketEvent event = mapper.readValue(row.getPayload(), WebSocketEvent.class);
+            keyAndSequence.add(row.getMessageKey() + "#" + event.getSequence());
+        }
+        assertThat(keyAndSequence).containsExactly("1#1", "2#1", "1#2", "1#3");
+    }
+
+    @Test
+    public void markFailedAndParked_ShouldKeepRowsOutOfTheNextClaim() {
+        //arrange: row 1 failed and back off, row 2 parked, row 3 free
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(outboxEventRepository.save(OutboxEventEntity.builder()
+                    .topic("websocket-events").messageKey("7").payload("{}").build()).getId());
+        }
+        outboxEventRepository.claim(ids, now);
+
+        //act
+        outboxEventRepository.markFailed(ids.get(0), now, now.plusSeconds(30));
+        outboxEventRepository.markParked(List.of(ids.get(1)), now, now);
+        outboxEventRepository.release(List.of(ids.get(2)), now);
+
+        //assert: the key is still held back by row 1, but the parked row no longer count as pending
+        assertThat(outboxEventRepository.findClaimable(now.plusSeconds(1), PageRequest.of(0, 10)))
+                .extracting(OutboxEventEntity::getId).containsExactly(ids.get(2));
+        assertThat(outboxEventRepository.findClaimable(now.plusSeconds(31), PageRequest.of(0, 10)))
+                .extracting(OutboxEventEntity::getId).containsExactly(ids.get(0), ids.get(2));
+        assertThat(outboxEventRepository.findPendingIdsByKey(List.of("7"), ids.get(2)))
+                .extracting(r -> r[1]).containsExactly(ids.get(0), ids.get(2));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void enqueueHouseholdEvent_ConcurrentFirstEvents_ShouldBothCommit() throws Exception {
+        //arrange: first transaction insert the sequence row and hold it, second one start before it commit
+        OutboxService outboxService = new OutboxService(outboxEventRepository, householdEventSequenceRepository, mapper);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long householdId = 900L;
+        CountDownLatch firstInserted = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        //act
+        Future<?> first = pool.submit(() -> tx.executeWithoutResult(s -> {
+            outboxService.enqueueHouseholdEvent(householdId, "/topic/households/900/expense", "{}");
+            firstInserted.countDown();
+            sleep(300);
+        }));
+        firstInserted.await(5, TimeUnit.SECONDS);
+        Future<?> second = pool.submit(() -> tx.executeWithoutResult(
+                s -> outboxService.enqueueHouseholdEvent(householdId, "/topic/households/900/expense", "{}")));
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        //assert: no primary key collision, the second caller got the next number
+        List<Long> sequences = new ArrayList<>();
+        for (OutboxEventEntity row : outboxEventRepository.findAll()) {
+            if (row.getMessageKey().equals("900")) {
+                sequences.add(mapper.readValue(row.getPayload(), WebSocketEvent.class).getSequence());
+            }
+        }
+        assertThat(sequences).containsExactlyInAnyOrder(1L, 2L);
+        outboxEventRepository.deleteAll(outboxEventRepository.findAll().stream()
+                .filter(row -> row.getMessageKey().equals("900")).toList());
+        householdEventSequenceRepository.deleteById(householdId);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
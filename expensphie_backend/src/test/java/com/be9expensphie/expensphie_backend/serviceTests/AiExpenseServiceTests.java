@@ -0,0 +1,224 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.AiExpenseJobDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.Exception.AiExpenseParseException;
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.entity.AiExpenseJobEntity;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.enums.AiJobStatus;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.enums.Method;
+import com.be9expensphie.expensphie_backend.parser.ExpenseParser;
+import com.be9expensphie.expensphie_backend.parser.RegexExpenseParser;
+import com.be9expensphie.expensphie_backend.repository.AiExpenseJobRepository;
+import com.be9expensphie.expensphie_backend.service.AiExpenseService;
+import com.be9expensphie.expensphie_backend.service.ExpenseService;
+import com.be9expensphie.expensphie_backend.service.HouseholdMemberService;
+import com.be9expensphie.expensphie_backend.service.OutboxService;
+import com.be9expensphie.expensphie_backend.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AiExpenseServiceTests {
+    @Mock
+    private ExpenseParser llmParser;
+    @Mock
+    private HouseholdMemberService householdMemberService;
+    @Mock
+    private ExpenseService expenseService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private AiExpenseJobRepository aiExpenseJobRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, AiExpenseJobEntity> jobs = new HashMap<>();
+    private AiExpenseService aiExpenseService;
+
+    @BeforeEach
+    public void setUp() {
+        //executor run inline so the job finish before submit return, mapper configured like boot (parameter names)
+        aiExpenseService = service(new TaskExecutorAdapter(Runnable::run));
+        UserEntity user = UserEntity.builder().id(7L).build();
+        //shared by the submit tests, the expiry and rejection tests skip some of them
+        lenient().when(userService.getCurrentMember(1L)).thenReturn(Optional.of(HouseholdMember.builder().user(user).build()));
+        lenient().when(householdMemberService.getMembers(1L)).thenReturn(List.of(
+                new MemberDTO(1L, "An Nguyen", HouseholdRole.ROLE_ADMIN),
+                new MemberDTO(2L, "Binh Tran", HouseholdRole.ROLE_MEMBER)));
+        when(aiExpenseJobRepository.save(any(AiExpenseJobEntity.class))).thenAnswer(inv -> {
+            AiExpenseJobEntity job = inv.getArgument(0);
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(aiExpenseJobRepository.findForUpdateById(anyString())).thenAnswer(inv -> Optional.ofNullable(jobs.get(inv.<String>getArgument(0))));
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    public void submit_ShouldCallLlmOutsideTransactionThenPersistAndNotify() {
+        // arrange: no currency, regex parser escalate
+        when(llmParser.name()).thenReturn("llm");
+        when(llmParser.parse(eq("lunch 50"), anyList()))
+                .thenReturn(Optional.of(CreateExpenseRequestDTO.builder().amount(BigDecimal.valueOf(50)).build()));
+        when(expenseService.createExpense(eq(1L), any(CreateExpenseRequestDTO.class)))
+                .thenReturn(CreateExpenseResponseDTO.builder().id(99L).build());
+
+        // act
+        AiExpenseJobDTO submitted = aiExpenseService.submit(1L, "lunch 50");
+
+        // assert: llm answered before the transaction opened
+        InOrder order = inOrder(llmParser, transactionTemplate);
+        order.verify(llmParser).parse(eq("lunch 50"), anyList());
+        order.verify(transactionTemplate).executeWithoutResult(any());
+        verify(expenseService).createExpense(eq(1L), any(CreateExpenseRequestDTO.class));
+        AiExpenseJobEntity job = jobs.get(submitted.getJobId());
+        assertEquals(AiJobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(99L, job.getExpenseId());
+        verify(outboxService).enqueueHouseholdEvent(eq(1L), eq("/topic/households/1/expense"), contains("AI_EXPENSE_COMPLETED"));
+        assertEquals(1, meterRegistry.get("expensphie.expense.parser")
+                .tags("parser", "regex", "outcome", "escalated").timer().count());
+    }
+
+    @Test
+    public void submit_SimpleParagraph_ShouldNotCallLlm() {
+        // arrange
+        when(expenseService.createExpense(eq(1L), any(CreateExpenseRequestDTO.class)))
+                .thenReturn(CreateExpenseResponseDTO.builder().id(99L).build());
+
+        // act
+        aiExpenseService.submit(1L, "dinner 40 aud split equally");
+
+        // assert
+        verify(llmParser, never()).parse(anyString(), anyList());
+        verify(expenseService).createExpense(eq(1L), argThat(r -> r.getMethod() == Method.EQUAL
+                && r.getSplits().size() == 2 && r.getSplits().get(0).getAmount().compareTo(BigDecimal.valueOf(20)) == 0));
+    }
+
+    @Test
+    public void submit_UnreadableLlmAnswer_ShouldMarkJobFailed() {
+        // arrange
+        when(llmParser.parse(anyString(), anyList())).thenThrow(new AiExpenseParseException("AI return invalid JSON"));
+
+        // act
+        AiExpenseJobDTO submitted = aiExpenseService.submit(1L, "lunch");
+
+        // assert
+        assertEquals(AiJobStatus.FAILED, jobs.get(submitted.getJobId()).getStatus());
+        verify(expenseService, never()).createExpense(any(), any());
+        verify(outboxService).enqueueHouseholdEvent(eq(1L), anyString(), contains("AI_EXPENSE_FAILED"));
+    }
+
+    @Test
+    public void submit_ExecutorFull_ShouldMarkJobFailed() {
+        // arrange
+        AsyncTaskExecutor full = mock(AsyncTaskExecutor.class);
+        doThrow(new TaskRejectedException("full")).when(full).execute(any(Runnable.class));
+        aiExpenseService = service(full);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        // act
+        AiExpenseJobDTO submitted = aiExpenseService.submit(1L, "lunch 50");
+
+        // assert: the caller see the failure at once, nothing left PENDING
+        assertEquals(AiJobStatus.FAILED, submitted.getStatus());
+        assertEquals(AiJobStatus.FAILED, jobs.get(submitted.getJobId()).getStatus());
+        verify(outboxService).enqueueHouseholdEvent(eq(1L), anyString(), contains("AI_EXPENSE_FAILED"));
+    }
+
+    @Test
+    public void expireStaleJobs_ShouldFailPendingJobOnce() {
+        // arrange: one job lost with its node, one the worker finished after the id scan
+        jobs.put("lost", job("lost", AiJobStatus.PENDING));
+        jobs.put("done", job("done", AiJobStatus.SUCCEEDED));
+        when(aiExpenseJobRepository.findStaleIds(eq(AiJobStatus.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of("lost", "done"));
+
+        // act
+        aiExpenseService.expireStaleJobs();
+
+        // assert
+        assertEquals(AiJobStatus.FAILED, jobs.get("lost").getStatus());
+        assertEquals(AiJobStatus.SUCCEEDED, jobs.get("done").getStatus());
+        verify(outboxService).enqueueHouseholdEvent(eq(1L), anyString(), contains("AI_EXPENSE_FAILED"));
+    }
+
+    @Test
+    public void submit_FinishAfterExpiry_ShouldRollBackExpense() {
+        // arrange: the job expired while the llm was still answering
+        TransactionStatus tx = mock(TransactionStatus.class);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(tx);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(expenseService.createExpense(eq(1L), any(CreateExpenseRequestDTO.class))).thenAnswer(inv -> {
+            jobs.values().forEach(j -> j.setStatus(AiJobStatus.FAILED));
+            return CreateExpenseResponseDTO.builder().id(99L).build();
+        });
+
+        // act
+        AiExpenseJobDTO submitted = aiExpenseService.submit(1L, "dinner 40 aud split equally");
+
+        // assert: client was told FAILED, so the expense must not stay
+        verify(tx).setRollbackOnly();
+        assertEquals(AiJobStatus.FAILED, jobs.get(submitted.getJobId()).getStatus());
+        verify(outboxService, never()).enqueueHouseholdEvent(any(), anyString(), anyString());
+    }
+
+    private AiExpenseService service(AsyncTaskExecutor executor) {
+        return new AiExpenseService(List.of(new RegexExpenseParser(), llmParser), householdMemberService,
+                expenseService, userService, aiExpenseJobRepository, outboxService, transactionTemplate,
+                executor, Jackson2ObjectMapperBuilder.json().build(), meterRegistry, 300_000);
+    }
+
+    private static AiExpenseJobEntity job(String id, AiJobStatus status) {
+        return AiExpenseJobEntity.builder().id(id).householdId(1L).userId(7L).status(status).build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.service.AiParseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AiParseCacheTests {
+    @Mock
+    private ObjectProvider<EmbeddingModel> embeddingModelProvider;
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<MemberDTO> members = List.of(new MemberDTO(1L, "An", HouseholdRole.ROLE_ADMIN));
+
+    @Test
+    public void lookup_SameParagraphDifferentSpacing_ShouldHitExactTier() {
+        // arrange
+        AiParseCache cache = cache(false);
+        cache.store(cache.lookup("Electricity 120 split equally", members), "{\"amount\":120}", Duration.ofSeconds(2));
+
+        // act
+        AiParseCache.Lookup again = cache.lookup("  electricity   120 SPLIT equally. ", members);
+        AiParseCache.Lookup otherMembers = cache.lookup("electricity 120 split equally",
+                List.of(new MemberDTO(1L, "An", HouseholdRole.ROLE_ADMIN), new MemberDTO(2L, "Binh", HouseholdRole.ROLE_MEMBER)));
+
+        // assert: member set is part of the key
+        assertEquals("{\"amount\":120}", again.response());
+        assertFalse(otherMembers.hit());
+        assertEquals(1, meterRegistry.get("expensphie.ai.parse.cache").tag("result", "exact").counter().count());
+        assertEquals(2, meterRegistry.get("expensphie.ai.parse.cache.saved").counter().count());
+    }
+
+    @Test
+    public void lookup_SimilarParagraph_ShouldHitSemanticTierOnlyWhenNumbersMatch() {
+        // arrange: every text embed to the same vector, only the number guard separate them
+        when(embeddingModelProvider.getIfAvailable()).thenReturn(embeddingModel);
+        when(embeddingModel.embed(anyString())).thenReturn(new float[]{0.6f, 0.8f});
+        AiParseCache cache = cache(true);
+        cache.store(cache.lookup("electricity 120 split equally", members), "{\"amount\":120}", Duration.ofSeconds(2));
+
+        // act
+        AiParseCache.Lookup paraphrase = cache.lookup("paid 120 for electricity, share it equally", members);
+        AiParseCache.Lookup otherAmount = cache.lookup("electricity 150 split equally", members);
+
+        // assert
+        assertTrue(paraphrase.hit());
+        assertFalse(otherAmount.hit());
+        assertEquals(1, meterRegistry.get("expensphie.ai.parse.cache").tag("result", "semantic").counter().count());
+    }
+
+    private AiParseCache cache(boolean semantic) {
+        return new AiParseCache(new ConcurrentMapCacheManager(AiParseCache.AI_PARSE), embeddingModelProvider,
+                meterRegistry, semantic, 0.95, 100);
+    }
+}
@@ -0,0 +1,100 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.event.ExpensesChangedEvent;
+import com.be9expensphie.expensphie_backend.service.AiSuggestionRefresher;
+import com.be9expensphie.expensphie_backend.service.GeminiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AiSuggestionRefresherTests {
+    @Mock
+    private GeminiService geminiService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager("ai_suggestion");
+
+    private AiSuggestionRefresher refresher(boolean enabled, long debounceMs, int perMinute) {
+        //executor run inline so the refresh is done when refreshDirty return
+        return new AiSuggestionRefresher(geminiService, cacheManager, new TaskExecutorAdapter(Runnable::run),
+                meterRegistry, enabled, debounceMs, 4, perMinute);
+    }
+
+    @Test
+    public void refreshDirty_BurstOfChanges_ShouldRefreshOnceAndKeepOldAnswerUntilThen() {
+        // arrange
+        AiSuggestionRefresher refresher = refresher(true, 0, 60);
+        cacheManager.getCache("ai_suggestion").put("1", "old advice");
+
+        // act
+        for (int i = 0; i < 3; i++) {
+            refresher.onExpensesChanged(new ExpensesChangedEvent(1L));
+        }
+
+        // assert: still served before the refresh
+        assertEquals("old advice", cacheManager.getCache("ai_suggestion").get("1", String.class));
+        refresher.refreshDirty();
+        refresher.refreshDirty();
+        verify(geminiService, times(1)).refreshExpenseSuggestions(1L);
+    }
+
+    @Test
+    public void refreshDirty_WithinDebounce_ShouldWait() {
+        // arrange
+        AiSuggestionRefresher refresher = refresher(true, 60_000, 60);
+        refresher.onExpensesChanged(new ExpensesChangedEvent(1L));
+
+        // act
+        refresher.refreshDirty();
+
+        // assert
+        verify(geminiService, never()).refreshExpenseSuggestions(anyLong());
+        assertEquals(1, meterRegistry.get("expensphie.ai.suggestion.refresh.pending").gauge().value());
+    }
+
+    @Test
+    public void refreshDirty_RateLimited_ShouldLeaveOthersPending() {
+        // arrange: one refresh per minute
+        AiSuggestionRefresher refresher = refresher(true, 0, 1);
+        when(geminiService.refreshExpenseSuggestions(anyLong())).thenThrow(new RuntimeException("model down"));
+        refresher.onExpensesChanged(new ExpensesChangedEvent(1L));
+        refresher.onExpensesChanged(new ExpensesChangedEvent(2L));
+
+        // act
+        refresher.refreshDirty();
+
+        // assert
+        verify(geminiService, times(1)).refreshExpenseSuggestions(anyLong());
+        assertEquals(1, meterRegistry.get("expensphie.ai.suggestion.refresh").tag("result", "failed").counter().count());
+        assertEquals(1, meterRegistry.get("expensphie.ai.suggestion.refresh.pending").gauge().value());
+    }
+
+    @Test
+    public void onExpensesChanged_Disabled_ShouldEvict() {
+        // arrange
+        AiSuggestionRefresher refresher = refresher(false, 0, 60);
+        cacheManager.getCache("ai_suggestion").put("1", "old advice");
+
+        // act
+        refresher.onExpensesChanged(new ExpensesChangedEvent(1L));
+        refresher.refreshDirty();
+
+        // assert
+        assertNull(cacheManager.getCache("ai_suggestion").get("1"));
+        verify(geminiService, never()).refreshExpenseSuggestions(anyLong());
+    }
+}
@@ -0,0 +1,185 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
+import com.be9expensphie.expensphie_backend.entity.ExpenseSplitDetailsEntity;
+import com.be9expensphie.expensphie_backend.entity.Household;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.enums.ExpenseFileFormat;
+import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.enums.Method;
+import com.be9expensphie.expensphie_backend.service.ExpenseExportService;
+import com.be9expensphie.expensphie_backend.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+//export against the real streaming query, body written to a buffer like the servlet output stream
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:expense_export_testdb;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ExpenseExportService.class, JacksonAutoConfiguration.class})
+public class ExpenseExportServiceTests {
+    @Autowired
+    private ExpenseExportService expenseExportService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @MockitoBean
+    private UserService userService;
+
+    private Household household;
+    private HouseholdMember alice;
+    private HouseholdMember bob;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity aliceUser = createUser("alice@example.com", "Alice, Jr");
+        household = new Household();
+        household.setName("Export House");
+        household.setCode("EXPORT1");
+        household.setCreatedBy(aliceUser);
+        entityManager.persist(household);
+        alice = createMember(aliceUser);
+        bob = createMember(createUser("bob@example.com", "Bob"));
+        when(userService.getCurrentMember(household.getId())).thenReturn(Optional.of(alice));
+    }
+
+    @Test
+    public void exportExpenses_Csv_ShouldQuoteFieldsAndListSplits() throws IOException {
+        // arrange
+        ExpenseEntity expense = persistExpense("Lunch, \"team\"", "12.00", "7.00");
+
+        // act
+        String[] lines = export(ExpenseFileFormat.CSV).split("\n");
+
+        // assert
+        assertEquals(2, lines.length);
+        assertEquals("id,date,amount,currency,category,description,method,status,createdBy,splits", lines[0]);
+        assertEquals(expense.getId() + ",2025-03-03,19.00,USD,Food,\"Lunch, \"\"team\"\"\",EQUAL,APPROVED,\"Alice, Jr\","
+                + alice.getId() + ":12.00;" + bob.getId() + ":7.00", lines[1]);
+    }
+
+    @Test
+    public void exportExpenses_Ndjson_ShouldWriteOneObjectPerLine() throws IOException {
+        // arrange
+        persistExpense("Lunch", "5.00", "5.00");
+        persistExpense("Dinner", "8.00", "2.00");
+
+        // act
+        String[] lines = export(ExpenseFileFormat.NDJSON).split("\n");
+
+        // assert
+        assertEquals(2, lines.length);
+        JsonNode second = mapper.readTree(lines[1]);
+        assertEquals("Dinner", second.get("description").asText());
+        assertEquals("2025-03-03", second.get("date").asText());
+        assertEquals(2, second.get("splits").size());
+        assertEquals(bob.getId(), second.get("splits").get(1).get("memberId").asLong());
+    }
+
+    @Test
+    public void exportExpenses_PastClearInterval_ShouldKeepEveryRowAndSplit() throws IOException {
+        // arrange: more rows than CLEAR_EVERY, the persistence context is cleared in the middle of the stream
+        for (int i = 0; i < 1100; i++) {
+            persistExpense("row " + i, "1.00", "2.00");
+        }
+
+        // act
+        String[] lines = export(ExpenseFileFormat.CSV).split("\n");
+
+        // assert
+        assertEquals(1101, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            assertEquals("row " + (i - 1), lines[i].split(",")[5]);
+            assertEquals(alice.getId() + ":1.00;" + bob.getId() + ":2.00",
+                    lines[i].substring(lines[i].lastIndexOf(',') + 1));
+        }
+    }
+
+    @Test
+    public void exportExpenses_UserNotInHousehold_ShouldThrowBeforeStreaming() {
+        // arrange
+        when(userService.getCurrentMember(household.getId())).thenReturn(Optional.empty());
+
+        // act & assert
+        assertThrows(RuntimeException.class,
+                () -> expenseExportService.exportExpenses(household.getId(), ExpenseFileFormat.CSV));
+    }
+
+    private String export(ExpenseFileFormat format) throws IOException {
+        entityManager.flush();
+        entityManager.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expenseExportService.exportExpenses(household.getId(), format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private ExpenseEntity persistExpense(String description, String aliceShare, String bobShare) {
+        BigDecimal a = new BigDecimal(aliceShare);
+        BigDecimal b = new BigDecimal(bobShare);
+        ExpenseEntity expense = ExpenseEntity.builder()
+                .household(household)
+                .created_by(alice)
+                .reviewed_by(alice)
+                .status(ExpenseStatus.APPROVED)
+                .category("Food")
+                .currency("USD")
+                .description(description)
+                .method(Method.EQUAL)
+                .date(LocalDate.of(2025, 3, 3))
+                .amount(a.add(b))
+                .build();
+        expense.getSplitDetails().addAll(List.of(split(expense, alice, a), split(expense, bob, b)));
+        entityManager.persist(expense);
+        return expense;
+    }
+
+    private static ExpenseSplitDetailsEntity split(ExpenseEntity expense, HouseholdMember member, BigDecimal amount) {
+        ExpenseSplitDetailsEntity split = new ExpenseSplitDetailsEntity();
+        split.setExpense(expense);
+        split.setMember(member);
+        split.setAmount(amount);
+        return split;
+    }
+
+    private UserEntity createUser(String email, String fullName) {
+        UserEntity user = new UserEntity();
+        user.setEmail(email);
+        user.setPassword("password123");
+        user.setFullName(fullName);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private HouseholdMember createMember(UserEntity user) {
+        HouseholdMember member = new HouseholdMember();
+        member.setUser(user);
+        member.setHousehold(household);
+        member.setRole(HouseholdRole.ROLE_MEMBER);
+        entityManager.persist(member);
+        return member;
+    }
+}
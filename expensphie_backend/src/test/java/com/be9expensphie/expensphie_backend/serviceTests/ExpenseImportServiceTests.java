@@ -0,0 +1,195 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ImportReportDTO;
+import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
+import com.be9expensphie.expensphie_backend.entity.Household;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.enums.ExpenseFileFormat;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
+import com.be9expensphie.expensphie_backend.repository.HouseholdRepository;
+import com.be9expensphie.expensphie_backend.repository.SettlementRepository;
+import com.be9expensphie.expensphie_backend.repository.UserRepository;
+import com.be9expensphie.expensphie_backend.security.HouseholdSecurity;
+import com.be9expensphie.expensphie_backend.service.ExpenseImportService;
+import com.be9expensphie.expensphie_backend.service.ExpenseRollupService;
+import com.be9expensphie.expensphie_backend.service.ExpenseService;
+import com.be9expensphie.expensphie_backend.service.HouseholdMemberService;
+import com.be9expensphie.expensphie_backend.service.MemberBalanceService;
+import com.be9expensphie.expensphie_backend.service.OutboxService;
+import com.be9expensphie.expensphie_backend.service.SettlementService;
+import com.be9expensphie.expensphie_backend.service.UserService;
+import com.be9expensphie.expensphie_backend.validation.ExpenseValidation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+//real import on h2 in mysql mode, every chunk commit on its own like in production
+//so no test transaction: each test get its own household instead of a rollback
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:expense_import_testdb;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ExpenseImportService.class, ExpenseService.class, SettlementService.class, MemberBalanceService.class,
+        ExpenseRollupService.class, ExpenseValidation.class, JacksonAutoConfiguration.class})
+public class ExpenseImportServiceTests {
+    private static final String HEADER = "date,amount,currency,category,description,method,splits\n";
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private ExpenseImportService expenseImportService;
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    @Autowired
+    private SettlementRepository settlementRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private HouseholdRepository householdRepository;
+    @Autowired
+    private HouseholdMemberRepository householdMemberRepository;
+
+    @MockitoBean
+    private UserService userService;
+    @MockitoBean
+    private HouseholdMemberService householdMemberService;
+    @MockitoBean
+    private HouseholdSecurity householdSecurity;
+    @MockitoBean
+    private OutboxService outboxService;
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    private Household household;
+    private HouseholdMember admin;
+    private HouseholdMember bob;
+
+    @BeforeEach
+    void setUp() {
+        int n = SEQ.incrementAndGet();
+        UserEntity adminUser = createUser("admin" + n + "@example.com");
+        household = new Household();
+        household.setName("Import House " + n);
+        household.setCode("IMPORT" + n);
+        household.setCreatedBy(adminUser);
+        household = householdRepository.save(household);
+        admin = createMember(adminUser, HouseholdRole.ROLE_ADMIN);
+        bob = createMember(createUser("bob" + n + "@example.com"), HouseholdRole.ROLE_MEMBER);
+        when(userService.getCurrentMember(household.getId())).thenReturn(Optional.of(admin));
+    }
+
+    @Test
+    public void importExpenses_Csv_ShouldReportBadRowsAndSaveTheRest() throws IOException {
+        // arrange: line 3 has no date, line 4 a broken split
+        String body = HEADER
+                + row("2025-03-03", "Lunch")
+                + row("", "No date")
+                + "2025-03-04,20,USD,Food,Bad split,EQUAL," + admin.getId() + "-10\n"
+                + row("2025-03-05", "Dinner");
+
+        // act
+        ImportReportDTO report = importCsv(body);
+
+        // assert
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals("Date must be filled", report.getErrors().get(0).getMessage());
+        assertEquals(4, report.getErrors().get(1).getLine());
+        assertTrue(report.getErrors().get(1).getMessage().startsWith("Invalid split"));
+        assertEquals(List.of("Lunch", "Dinner"), savedDescriptions());
+        //admin import is approved, bob owe admin for each saved row
+        assertEquals(2, settlementRepository.findAll().stream()
+                .filter(s -> s.getFromMember().getId().equals(bob.getId()))
+                .count());
+    }
+
+    @Test
+    public void importExpenses_Ndjson_ShouldReportUnreadableLine() throws IOException {
+        // arrange
+        String body = "{\"date\":\"2025-03-03\",\"amount\":20,\"currency\":\"USD\",\"category\":\"Food\","
+                + "\"description\":\"Lunch\",\"method\":\"EQUAL\",\"splits\":["
+                + "{\"memberId\":" + admin.getId() + ",\"amount\":10},{\"memberId\":" + bob.getId() + ",\"amount\":10}]}\n"
+                + "{not json\n";
+
+        // act
+        ImportReportDTO report = expenseImportService.importExpenses(household.getId(),
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), ExpenseFileFormat.NDJSON);
+
+        // assert
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+    }
+
+    @Test
+    public void importExpenses_ChunkRefusedByDb_ShouldRejectOnlyTheBadRow() throws IOException {
+        // arrange: description longer than the column pass validation but fail the insert
+        String body = HEADER
+                + row("2025-03-03", "Lunch")
+                + row("2025-03-04", "x".repeat(300))
+                + row("2025-03-05", "Dinner");
+
+        // act
+        ImportReportDTO report = importCsv(body);
+
+        // assert: the chunk is retried row by row, the good rows are not reported as failed
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals(List.of("Lunch", "Dinner"), savedDescriptions());
+    }
+
+    private String row(String date, String description) {
+        return date + ",20,USD,Food," + description + ",EQUAL," + admin.getId() + ":10;" + bob.getId() + ":10\n";
+    }
+
+    private ImportReportDTO importCsv(String body) throws IOException {
+        return expenseImportService.importExpenses(household.getId(),
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), ExpenseFileFormat.CSV);
+    }
+
+    private List<String> savedDescriptions() {
+        return expenseRepository.findAll().stream()
+                .filter(e -> e.getHousehold().getId().equals(household.getId()))
+                .sorted((a, b) -> a.getDate().compareTo(b.getDate()))
+                .map(ExpenseEntity::getDescription)
+                .toList();
+    }
+
+    private UserEntity createUser(String email) {
+        UserEntity user = new UserEntity();
+        user.setEmail(email);
+        user.setPassword("password123");
+        user.setFullName("Test User");
+        return userRepository.save(user);
+    }
+
+    private HouseholdMember createMember(UserEntity user, HouseholdRole role) {
+        HouseholdMember member = new HouseholdMember();
+        member.setUser(user);
+        member.setHousehold(household);
+        member.setRole(role);
+        return householdMemberRepository.save(member);
+    }
+}
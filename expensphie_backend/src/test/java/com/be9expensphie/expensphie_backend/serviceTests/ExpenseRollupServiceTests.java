@@ -0,0 +1,183 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.ExpenseTotalsDTO;
+import com.be9expensphie.expensphie_backend.entity.ExpenseEntity;
+import com.be9expensphie.expensphie_backend.entity.ExpenseRollupEntity;
+import com.be9expensphie.expensphie_backend.entity.Household;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.enums.Method;
+import com.be9expensphie.expensphie_backend.enums.TimeRange;
+import com.be9expensphie.expensphie_backend.repository.AppMigrationRepository;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRollupRepository;
+import com.be9expensphie.expensphie_backend.service.ExpenseRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//real rollup writes on h2 in mysql mode, the upsert need on duplicate key update
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:expense_rollup_testdb;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ExpenseRollupService.class)
+public class ExpenseRollupServiceTests {
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    @Autowired
+    private ExpenseRollupService expenseRollupService;
+    @Autowired
+    private ExpenseRollupRepository expenseRollupRepository;
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    @Autowired
+    private AppMigrationRepository appMigrationRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Household household;
+    private HouseholdMember member;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity user = new UserEntity();
+        user.setEmail("rollup@example.com");
+        user.setPassword("password123");
+        user.setFullName("Test User");
+        entityManager.persist(user);
+        household = new Household();
+        household.setName("Rollup House");
+        household.setCode("ROLLUP1");
+        household.setCreatedBy(user);
+        entityManager.persist(household);
+        member = new HouseholdMember();
+        member.setUser(user);
+        member.setHousehold(household);
+        member.setRole(HouseholdRole.ROLE_ADMIN);
+        entityManager.persist(member);
+        entityManager.flush();
+    }
+
+    @Test
+    public void getTotals_Weekly_ShouldGroupDaysIntoMondayBuckets() {
+        // arrange: monday and the wednesday after share a bucket
+        expenseRollupService.recordCreatedAll(List.of(
+                expense(MONDAY, "FOOD", "10.00", ExpenseStatus.APPROVED),
+                expense(MONDAY.plusDays(2), "RENT", "2.50", ExpenseStatus.APPROVED),
+                expense(MONDAY.plusDays(2), "RENT", "3.00", ExpenseStatus.APPROVED),
+                expense(MONDAY.plusWeeks(1), "FOOD", "7.00", ExpenseStatus.APPROVED),
+                expense(MONDAY, "FOOD", "99.00", ExpenseStatus.PENDING)));
+
+        // act
+        ExpenseTotalsDTO totals = expenseRollupService.getTotals(
+                household.getId(), ExpenseStatus.APPROVED, TimeRange.WEEKLY, MONDAY, MONDAY.plusWeeks(2));
+
+        // assert
+        assertEquals(2, totals.getBuckets().size());
+        assertEquals(MONDAY, totals.getBuckets().get(0).getStart());
+        assertEquals(0, new BigDecimal("15.50").compareTo(totals.getBuckets().get(0).getTotal()));
+        assertEquals(3, totals.getBuckets().get(0).getCount());
+        assertEquals(0, new BigDecimal("7.00").compareTo(totals.getBuckets().get(1).getTotal()));
+        assertEquals(2, totals.getCategories().size());
+        assertEquals(0, new BigDecimal("17.00").compareTo(totals.getCategories().get(0).getTotal()));
+    }
+
+    @Test
+    public void recordCreated_SameKeyTwice_ShouldAddToOneRow() {
+        // act: second write of a key hit the unique key and add on top
+        expenseRollupService.recordCreated(expense(MONDAY, "FOOD", "10.00", ExpenseStatus.APPROVED));
+        expenseRollupService.recordCreated(expense(MONDAY, "FOOD", "5.00", ExpenseStatus.APPROVED));
+
+        // assert
+        assertThat(rollupRows()).containsExactly(Map.entry("APPROVED:FOOD:USD:" + MONDAY, "15|2"));
+    }
+
+    @Test
+    public void recordChanged_ShouldMoveAmountBetweenRows() {
+        // arrange: pending expense approved, and an amount edit on the same key
+        ExpenseEntity approved = expense(MONDAY, "FOOD", "20.00", ExpenseStatus.PENDING);
+        ExpenseEntity edited = expense(MONDAY, "RENT", "8.00", ExpenseStatus.PENDING);
+        expenseRollupService.recordCreatedAll(List.of(approved, edited));
+
+        // act
+        approved.setStatus(ExpenseStatus.APPROVED);
+        expenseRollupService.recordChanged(approved, ExpenseStatus.PENDING, "FOOD", "USD", MONDAY, new BigDecimal("20.00"));
+        edited.setAmount(new BigDecimal("12.00"));
+        expenseRollupService.recordChanged(edited, ExpenseStatus.PENDING, "RENT", "USD", MONDAY, new BigDecimal("8.00"));
+
+        // assert
+        assertThat(rollupRows()).containsOnly(
+                Map.entry("PENDING:FOOD:USD:" + MONDAY, "0|0"),
+                Map.entry("APPROVED:FOOD:USD:" + MONDAY, "20|1"),
+                Map.entry("PENDING:RENT:USD:" + MONDAY, "12|1"));
+    }
+
+    @Test
+    public void backfillOnce_ShouldRebuildFromExpensesAndRunOnlyOnce() {
+        // arrange: expenses saved without the rollup, plus a stale row left by an older double backfill
+        expenseRepository.saveAll(List.of(
+                expense(MONDAY, "FOOD", "10.00", ExpenseStatus.APPROVED),
+                expense(MONDAY, "FOOD", "4.00", ExpenseStatus.APPROVED),
+                expense(MONDAY.plusDays(1), "RENT", "30.00", ExpenseStatus.PENDING)));
+        expenseRollupRepository.addAll(List.of(ExpenseRollupEntity.builder()
+                .householdId(household.getId())
+                .status(ExpenseStatus.APPROVED)
+                .category("FOOD")
+                .currency("USD")
+                .day(MONDAY)
+                .totalAmount(new BigDecimal("28.00"))
+                .expenseCount(4)
+                .build()));
+        //context startup already ran it on the empty db
+        appMigrationRepository.deleteAllInBatch();
+
+        // act: second call is a node starting after the first one committed
+        expenseRollupService.backfillOnce();
+        expenseRollupService.backfillOnce();
+
+        // assert
+        assertThat(rollupRows()).containsOnly(
+                Map.entry("APPROVED:FOOD:USD:" + MONDAY, "14|2"),
+                Map.entry("PENDING:RENT:USD:" + MONDAY.plusDays(1), "30|1"));
+        assertThat(appMigrationRepository.count()).isEqualTo(1);
+    }
+
+    private Map<String, String> rollupRows() {
+        entityManager.flush();
+        entityManager.clear();
+        Map<String, String> rows = new HashMap<>();
+        for (ExpenseRollupEntity r : expenseRollupRepository.findAll()) {
+            rows.put(r.getStatus() + ":" + r.getCategory() + ":" + r.getCurrency() + ":" + r.getDay(),
+                    r.getTotalAmount().stripTrailingZeros().toPlainString() + "|" + r.getExpenseCount());
+        }
+        return rows;
+    }
+
+    private ExpenseEntity expense(LocalDate day, String category, String amount, ExpenseStatus status) {
+        return ExpenseEntity.builder()
+                .household(household)
+                .created_by(member)
+                .reviewed_by(member)
+                .status(status)
+                .category(category)
+                .currency("USD")
+                .method(Method.EQUAL)
+                .date(day)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
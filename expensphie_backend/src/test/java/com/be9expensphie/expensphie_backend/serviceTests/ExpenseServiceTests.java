@@ -10,6 +10,7 @@ import com.be9expensphie.expensphie_backend.entity.Household;
 import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
 import com.be9expensphie.expensphie_backend.entity.SettlementEntity;
 import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.enums.ExpenseSort;
 import com.be9expensphie.expensphie_backend.enums.ExpenseStatus;
 import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
 import com.be9expensphie.expensphie_backend.enums.Method;
@@ -22,12 +23,13 @@ import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository
 import com.be9expensphie.expensphie_backend.repository.HouseholdRepository;
 import com.be9expensphie.expensphie_backend.repository.SettlementRepository;
 import com.be9expensphie.expensphie_backend.security.HouseholdSecurity;
-import com.be9expensphie.expensphie_backend.service.AiService;
+import com.be9expensphie.expensphie_backend.service.ExpenseRollupService;
 import com.be9expensphie.expensphie_backend.service.ExpenseService;
-import com.be9expensphie.expensphie_backend.service.HouseholdMemberService;
+import com.be9expensphie.expensphie_backend.service.MemberBalanceService;
+import com.be9expensphie.expensphie_backend.service.OutboxService;
 import com.be9expensphie.expensphie_backend.service.SettlementService;
 import com.be9expensphie.expensphie_backend.service.UserService;
-import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import com.be9expensphie.expensphie_backend.util.KeysetCursor;
 import com.be9expensphie.expensphie_backend.validation.ExpenseValidation;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -38,10 +40,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import javax.swing.text.html.Option;
@@ -81,19 +83,21 @@ public class ExpenseServiceTests {
     @Mock
     private SettlementService settlementService;
     @Mock
-    private HouseholdMemberService householdMemberService;
-    @Mock
     private ExpenseValidation expenseValidation;
     @Mock
-    private AiService aiService;
-    @Mock
     private ExpenseSplitDetailsRepository expenseSplitDetailsRepo;
     @Mock
     private SettlementRepository settlementRepository;
     @Mock
+    private MemberBalanceService memberBalanceService;
+    @Mock
+    private ExpenseRollupService expenseRollupService;
+    @Mock
     private CacheManager cacheManager;
     @Mock
-    private KafkaTemplate<String, WebSocketEvent> wsKafkaTemplate;
+    private OutboxService outboxService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @Mock
     private SimpMessagingTemplate messagingTemplate;
     @Mock
@@ -116,10 +120,9 @@ public class ExpenseServiceTests {
         CreateExpenseRequestDTO request=createExpenseRequest(memberAdmin.getId(),member2.getId());
 
         //when call service-> return mock obj create above
-        when(userService.getCurrentUser()).thenReturn(admin);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
         when(householdMemberRepo.findByHouseholdAndRole(household,HouseholdRole.ROLE_ADMIN)).thenReturn(Optional.of(memberAdmin));
-        when(householdMemberRepo.findByUserAndHousehold(admin,household)).thenReturn(Optional.of(memberAdmin));
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(memberAdmin));
         
         // Mock batch fetch for splits (now uses findAllById instead of findById)
         when(householdMemberRepo.findAllById(List.of(1L, 2L))).thenReturn(List.of(memberAdmin, member2));
@@ -151,11 +154,10 @@ public class ExpenseServiceTests {
         CreateExpenseRequestDTO request = createExpenseRequest(member.getId(),member2.getId());
 
         //return mock obj
-        when(userService.getCurrentUser()).thenReturn(user);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
         when(householdMemberRepo.findByHouseholdAndRole(household,
                 HouseholdRole.ROLE_ADMIN)).thenReturn(Optional.of(member2));
-        when(householdMemberRepo.findByUserAndHousehold(user, household)).thenReturn(Optional.of(member));
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(member));
 
         // Mock batch fetch for splits (now uses findAllById instead of findById)
         when(householdMemberRepo.findAllById(List.of(1L, 2L))).thenReturn(List.of(member, member2));
@@ -341,11 +343,10 @@ public class ExpenseServiceTests {
                 ))
                 .build();
         
-        when(userService.getCurrentUser()).thenReturn(admin);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
         when(householdMemberRepo.findByHouseholdAndRole(household, HouseholdRole.ROLE_ADMIN))
                 .thenReturn(Optional.of(adminMember));
-        when(householdMemberRepo.findByUserAndHousehold(admin, household))
+        when(userService.getCurrentMember(1L))
                 .thenReturn(Optional.of(adminMember));
         // Mock batch fetch returns only adminMember, not the non-existent 999L
         // Validation should catch this in ExpenseValidation
@@ -371,11 +372,10 @@ public class ExpenseServiceTests {
         
         CreateExpenseRequestDTO request = createExpenseRequest(adminMember.getId(), adminMember.getId());
         
-        when(userService.getCurrentUser()).thenReturn(outsider);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
         when(householdMemberRepo.findByHouseholdAndRole(household, HouseholdRole.ROLE_ADMIN))
                 .thenReturn(Optional.of(adminMember));
-        when(householdMemberRepo.findByUserAndHousehold(outsider, household))
+        when(userService.getCurrentMember(1L))
                 .thenReturn(Optional.empty()); // User not in household
         
         // act & assert
@@ -409,9 +409,8 @@ public class ExpenseServiceTests {
         expense.setReviewed_by(adminMember);
         expense.setHousehold(household);
         
-        when(userService.getCurrentUser()).thenReturn(user);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
-        when(householdMemberRepo.findByUserAndHousehold(user, household)).thenReturn(Optional.of(member));
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(member));
         when(expenseRepo.findByIdAndHousehold(1L, household)).thenReturn(Optional.of(expense));
         
         // act
@@ -429,7 +428,6 @@ public class ExpenseServiceTests {
         // arrange
         UserEntity user = createUser(1L, "Member");
         
-        when(userService.getCurrentUser()).thenReturn(user);
         when(householdRepo.findById(999L)).thenReturn(Optional.empty());
         
         // act & assert
@@ -445,9 +443,8 @@ public class ExpenseServiceTests {
         Household household = new Household();
         household.setId(1L);
         
-        when(userService.getCurrentUser()).thenReturn(outsider);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
-        when(householdMemberRepo.findByUserAndHousehold(outsider, household)).thenReturn(Optional.empty());
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.empty());
         
         // act & assert
         assertThrows(RuntimeException.class, () -> {
@@ -463,9 +460,8 @@ public class ExpenseServiceTests {
         household.setId(1L);
         HouseholdMember member = createHouseholdMember(HouseholdRole.ROLE_MEMBER, household, user.getId(), user);
         
-        when(userService.getCurrentUser()).thenReturn(user);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
-        when(householdMemberRepo.findByUserAndHousehold(user, household)).thenReturn(Optional.of(member));
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(member));
         when(expenseRepo.findByIdAndHousehold(999L, household)).thenReturn(Optional.empty());
         
         // act & assert
@@ -517,23 +513,22 @@ public class ExpenseServiceTests {
         household.setId(1L);
         HouseholdMember member = createHouseholdMember(HouseholdRole.ROLE_MEMBER, household, user.getId(), user);
         
-        List<ExpenseEntity> mockExpenses = new ArrayList<>();
+        List<CreateExpenseResponseDTO> mockExpenses = new ArrayList<>();
         for (int i = 1; i <= 11; i++) {
-            ExpenseEntity exp = new ExpenseEntity();
-            exp.setId((long) i);
-            exp.setAmount(BigDecimal.valueOf(100 + i));
-            exp.setCategory("Food");
-            exp.setCreated_by(member);  // Set created_by to avoid NPE
-            mockExpenses.add(exp);
+            mockExpenses.add(CreateExpenseResponseDTO.builder()
+                    .id((long) i)
+                    .amount(BigDecimal.valueOf(100 + i))
+                    .category("Food")
+                    .createdBy(user.getFullName())
+                    .build());
         }
         
-        when(userService.getCurrentUser()).thenReturn(user);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
-        when(householdMemberRepo.findByUserAndHousehold(user, household)).thenReturn(Optional.of(member));
-        when(expenseRepo.findNextExpense(eq(Long.MAX_VALUE), eq(household), any(Pageable.class))).thenReturn(mockExpenses);
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(member));
+        when(expenseRepo.findExpensePage(eq(1L), eq(Long.MAX_VALUE), any(Pageable.class))).thenReturn(mockExpenses);
         
         // act
-        CursorDTO<CreateExpenseResponseDTO> result = expenseService.getExpense(1L, null, 10, null);
+        CursorDTO<CreateExpenseResponseDTO> result = expenseService.getExpense(1L, null, 10, null, ExpenseSort.ID);
         
         // assert
         assertNotNull(result);
@@ -550,23 +545,22 @@ public class ExpenseServiceTests {
         household.setId(1L);
         HouseholdMember member = createHouseholdMember(HouseholdRole.ROLE_MEMBER, household, user.getId(), user);
         
-        List<ExpenseEntity> mockExpenses = new ArrayList<>();
+        List<CreateExpenseResponseDTO> mockExpenses = new ArrayList<>();
         for (int i = 1; i <= 11; i++) {
-            ExpenseEntity exp = new ExpenseEntity();
-            exp.setId((long) i);
-            exp.setAmount(BigDecimal.valueOf(100 + i));
-            exp.setCategory("Food");
-            exp.setCreated_by(member);  // Set created_by to avoid NPE
-            mockExpenses.add(exp);
+            mockExpenses.add(CreateExpenseResponseDTO.builder()
+                    .id((long) i)
+                    .amount(BigDecimal.valueOf(100 + i))
+                    .category("Food")
+                    .createdBy(user.getFullName())
+                    .build());
         }
         
-        when(userService.getCurrentUser()).thenReturn(user);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
-        when(householdMemberRepo.findByUserAndHousehold(user, household)).thenReturn(Optional.of(member));
-        when(expenseRepo.findNextExpense(eq(50L), eq(household), any(Pageable.class))).thenReturn(mockExpenses);
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(member));
+        when(expenseRepo.findExpensePage(eq(1L), eq(50L), any(Pageable.class))).thenReturn(mockExpenses);
         
         // act
-        CursorDTO<CreateExpenseResponseDTO> result = expenseService.getExpense(1L, null, 10, 50L);
+        CursorDTO<CreateExpenseResponseDTO> result = expenseService.getExpense(1L, null, 10, KeysetCursor.encode("ID", 50L, 50L), ExpenseSort.ID);
         
         // assert
         assertNotNull(result);
@@ -582,24 +576,23 @@ public class ExpenseServiceTests {
         household.setId(1L);
         HouseholdMember member = createHouseholdMember(HouseholdRole.ROLE_MEMBER, household, user.getId(), user);
         
-        List<ExpenseEntity> mockExpenses = new ArrayList<>();
+        List<CreateExpenseResponseDTO> mockExpenses = new ArrayList<>();
         for (int i = 1; i <= 5; i++) {
-            ExpenseEntity exp = new ExpenseEntity();
-            exp.setId((long) i);
-            exp.setAmount(BigDecimal.valueOf(100 + i));
-            exp.setStatus(ExpenseStatus.APPROVED);
-            exp.setCreated_by(member);  // Set created_by to avoid NPE
-            mockExpenses.add(exp);
+            mockExpenses.add(CreateExpenseResponseDTO.builder()
+                    .id((long) i)
+                    .amount(BigDecimal.valueOf(100 + i))
+                    .status(ExpenseStatus.APPROVED)
+                    .createdBy(user.getFullName())
+                    .build());
         }
         
-        when(userService.getCurrentUser()).thenReturn(user);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
-        when(householdMemberRepo.findByUserAndHousehold(user, household)).thenReturn(Optional.of(member));
-        when(expenseRepo.findExpenseByStatus(eq(1L), eq(ExpenseStatus.APPROVED), eq(Long.MAX_VALUE), any(Pageable.class)))
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(member));
+        when(expenseRepo.findExpensePageByStatus(eq(1L), eq(ExpenseStatus.APPROVED), eq(Long.MAX_VALUE), any(Pageable.class)))
                 .thenReturn(mockExpenses);
         
         // act
-        CursorDTO<CreateExpenseResponseDTO> result = expenseService.getExpense(1L, ExpenseStatus.APPROVED, 10, null);
+        CursorDTO<CreateExpenseResponseDTO> result = expenseService.getExpense(1L, ExpenseStatus.APPROVED, 10, null, ExpenseSort.ID);
         
         // assert
         assertNotNull(result);
@@ -607,6 +600,41 @@ public class ExpenseServiceTests {
         assertFalse(result.isHasMore());
     }
 
+    @Test
+    public void testGetExpense_SortByDate_ShouldContinueFromCursorKey() {
+        // arrange
+        UserEntity user = createUser(1L, "Member");
+        Household household = new Household();
+        household.setId(1L);
+        HouseholdMember member = createHouseholdMember(HouseholdRole.ROLE_MEMBER, household, user.getId(), user);
+        LocalDate day = LocalDate.of(2025, 3, 10);
+
+        List<CreateExpenseResponseDTO> mockExpenses = new ArrayList<>();
+        for (int i = 3; i >= 1; i--) {
+            mockExpenses.add(CreateExpenseResponseDTO.builder()
+                    .id((long) i)
+                    .date(day)
+                    .createdBy(user.getFullName())
+                    .build());
+        }
+
+        when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.of(member));
+        when(expenseRepo.findExpensePageByDate(eq(1L), eq(day), eq(4L), any(Pageable.class))).thenReturn(mockExpenses);
+
+        // act
+        CursorDTO<CreateExpenseResponseDTO> result = expenseService.getExpense(1L, null, 2, KeysetCursor.encode("DATE", day, 4L), ExpenseSort.DATE);
+
+        // assert: next token points at the last returned row
+        assertEquals(2, result.getData().size());
+        assertTrue(result.isHasMore());
+        KeysetCursor next = KeysetCursor.decode(result.getNextCursor(), "DATE");
+        assertEquals(day.toString(), next.key());
+        assertEquals(2L, next.id());
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseService.getExpense(1L, null, 2, result.getNextCursor(), ExpenseSort.AMOUNT));
+    }
+
     @Test
     public void testGetExpense_UserNotInHousehold_ShouldThrowException() {
         // arrange
@@ -614,14 +642,26 @@ public class ExpenseServiceTests {
         Household household = new Household();
         household.setId(1L);
         
-        when(userService.getCurrentUser()).thenReturn(outsider);
         when(householdRepo.findById(1L)).thenReturn(Optional.of(household));
-        when(householdMemberRepo.findByUserAndHousehold(outsider, household)).thenReturn(Optional.empty());
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.empty());
         
         // act & assert
         assertThrows(RuntimeException.class, () -> {
-            expenseService.getExpense(1L, null, 10, null);
+            expenseService.getExpense(1L, null, 10, null, ExpenseSort.ID);
+        });
+    }
+
+    @Test
+    public void testGetExpenseTotals_UserNotInHousehold_ShouldThrowBeforeCache() {
+        // arrange
+        when(userService.getCurrentMember(1L)).thenReturn(Optional.empty());
+
+        // act & assert: a cached answer of another user must not leak
+        assertThrows(RuntimeException.class, () -> {
+            expenseService.getExpenseTotals(ExpenseStatus.APPROVED, 1L, TimeRange.MONTHLY);
         });
+        verify(cacheManager, times(0)).getCache(any());
+        verify(expenseRollupService, times(0)).getTotals(any(), any(), any(), any(), any());
     }
 
     @Test
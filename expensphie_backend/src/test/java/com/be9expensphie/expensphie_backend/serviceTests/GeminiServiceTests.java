@@ -0,0 +1,87 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.repository.ExpenseRepository;
+import com.be9expensphie.expensphie_backend.service.ExpenseService;
+import com.be9expensphie.expensphie_backend.service.GeminiService;
+import com.be9expensphie.expensphie_backend.service.LlmGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class GeminiServiceTests {
+    @Mock
+    private ExpenseService expenseService;
+    @Mock
+    private ExpenseRepository expenseRepository;
+    @Mock
+    private LlmGateway llmGateway;
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager("ai_suggestion");
+    private GeminiService geminiService;
+
+    @BeforeEach
+    public void setUp() {
+        geminiService = new GeminiService(expenseService, expenseRepository, llmGateway, cacheManager);
+    }
+
+    @Test
+    public void streamExpenseSuggestions_ShouldEmitTokensAndCacheWholeAnswer() {
+        // arrange
+        when(expenseService.getExpenseLastMonth(1L)).thenReturn(List.of(CreateExpenseResponseDTO.builder()
+                .category("FOOD").currency("AUD").amount(BigDecimal.TEN).build()));
+        when(llmGateway.stream(eq(LlmGateway.GEMINI), anyString())).thenReturn(Flux.just("Spend ", "less ", "on food"));
+
+        // act
+        List<String> tokens = geminiService.streamExpenseSuggestions(1L).collectList().block();
+
+        // assert
+        assertEquals(List.of("Spend ", "less ", "on food"), tokens);
+        assertEquals("Spend less on food", cacheManager.getCache("ai_suggestion").get(1L, String.class));
+    }
+
+    @Test
+    public void streamExpenseSuggestions_Cached_ShouldNotCallModel() {
+        // arrange
+        cacheManager.getCache("ai_suggestion").put(1L, "cached advice");
+
+        // act
+        List<String> tokens = geminiService.streamExpenseSuggestions(1L).collectList().block();
+
+        // assert
+        assertEquals(List.of("cached advice"), tokens);
+        verify(expenseService, never()).getExpenseLastMonth(1L);
+    }
+
+    @Test
+    public void streamExpenseSuggestions_Failed_ShouldNotCache() {
+        // arrange
+        when(expenseService.getExpenseLastMonth(1L)).thenReturn(List.of(CreateExpenseResponseDTO.builder()
+                .category("FOOD").currency("AUD").amount(BigDecimal.TEN).build()));
+        when(llmGateway.stream(eq(LlmGateway.GEMINI), anyString()))
+                .thenReturn(Flux.concat(Flux.just("Spend "), Flux.error(new RuntimeException("model down"))));
+
+        // act
+        geminiService.streamExpenseSuggestions(1L).onErrorComplete().blockLast();
+
+        // assert
+        assertNull(cacheManager.getCache("ai_suggestion").get(1L));
+    }
+}
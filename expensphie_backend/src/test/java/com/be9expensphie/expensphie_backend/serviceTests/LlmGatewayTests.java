@@ -0,0 +1,176 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.Exception.LlmUnavailableException;
+import com.be9expensphie.expensphie_backend.service.LlmGateway;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.Mockito;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+//real openai clients against a local stub model server, latency and failures injected per path
+public class LlmGatewayTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger slowHits = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/slow/v1/chat/completions", exchange -> {
+            slowHits.incrementAndGet();
+            sleep(1_500);
+            answer(exchange, 200, completion("slow answer"));
+        });
+        server.createContext("/fast/v1/chat/completions", exchange -> answer(exchange, 200, completion("fast answer")));
+        server.createContext("/broken/v1/chat/completions", exchange -> answer(exchange, 500, "{\"error\":\"down\"}"));
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void call_SlowProvider_ShouldTimeOutFailOverAndOpenBreaker() {
+        // arrange: breaker open after one failure, first http call of the jvm is slow so warm up outside the timeout
+        ChatClient fast = stub("fast");
+        fast.prompt("warm up").call().content();
+        LlmGateway gateway = gateway(stub("slow"), fast, 500, 5, 1);
+
+        // act
+        String first = gateway.call(LlmGateway.GEMINI, "advice");
+        String second = gateway.call(LlmGateway.GEMINI, "advice");
+
+        // assert: second call skip gemini without waiting
+        assertEquals("fast answer", first);
+        assertEquals("fast answer", second);
+        assertEquals(1, slowHits.get());
+        assertEquals(1, meterRegistry.get("expensphie.ai.llm.calls")
+                .tags("provider", "gemini", "outcome", "timeout").timer().count());
+        assertEquals(2, meterRegistry.get("expensphie.ai.llm.breaker.state").tag("provider", "gemini").gauge().value());
+        assertEquals(1, meterRegistry.get("expensphie.ai.llm.rejected")
+                .tags("provider", "gemini", "reason", "breaker").counter().count());
+    }
+
+    @Test
+    public void call_BulkheadFull_ShouldFailOverWithoutWaiting() {
+        // arrange: one gemini slot, taken by a slow call
+        LlmGateway gateway = gateway(stub("slow"), stub("fast"), 5_000, 1, 5);
+        CompletableFuture<String> inFlight = CompletableFuture.supplyAsync(() -> gateway.call(LlmGateway.GEMINI, "advice"));
+        while (slowHits.get() == 0) {
+            sleep(10);
+        }
+
+        // act
+        long start = System.nanoTime();
+        String answer = gateway.call(LlmGateway.GEMINI, "advice");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        // assert
+        assertEquals("fast answer", answer);
+        assertTrue(millis < 1_000, "waited " + millis + "ms for a full bulkhead");
+        assertEquals(1, meterRegistry.get("expensphie.ai.llm.rejected")
+                .tags("provider", "gemini", "reason", "bulkhead").counter().count());
+        assertEquals("slow answer", inFlight.join());
+        assertEquals(1, meterRegistry.get("expensphie.ai.llm.bulkhead.available").tag("provider", "gemini").gauge().value());
+    }
+
+    @Test
+    public void call_AllProvidersDown_ShouldThrowUnavailable() {
+        // arrange
+        LlmGateway gateway = gateway(stub("broken"), stub("broken"), 2_000, 5, 5);
+
+        // act & assert
+        assertThrows(LlmUnavailableException.class, () -> gateway.call(LlmGateway.OPENAI, "parse"));
+        assertEquals(1, meterRegistry.get("expensphie.ai.llm.calls")
+                .tags("provider", "openai", "outcome", "error").timer().count());
+    }
+
+    @Test
+    public void stream_NoFirstTokenInTime_ShouldFailOver() {
+        // arrange
+        ChatClient silent = Mockito.mock(ChatClient.class, Answers.RETURNS_DEEP_STUBS);
+        ChatClient talking = Mockito.mock(ChatClient.class, Answers.RETURNS_DEEP_STUBS);
+        when(silent.prompt(anyString()).stream().content()).thenReturn(Flux.never());
+        when(talking.prompt(anyString()).stream().content()).thenReturn(Flux.just("Spend ", "less"));
+        LlmGateway gateway = gateway(silent, talking, 200, 5, 5);
+
+        // act
+        List<String> tokens = gateway.stream(LlmGateway.GEMINI, "advice").collectList().block();
+
+        // assert
+        assertEquals(List.of("Spend ", "less"), tokens);
+        assertEquals(5, meterRegistry.get("expensphie.ai.llm.bulkhead.available").tag("provider", "gemini").gauge().value());
+    }
+
+    private LlmGateway gateway(ChatClient gemini, ChatClient openAi, long timeoutMs, int maxConcurrent, int failureThreshold) {
+        return new LlmGateway(gemini, openAi, meterRegistry, timeoutMs, maxConcurrent, 0, failureThreshold, 60_000);
+    }
+
+    private ChatClient stub(String path) {
+        OpenAiApi api = OpenAiApi.builder()
+                .baseUrl("http://localhost:" + server.getAddress().getPort() + "/" + path)
+                .apiKey("test-key")
+                //jdk client like production (spring.http.client.factory), not the reactor one the relay put on the classpath
+                .restClientBuilder(RestClient.builder().requestFactory(new JdkClientHttpRequestFactory()))
+                .build();
+        //no client retry, the gateway decide what happen after a failure
+        return ChatClient.create(OpenAiChatModel.builder()
+                .openAiApi(api)
+                .retryTemplate(RetryTemplate.builder().maxAttempts(1).build())
+                .build());
+    }
+
+    private static String completion(String content) {
+        return """
+                {"id":"stub","object":"chat.completion","created":1,"model":"stub",
+                 "choices":[{"index":0,"message":{"role":"assistant","content":"%s"},"finish_reason":"stop"}],
+                 "usage":{"prompt_tokens":1,"completion_tokens":1,"total_tokens":2}}
+                """.formatted(content);
+    }
+
+    private static void answer(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
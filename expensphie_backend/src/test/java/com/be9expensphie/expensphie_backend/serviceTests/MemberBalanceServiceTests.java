@@ -0,0 +1,284 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.dto.SplitDTO.SplitRequestDTO;
+import com.be9expensphie.expensphie_backend.entity.Household;
+import com.be9expensphie.expensphie_backend.entity.HouseholdMember;
+import com.be9expensphie.expensphie_backend.entity.MemberBalanceEntity;
+import com.be9expensphie.expensphie_backend.entity.SettlementEntity;
+import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.enums.Method;
+import com.be9expensphie.expensphie_backend.enums.SettlementStatus;
+import com.be9expensphie.expensphie_backend.repository.AppMigrationRepository;
+import com.be9expensphie.expensphie_backend.repository.MemberBalanceRepository;
+import com.be9expensphie.expensphie_backend.repository.SettlementRepository;
+import com.be9expensphie.expensphie_backend.security.HouseholdSecurity;
+import com.be9expensphie.expensphie_backend.service.ExpenseRollupService;
+import com.be9expensphie.expensphie_backend.service.ExpenseService;
+import com.be9expensphie.expensphie_backend.service.MemberBalanceService;
+import com.be9expensphie.expensphie_backend.service.OutboxService;
+import com.be9expensphie.expensphie_backend.service.SettlementService;
+import com.be9expensphie.expensphie_backend.service.UserService;
+import com.be9expensphie.expensphie_backend.validation.ExpenseValidation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+//real services on h2 in mysql mode, the ledger upsert need on duplicate key update
+//after every operation member_balance must equal the sum over open settlements
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:member_balance_testdb;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ExpenseService.class, SettlementService.class, MemberBalanceService.class, ExpenseRollupService.class,
+        JacksonAutoConfiguration.class})
+public class MemberBalanceServiceTests {
+    @Autowired
+    private ExpenseService expenseService;
+    @Autowired
+    private SettlementService settlementService;
+    @Autowired
+    private MemberBalanceService memberBalanceService;
+    @Autowired
+    private SettlementRepository settlementRepository;
+    @Autowired
+    private MemberBalanceRepository memberBalanceRepository;
+    @Autowired
+    private AppMigrationRepository appMigrationRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private UserService userService;
+    @MockitoBean
+    private HouseholdSecurity householdSecurity;
+    @MockitoBean
+    private ExpenseValidation expenseValidation;
+    @MockitoBean
+    private OutboxService outboxService;
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    private Household household;
+    private HouseholdMember admin;
+    private HouseholdMember alice;
+    private HouseholdMember bob;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity adminUser = createUser("admin@example.com");
+        household = new Household();
+        household.setName("Ledger House");
+        household.setCode("LEDGER1");
+        household.setCreatedBy(adminUser);
+        entityManager.persist(household);
+        admin = createMember(adminUser, HouseholdRole.ROLE_ADMIN);
+        alice = createMember(createUser("alice@example.com"), HouseholdRole.ROLE_MEMBER);
+        bob = createMember(createUser("bob@example.com"), HouseholdRole.ROLE_MEMBER);
+        entityManager.flush();
+    }
+
+    @Test
+    public void createExpense_Approved_ShouldAddOnePendingRowPerDebtor() {
+        // act: admin expense is approved right away, alice and bob owe admin
+        actAs(admin);
+        createExpense();
+
+        // assert
+        assertLedgerMatchesSettlements();
+        assertThat(memberBalanceRepository.findAll()).hasSize(2)
+                .allMatch(r -> r.getPendingCount() == 1 && r.getAwaitingApprovalCount() == 0);
+    }
+
+    @Test
+    public void updateExpense_ShouldMoveAmountsAndCurrency() {
+        // arrange
+        actAs(admin);
+        CreateExpenseResponseDTO created = createExpense();
+
+        // act: new split amounts and currency, old USD rows go back to zero
+        expenseService.updateExpense(household.getId(), created.getId(), CreateExpenseRequestDTO.builder()
+                .currency("EUR")
+                .splits(List.of(split(admin, "10"), split(alice, "15"), split(bob, "5")))
+                .build());
+
+        // assert
+        assertLedgerMatchesSettlements();
+        assertThat(memberBalanceRepository.findAll())
+                .filteredOn(r -> r.getCurrency().equals("USD"))
+                .allMatch(r -> r.getPendingAmount().signum() == 0 && r.getPendingCount() == 0);
+    }
+
+    @Test
+    public void toggleThenApprove_ShouldMoveToAwaitingThenClose() {
+        // arrange
+        actAs(admin);
+        createExpense();
+        SettlementEntity owed = settlementOf(alice);
+
+        // act + assert: pending -> awaiting approval
+        actAs(alice);
+        settlementService.toggleSettlementStatus(owed.getId(), alice.getId());
+        assertLedgerMatchesSettlements();
+
+        // act + assert: awaiting approval -> completed, drop out of the ledger
+        actAs(admin);
+        settlementService.approveSettlement(owed.getId(), admin.getId());
+        assertLedgerMatchesSettlements();
+    }
+
+    @Test
+    public void toggleThenReject_ShouldReturnToPending() {
+        // arrange
+        actAs(admin);
+        createExpense();
+        SettlementEntity owed = settlementOf(bob);
+
+        // act + assert
+        actAs(bob);
+        settlementService.toggleSettlementStatus(owed.getId(), bob.getId());
+        assertLedgerMatchesSettlements();
+
+        actAs(admin);
+        settlementService.rejectSettlement(owed.getId(), admin.getId());
+        assertLedgerMatchesSettlements();
+    }
+
+    @Test
+    public void backfillOnce_ShouldRebuildStaleRowsAndRunOnlyOnce() {
+        // arrange: status changes written without the ledger, plus a stale row from before the counts existed
+        actAs(admin);
+        createExpense();
+        settlementOf(alice).setStatus(SettlementStatus.AWAITING_APPROVAL);
+        settlementOf(bob).setStatus(SettlementStatus.COMPLETED);
+        entityManager.flush();
+        memberBalanceRepository.deleteAllInBatch();
+        memberBalanceRepository.addAll(List.of(MemberBalanceEntity.builder()
+                .householdId(household.getId())
+                .fromMemberId(alice.getId())
+                .toMemberId(admin.getId())
+                .currency("USD")
+                .balanceMonth(LocalDate.now().withDayOfMonth(1))
+                .pendingAmount(new BigDecimal("99.00"))
+                .awaitingApprovalAmount(BigDecimal.ZERO)
+                .build()));
+        //context startup already ran it on the empty db
+        appMigrationRepository.deleteAllInBatch();
+
+        // act: second call is a node starting after the first one committed
+        memberBalanceService.backfillOnce();
+        memberBalanceService.backfillOnce();
+
+        // assert
+        assertLedgerMatchesSettlements();
+        assertThat(appMigrationRepository.count()).isEqualTo(1);
+    }
+
+    private CreateExpenseResponseDTO createExpense() {
+        return expenseService.createExpense(household.getId(), CreateExpenseRequestDTO.builder()
+                .amount(new BigDecimal("30.00"))
+                .date(LocalDate.now())
+                .category("Food")
+                .description("Groceries")
+                .method(Method.EQUAL)
+                .currency("USD")
+                .splits(List.of(split(admin, "10"), split(alice, "10"), split(bob, "10")))
+                .build());
+    }
+
+    private void assertLedgerMatchesSettlements() {
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<String, String> expected = new HashMap<>();
+        Map<String, BigDecimal[]> sums = new HashMap<>();
+        for (SettlementEntity s : settlementRepository.findAll()) {
+            if (s.getStatus() == SettlementStatus.COMPLETED) {
+                continue;
+            }
+            BigDecimal[] row = sums.computeIfAbsent(key(s.getFromMember().getHousehold().getId(),
+                    s.getFromMember().getId(), s.getToMember().getId(), s.getCurrency(),
+                    s.getDate().withDayOfMonth(1)), k -> new BigDecimal[] {
+                            BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+            int column = s.getStatus() == SettlementStatus.PENDING ? 0 : 1;
+            row[column] = row[column].add(s.getAmount());
+            row[column + 2] = row[column + 2].add(BigDecimal.ONE);
+        }
+        sums.forEach((k, row) -> expected.put(k, values(row[0], row[1], row[2].longValue(), row[3].longValue())));
+
+        Map<String, String> actual = new HashMap<>();
+        for (MemberBalanceEntity r : memberBalanceRepository.findAll()) {
+            //a fully settled row stay behind with zeros
+            if (r.getPendingAmount().signum() == 0 && r.getAwaitingApprovalAmount().signum() == 0
+                    && r.getPendingCount() == 0 && r.getAwaitingApprovalCount() == 0) {
+                continue;
+            }
+            actual.put(key(r.getHouseholdId(), r.getFromMemberId(), r.getToMemberId(), r.getCurrency(),
+                    r.getBalanceMonth()), values(r.getPendingAmount(), r.getAwaitingApprovalAmount(),
+                    r.getPendingCount(), r.getAwaitingApprovalCount()));
+        }
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    private static String key(Long householdId, Long fromMemberId, Long toMemberId, String currency, LocalDate month) {
+        return householdId + ":" + fromMemberId + ":" + toMemberId + ":" + currency + ":" + month;
+    }
+
+    private static String values(BigDecimal pending, BigDecimal awaiting, long pendingCount, long awaitingCount) {
+        return pending.stripTrailingZeros().toPlainString() + "|" + awaiting.stripTrailingZeros().toPlainString()
+                + "|" + pendingCount + "|" + awaitingCount;
+    }
+
+    private void actAs(HouseholdMember member) {
+        when(userService.getCurrentUser()).thenReturn(member.getUser());
+        when(userService.getCurrentMember(anyLong())).thenReturn(Optional.of(member));
+    }
+
+    private SettlementEntity settlementOf(HouseholdMember debtor) {
+        entityManager.flush();
+        return settlementRepository.findAll().stream()
+                .filter(s -> s.getFromMember().getId().equals(debtor.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static SplitRequestDTO split(HouseholdMember member, String amount) {
+        return new SplitRequestDTO(member.getId(), new BigDecimal(amount));
+    }
+
+    private UserEntity createUser(String email) {
+        UserEntity user = new UserEntity();
+        user.setEmail(email);
+        user.setPassword("password123");
+        user.setFullName("Test User");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private HouseholdMember createMember(UserEntity user, HouseholdRole role) {
+        HouseholdMember member = new HouseholdMember();
+        member.setUser(user);
+        member.setHousehold(household);
+        member.setRole(role);
+        entityManager.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,257 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.entity.OutboxEventEntity;
+import com.be9expensphie.expensphie_backend.event.EmailEvent;
+import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import com.be9expensphie.expensphie_backend.producer.OutboxRelay;
+import com.be9expensphie.expensphie_backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTests {
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaTemplate<String, EmailEvent> kafkaTemplate;
+    @Mock
+    private KafkaTemplate<String, WebSocketEvent> wsKafkaTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private OutboxRelay relay;
+    //[messageKey, id] the repository report as pending
+    private List<Object[]> pending = List.of();
+
+    @BeforeEach
+    public void setUp() {
+        relay = new OutboxRelay(outboxEventRepository, kafkaTemplate, wsKafkaTemplate, transactionTemplate, mapper);
+        ReflectionTestUtils.setField(relay, "emailTopic", "email-events");
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(relay, "claimLeaseMs", 60000L);
+        ReflectionTestUtils.setField(relay, "retryBackoffMs", 1000L);
+        ReflectionTestUtils.setField(relay, "retryBackoffMaxMs", 60000L);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 10);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        //keyed rows each test consider pending, in id order
+        lenient().when(outboxEventRepository.findPendingIdsByKey(anyCollection(), anyLong())).thenAnswer(inv -> pending);
+    }
+
+    @Test
+    public void relay_ShouldSendThroughTypedTemplatesAndMarkPublished() throws Exception {
+        // arrange
+        OutboxEventEntity ws = event(1L, "websocket-events", null,
+                mapper.writeValueAsString(new WebSocketEvent("/topic/households/1/expense", "{}")));
+        OutboxEventEntity email = event(2L, "email-events", "a@b.com",
+                mapper.writeValueAsString(new EmailEvent("a@b.com", "s", "b", "ACTIVATION", null)));
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(ws, email));
+        pending = List.<Object[]>of(row("a@b.com", 2L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), isNull(), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        when(kafkaTemplate.send(eq("email-events"), eq("a@b.com"), any(EmailEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // act
+        relay.relay();
+
+        // assert
+        verify(outboxEventRepository).claim(eq(List.of(1L, 2L)), any());
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any());
+    }
+
+    @Test
+    public void relay_BrokerFailure_ShouldNotSendLaterRowsOfTheSameKey() throws Exception {
+        // arrange: household 1 has rows 1,2,3, row 2 fail so row 3 must not go out before it
+        String payload = mapper.writeValueAsString(new WebSocketEvent("/topic/x", "{}"));
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(
+                event(1L, "websocket-events", "1", payload),
+                event(2L, "websocket-events", "1", payload),
+                event(3L, "websocket-events", "1", payload)));
+        pending = List.of(row("1", 1L), row("1", 2L), row("1", 3L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        // act
+        relay.relay();
+
+        // assert
+        verify(wsKafkaTemplate, times(2)).send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class));
+        verify(outboxEventRepository).markPublished(eq(List.of(1L)), any());
+        verify(outboxEventRepository).markFailed(eq(2L), any(), any());
+        verify(outboxEventRepository).release(eq(List.of(3L)), any());
+    }
+
+    @Test
+    public void relay_BrokerFailure_ShouldKeepSendingOtherKeys() throws Exception {
+        // arrange: household 1 fail on its first row, household 2 is unaffected
+        String payload = mapper.writeValueAsString(new WebSocketEvent("/topic/x", "{}"));
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(
+                event(1L, "websocket-events", "1", payload),
+                event(2L, "websocket-events", "2", payload),
+                event(3L, "websocket-events", "1", payload),
+                event(4L, "websocket-events", "2", payload)));
+        pending = List.of(row("1", 1L), row("2", 2L), row("1", 3L), row("2", 4L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("partition leader gone")));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("2"), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // act
+        relay.relay();
+
+        // assert
+        verify(wsKafkaTemplate, times(1)).send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class));
+        verify(outboxEventRepository).markPublished(eq(List.of(2L, 4L)), any());
+        verify(outboxEventRepository).markFailed(eq(1L), any(), any());
+        verify(outboxEventRepository).release(eq(List.of(3L)), any());
+    }
+
+    @Test
+    public void relay_KeyHeldByAnotherNode_ShouldNotClaimItsLaterRows() throws Exception {
+        // arrange: row 1 of household 1 is claimed elsewhere, so 3 is not claimable here yet
+        String payload = mapper.writeValueAsString(new WebSocketEvent("/topic/x", "{}"));
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(
+                event(2L, "websocket-events", "2", payload),
+                event(3L, "websocket-events", "1", payload)));
+        pending = List.of(row("1", 1L), row("2", 2L), row("1", 3L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("2"), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // act
+        relay.relay();
+
+        // assert
+        verify(outboxEventRepository).claim(eq(List.of(2L)), any());
+        verify(wsKafkaTemplate, never()).send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class));
+        verify(outboxEventRepository).markPublished(eq(List.of(2L)), any());
+    }
+
+    @Test
+    public void relay_Interrupted_ShouldReleaseRowsAndKeepTheFlag() throws Exception {
+        // arrange
+        String payload = mapper.writeValueAsString(new WebSocketEvent("/topic/x", "{}"));
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(
+                event(1L, "websocket-events", "1", payload),
+                event(2L, "websocket-events", "1", payload)));
+        pending = List.of(row("1", 1L), row("1", 2L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        // act: shutdown interrupt the scheduler thread while it wait for the ack
+        Thread.currentThread().interrupt();
+        relay.relay();
+
+        // assert: Thread.interrupted also clear the flag for the next test
+        assertThat(Thread.interrupted()).isTrue();
+        verify(outboxEventRepository).release(eq(List.of(1L, 2L)), any());
+        verify(outboxEventRepository, never()).markFailed(any(), any(), any());
+        verify(outboxEventRepository, never()).markPublished(any(), any());
+    }
+
+    @Test
+    public void relay_RecordTooLarge_ShouldParkItAndSendTheRestOfTheKey() throws Exception {
+        // arrange: retrying the same oversized record can never work
+        String payload = mapper.writeValueAsString(new WebSocketEvent("/topic/x", "{}"));
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(
+                event(1L, "websocket-events", "1", payload),
+                event(2L, "websocket-events", "1", payload)));
+        pending = List.of(row("1", 1L), row("1", 2L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("record too large")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // act
+        relay.relay();
+
+        // assert
+        verify(outboxEventRepository).markParked(eq(List.of(1L)), any(), any());
+        verify(outboxEventRepository).markPublished(eq(List.of(2L)), any());
+        verify(outboxEventRepository, never()).markFailed(any(), any(), any());
+    }
+
+    @Test
+    public void relay_BrokerFailure_ShouldBackOffExponentially() throws Exception {
+        // arrange: third attempt of the row
+        String payload = mapper.writeValueAsString(new WebSocketEvent("/topic/x", "{}"));
+        OutboxEventEntity failing = event(1L, "websocket-events", "1", payload);
+        failing.setAttempts(2);
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(failing));
+        pending = List.<Object[]>of(row("1", 1L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        // act
+        LocalDateTime before = LocalDateTime.now();
+        relay.relay();
+
+        // assert: 1s << 2 = 4s before the row can be claimed again
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEventRepository).markFailed(eq(1L), any(), retryAt.capture());
+        assertThat(retryAt.getValue()).isBetween(before.plusSeconds(4), LocalDateTime.now().plusSeconds(4));
+    }
+
+    @Test
+    public void relay_OutOfAttempts_ShouldParkInsteadOfRetrying() throws Exception {
+        // arrange: the tenth failure
+        String payload = mapper.writeValueAsString(new WebSocketEvent("/topic/x", "{}"));
+        OutboxEventEntity failing = event(1L, "websocket-events", "1", payload);
+        failing.setAttempts(9);
+        when(outboxEventRepository.findClaimable(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(failing));
+        pending = List.<Object[]>of(row("1", 1L));
+        when(wsKafkaTemplate.send(eq("websocket-events"), eq("1"), any(WebSocketEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        // act
+        relay.relay();
+
+        // assert
+        verify(outboxEventRepository).markParked(eq(List.of(1L)), any(), any());
+        verify(outboxEventRepository, never()).markFailed(any(), any(), any());
+    }
+
+    private static Object[] row(String key, Long id) {
+        return new Object[] {key, id};
+    }
+
+    private OutboxEventEntity event(Long id, String topic, String key, String payload) {
+        return OutboxEventEntity.builder()
+                .id(id)
+                .topic(topic)
+                .messageKey(key)
+                .payload(payload)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.Exception.PasswordHashingBusyException;
+import com.be9expensphie.expensphie_backend.security.PooledPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledPasswordEncoderTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PooledPasswordEncoder encoder;
+
+    @AfterEach
+    public void tearDown(){
+        if(encoder != null){
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void encode_PoolAndQueueFull_ShouldRejectInsteadOfWaiting() throws Exception {
+        //arrange: one thread, one queue slot, cost high enough that the first hash is still running
+        encoder = new PooledPasswordEncoder(meterRegistry, 13, 0, 1, 1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        waitFor(() -> gauge("expensphie.security.hashing.active") == 1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        waitFor(() -> gauge("expensphie.security.hashing.queue") == 1);
+
+        //act + assert
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("third", running.getNow("")));
+        assertEquals(1.0, meterRegistry.get("expensphie.security.hashing.rejected").counter().count());
+        //accepted work still complete
+        BCryptPasswordEncoder plain = new BCryptPasswordEncoder();
+        assertTrue(plain.matches("first", running.get()));
+        assertTrue(plain.matches("second", queued.get()));
+    }
+
+    @Test
+    public void upgradeEncoding_ShouldRehashOnlyBcryptWithAnotherCost(){
+        encoder = new PooledPasswordEncoder(meterRegistry, 4, 0, 1, 4);
+        String current = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", current));
+        assertFalse(encoder.upgradeEncoding(current));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    public void strengthZero_ShouldCalibrateWithinBounds(){
+        //a target below one hash keep the minimum cost
+        encoder = new PooledPasswordEncoder(meterRegistry, 0, 1, 1, 4);
+        assertEquals(10, encoder.getStrength());
+        encoder.shutdown();
+
+        //estimate double per cost, a huge target stop at the maximum without hashing at it
+        encoder = new PooledPasswordEncoder(new SimpleMeterRegistry(), 0, Long.MAX_VALUE / 4, 1, 4);
+        assertEquals(16, encoder.getStrength());
+    }
+
+    private double gauge(String name){
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private void waitFor(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while(!condition.get()){
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseRequestDTO;
+import com.be9expensphie.expensphie_backend.dto.MemberDTO;
+import com.be9expensphie.expensphie_backend.dto.SplitDTO.SplitRequestDTO;
+import com.be9expensphie.expensphie_backend.enums.HouseholdRole;
+import com.be9expensphie.expensphie_backend.enums.Method;
+import com.be9expensphie.expensphie_backend.parser.RegexExpenseParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//accuracy + latency of the local parser over a fixed corpus, wrong answers are worse than escalations
+public class RegexExpenseParserTests {
+    private static final List<MemberDTO> MEMBERS = List.of(
+            new MemberDTO(1L, "An Nguyen", HouseholdRole.ROLE_ADMIN),
+            new MemberDTO(2L, "Binh Tran", HouseholdRole.ROLE_MEMBER),
+            new MemberDTO(3L, "Chi Nguyen", HouseholdRole.ROLE_MEMBER));
+
+    private final RegexExpenseParser parser = new RegexExpenseParser();
+
+    @Test
+    public void parse_Corpus_ShouldMatchExpectedOrEscalate() throws IOException {
+        // arrange
+        List<String[]> corpus = corpus();
+        List<String> wrong = new ArrayList<>();
+        int parsed = 0;
+
+        // act
+        for (String[] entry : corpus) {
+            Optional<CreateExpenseRequestDTO> result = parser.parse(entry[0], MEMBERS);
+            String actual = result.map(this::describe).orElse("-");
+            if (!actual.equals(entry[1])) {
+                wrong.add(entry[0] + " => " + actual + " (expected " + entry[1] + ")");
+            }
+            if (result.isPresent()) {
+                parsed++;
+            }
+        }
+
+        // assert
+        assertTrue(wrong.isEmpty(), String.join("\n", wrong));
+        assertTrue(parsed > 0 && parsed < corpus.size());
+    }
+
+    @Test
+    public void parse_Corpus_ShouldStayFarBelowLlmLatency() throws IOException {
+        // arrange: warm up so the jit compile the hot path
+        List<String[]> corpus = corpus();
+        for (int i = 0; i < 200; i++) {
+            corpus.forEach(entry -> parser.parse(entry[0], MEMBERS));
+        }
+
+        // act
+        int rounds = 500;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            corpus.forEach(entry -> parser.parse(entry[0], MEMBERS));
+        }
+        double averageMicros = (System.nanoTime() - start) / 1000.0 / (rounds * corpus.size());
+
+        // assert: generous bound for slow ci, an llm call is in the seconds
+        assertTrue(averageMicros < 500, "average parse took " + averageMicros + "us");
+    }
+
+    @Test
+    public void parse_EqualSplit_ShouldSumToAmount() {
+        // act
+        CreateExpenseRequestDTO request = parser.parse("rent 900 aud equally", MEMBERS).orElseThrow();
+
+        // assert
+        assertEquals(Method.EQUAL, request.getMethod());
+        assertEquals(0, request.getSplits().stream().map(SplitRequestDTO::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(request.getAmount()));
+    }
+
+    private String describe(CreateExpenseRequestDTO request) {
+        StringBuilder splits = new StringBuilder();
+        for (SplitRequestDTO split : request.getSplits()) {
+            if (!splits.isEmpty()) {
+                splits.append(',');
+            }
+            splits.append(split.getMemberId()).append('=').append(split.getAmount().stripTrailingZeros().toPlainString());
+        }
+        return String.join("|", request.getCategory(), request.getCurrency(), request.getMethod().name(),
+                request.getAmount().stripTrailingZeros().toPlainString(), splits,
+                String.valueOf(request.getDate().toEpochDay() - LocalDate.now().toEpochDay()));
+    }
+
+    private List<String[]> corpus() throws IOException {
+        List<String[]> corpus = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/parser/expense-corpus.tsv"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    String[] entry = line.split("\t");
+                    //expected amounts are written without trailing zeros
+                    entry[1] = normalizeExpected(entry[1]);
+                    corpus.add(entry);
+                }
+            }
+        }
+        return corpus;
+    }
+
+    private static String normalizeExpected(String expected) {
+        if (expected.equals("-")) {
+            return expected;
+        }
+        String[] parts = expected.split("\\|");
+        parts[3] = new BigDecimal(parts[3]).stripTrailingZeros().toPlainString();
+        List<String> splits = new ArrayList<>();
+        for (String split : parts[4].split(",")) {
+            String[] kv = split.split("=");
+            splits.add(kv[0] + "=" + new BigDecimal(kv[1]).stripTrailingZeros().toPlainString());
+        }
+        parts[4] = String.join(",", splits);
+        return String.join("|", parts);
+    }
+}
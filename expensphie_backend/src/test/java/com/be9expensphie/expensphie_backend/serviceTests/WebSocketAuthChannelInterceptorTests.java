@@ -0,0 +1,114 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.entity.UserEntity;
+import com.be9expensphie.expensphie_backend.event.HouseholdMembershipChangedEvent;
+import com.be9expensphie.expensphie_backend.repository.HouseholdMemberRepository;
+import com.be9expensphie.expensphie_backend.security.ResolvedPrincipal;
+import com.be9expensphie.expensphie_backend.security.WebSocketAuthChannelInterceptor;
+import com.be9expensphie.expensphie_backend.service.AppUserDetailsService;
+import com.be9expensphie.expensphie_backend.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WebSocketAuthChannelInterceptorTests {
+    @Mock
+    private JwtUtil jwtUtil;
+    @Mock
+    private AppUserDetailsService userDetailsService;
+    @Mock
+    private HouseholdMemberRepository householdMemberRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, Object> session = new HashMap<>();
+    private WebSocketAuthChannelInterceptor interceptor;
+    private Principal principal;
+
+    @BeforeEach
+    public void setUp() {
+        interceptor = new WebSocketAuthChannelInterceptor(jwtUtil, userDetailsService, householdMemberRepository, meterRegistry);
+        ResolvedPrincipal user = new ResolvedPrincipal(UserEntity.builder()
+                .id(7L).email("a@b.com").password("x").role("ROLE_USER").build());
+        when(jwtUtil.extractUsername("t")).thenReturn("a@b.com");
+        when(userDetailsService.loadUserByUsername("a@b.com")).thenReturn(user);
+        when(jwtUtil.validateToken("t", user)).thenReturn(true);
+        when(householdMemberRepository.findHouseholdIdsByUserId(7L)).thenReturn(List.of(1L, 2L));
+
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setNativeHeader("Authorization", "Bearer t");
+        principal = ((StompHeaderAccessor) StompHeaderAccessor.wrap(
+                interceptor.preSend(message(connect), null))).getUser();
+    }
+
+    @Test
+    public void subscribe_ShouldUseMembershipResolvedAtConnect() {
+        // act
+        interceptor.preSend(subscribe("/topic/households/1/expense"), null);
+        interceptor.preSend(subscribe("/topic/households/2/expense"), null);
+
+        // assert: one query at CONNECT, none per SUBSCRIBE
+        verify(householdMemberRepository, times(1)).findHouseholdIdsByUserId(7L);
+        verify(householdMemberRepository, never()).existsByUserIdAndHouseholdId(anyLong(), anyLong());
+        assertEquals(2, meterRegistry.get("expensphie.websocket.inbound.auth")
+                .tag("command", "SUBSCRIBE").timer().count());
+    }
+
+    @Test
+    public void subscribe_AfterMembershipChanged_ShouldResolveAgain() {
+        // arrange: user join household 3 after CONNECT
+        when(householdMemberRepository.findHouseholdIdsByUserId(7L)).thenReturn(List.of(1L, 2L, 3L));
+        interceptor.onMembershipChanged(new HouseholdMembershipChangedEvent(7L, 3L));
+
+        // act
+        interceptor.preSend(subscribe("/topic/households/3/expense"), null);
+
+        // assert
+        verify(householdMemberRepository, times(2)).findHouseholdIdsByUserId(7L);
+    }
+
+    @Test
+    public void subscribe_NotMember_ShouldThrow() {
+        // arrange
+        when(householdMemberRepository.existsByUserIdAndHouseholdId(7L, 9L)).thenReturn(false);
+
+        // act & assert
+        Message<?> subscribe = subscribe("/topic/households/9/expense");
+        assertThrows(IllegalArgumentException.class, () -> interceptor.preSend(subscribe, null));
+        assertEquals(1, meterRegistry.get("expensphie.websocket.inbound.auth")
+                .tag("outcome", "denied").timer().count());
+    }
+
+    private Message<?> subscribe(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setUser(principal);
+        return message(accessor);
+    }
+
+    private Message<?> message(StompHeaderAccessor accessor) {
+        accessor.setSessionAttributes(session);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,68 @@
+package com.be9expensphie.expensphie_backend.serviceTests;
+
+import com.be9expensphie.expensphie_backend.consumer.WebSocketBroadcastConsumer;
+import com.be9expensphie.expensphie_backend.event.WebSocketEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class WebSocketBroadcastConsumerTests {
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void consume_Batch_ShouldForwardEveryDistinctEventInOrder() {
+        // arrange: three different events for household 1, one for household 2
+        WebSocketBroadcastConsumer consumer = new WebSocketBroadcastConsumer(messagingTemplate, new SimpleMeterRegistry());
+        WebSocketEvent first = new WebSocketEvent("/topic/households/1/expense", "{\"id\":1}", 1L, 1L);
+        WebSocketEvent other = new WebSocketEvent("/topic/households/2/expense", "{\"id\":2}", 2L, 1L);
+        WebSocketEvent second = new WebSocketEvent("/topic/households/1/expense", "{\"id\":4}", 1L, 2L);
+        WebSocketEvent last = new WebSocketEvent("/topic/households/1/expense", "{\"id\":3}", 1L, 3L);
+
+        // act
+        consumer.consume(List.of(first, other, second, last));
+
+        // assert: no sequence gap for household 1
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(4)).send(anyString(), sent.capture());
+        verify(messagingTemplate).send(eq("/topic/households/2/expense"), any(Message.class));
+        List<String> sequences = sent.getAllValues().stream()
+                .map(m -> SimpMessageHeaderAccessor.getFirstNativeHeader("sequence", m.getHeaders()))
+                .toList();
+        assertEquals(List.of("1", "1", "2", "3"), sequences);
+        assertArrayEquals("{\"id\":3}".getBytes(), (byte[]) sent.getAllValues().get(3).getPayload());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void consume_RedeliveredRecord_ShouldBeSentOnce() {
+        // arrange: relay sent sequence 2 again after a lost ack
+        WebSocketBroadcastConsumer consumer = new WebSocketBroadcastConsumer(messagingTemplate, new SimpleMeterRegistry());
+        WebSocketEvent first = new WebSocketEvent("/topic/households/1/expense", "{\"id\":1}", 1L, 1L);
+        WebSocketEvent second = new WebSocketEvent("/topic/households/1/expense", "{\"id\":2}", 1L, 2L);
+
+        // act
+        consumer.consume(List.of(first, second, second));
+
+        // assert
+        verify(messagingTemplate, times(2)).send(anyString(), any(Message.class));
+    }
+}
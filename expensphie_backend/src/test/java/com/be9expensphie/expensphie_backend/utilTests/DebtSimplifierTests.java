@@ -0,0 +1,59 @@
+package com.be9expensphie.expensphie_backend.utilTests;
+
+import com.be9expensphie.expensphie_backend.util.DebtSimplifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DebtSimplifierTests {
+
+    @Test
+    public void simplify_ChainOfDebts_ShouldCollapseToOneTransfer(){
+        //arrange: 0 owe 1 10.00, 1 owe 2 10.00
+        long[] net = {-1000, 0, 1000};
+
+        //act
+        List<DebtSimplifier.Transfer> transfers = DebtSimplifier.simplify(net);
+
+        //assert
+        assertEquals(1, transfers.size());
+        assertEquals(new DebtSimplifier.Transfer(0, 2, 1000), transfers.get(0));
+    }
+
+    @Test
+    public void simplify_LargeHousehold_ShouldSettleEveryoneWithinMemberCount(){
+        //arrange: 10k members with random balances summing to 0
+        int size = 10_000;
+        Random random = new Random(42);
+        long[] net = new long[size];
+        long sum = 0;
+        for(int i=0; i<size-1; i++){
+            net[i] = random.nextInt(200_000) - 100_000;
+            sum += net[i];
+        }
+        net[size-1] = -sum;
+
+        //act
+        List<DebtSimplifier.Transfer> transfers = DebtSimplifier.simplify(net);
+
+        //assert: every balance cleared, at most n-1 transfers
+        long[] remaining = net.clone();
+        for(DebtSimplifier.Transfer t : transfers){
+            assertTrue(t.cents() > 0);
+            remaining[t.from()] += t.cents();
+            remaining[t.to()] -= t.cents();
+        }
+        for(long r : remaining){
+            assertEquals(0, r);
+        }
+        assertTrue(transfers.size() <= size - 1);
+    }
+
+    @Test
+    public void simplify_UnbalancedInput_ShouldThrow(){
+        assertThrows(IllegalArgumentException.class, () -> DebtSimplifier.simplify(new long[]{100, -50}));
+    }
+}
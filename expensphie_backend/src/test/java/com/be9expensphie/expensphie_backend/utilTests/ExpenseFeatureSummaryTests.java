@@ -0,0 +1,97 @@
+package com.be9expensphie.expensphie_backend.utilTests;
+
+import com.be9expensphie.expensphie_backend.dto.ExpenseDTO.CreateExpenseResponseDTO;
+import com.be9expensphie.expensphie_backend.util.ExpenseFeatureSummary;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpenseFeatureSummaryTests {
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 31);
+    private static final String[] CATEGORIES = {"FOOD", "TRANSPORT", "RENT", "BILLS", "SHOPPING", "ENTERTAINMENT", "OTHER"};
+    private static final String[] CURRENCIES = {"AUD", "USD", "VND"};
+
+    @Test
+    public void summarize_ShouldReportTotalsWeeklyChangeMerchantsAndOutliers(){
+        //arrange: 100 food last week, 50 food this week, one rent far above the rest
+        List<CreateExpenseResponseDTO> expenses = new ArrayList<>();
+        expenses.add(expense("FOOD", "AUD", "60", TODAY.minusDays(8), "Coles"));
+        expenses.add(expense("FOOD", "AUD", "40", TODAY.minusDays(9), "coles "));
+        expenses.add(expense("FOOD", "AUD", "50", TODAY.minusDays(1), "Aldi"));
+        for(int i=0; i<5; i++){
+            expenses.add(expense("TRANSPORT", "AUD", "10", TODAY.minusDays(20), null));
+        }
+        expenses.add(expense("RENT", "AUD", "900", TODAY.minusDays(2), null));
+
+        //act
+        String summary = ExpenseFeatureSummary.summarize(expenses, TODAY);
+
+        //assert
+        assertTrue(summary.contains("- AUD: 1100.00 over 9 expenses"), summary);
+        assertTrue(summary.contains("  - RENT: 900.00 (82%, 1 expenses)"), summary);
+        assertTrue(summary.contains("50.00, 100.00 (+100%), 950.00 (+850%)"), summary);
+        assertTrue(summary.contains("- coles: 100.00 AUD over 2 expenses"), summary);
+        assertTrue(summary.contains("Unusually large expenses:\n- RENT 900.00 AUD"), summary);
+    }
+
+    @Test
+    public void summarize_MoreExpenses_ShouldKeepPromptSizeBounded(){
+        //benchmark: prompt tokens (~4 chars each) and extraction time against expense count
+        Random random = new Random(42);
+        int previous = 0;
+        for(int size : new int[]{10, 100, 1_000, 10_000}){
+            List<CreateExpenseResponseDTO> expenses = randomExpenses(random, size);
+            String rows = rawRows(expenses);
+
+            long start = System.nanoTime();
+            String summary = ExpenseFeatureSummary.summarize(expenses, TODAY);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            int tokens = summary.length() / 4;
+            //one line per expense was ~20 tokens per row
+            assertTrue(tokens < 700, size + " expenses -> " + tokens + " tokens");
+            assertTrue(size < 100 || tokens * 2 < rows.length() / 4, size + " expenses: summary not smaller than rows");
+            assertTrue(millis < 2_000, size + " expenses took " + millis + "ms");
+            assertTrue(size <= 100 || tokens <= previous + 50, "prompt keep growing with expense count");
+            previous = tokens;
+        }
+    }
+
+    private List<CreateExpenseResponseDTO> randomExpenses(Random random, int size){
+        List<CreateExpenseResponseDTO> expenses = new ArrayList<>();
+        for(int i=0; i<size; i++){
+            expenses.add(expense(CATEGORIES[random.nextInt(CATEGORIES.length)],
+                    CURRENCIES[random.nextInt(CURRENCIES.length)],
+                    String.valueOf(random.nextInt(20_000) / 100.0),
+                    TODAY.minusDays(random.nextInt(31)),
+                    "shop " + random.nextInt(50)));
+        }
+        return expenses;
+    }
+
+    //what the prompt used to contain
+    private String rawRows(List<CreateExpenseResponseDTO> expenses){
+        StringBuilder rows = new StringBuilder();
+        for(CreateExpenseResponseDTO e : expenses){
+            rows.append(String.format("- Category: %s | Currency: %s | Amount: %s | Date: %s%n",
+                    e.getCategory(), e.getCurrency(), e.getAmount(), e.getDate()));
+        }
+        return rows.toString();
+    }
+
+    private CreateExpenseResponseDTO expense(String category, String currency, String amount, LocalDate date, String description){
+        return CreateExpenseResponseDTO.builder()
+                .category(category)
+                .currency(currency)
+                .amount(new BigDecimal(amount))
+                .date(date)
+                .description(description)
+                .build();
+    }
+}
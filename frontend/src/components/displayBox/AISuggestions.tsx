@@ -22,8 +22,11 @@ export default function AISuggestions({ householdId }: AISuggestionsProps) {
         setIsExpanded(false);
 
         try {
-            const result = await householdAPI.getExpenseSuggestions(householdId);
-            setSuggestions(result);
+            // show text as soon as the first token arrives
+            await householdAPI.streamExpenseSuggestions(householdId, (text) => {
+                setSuggestions((prev) => (prev ?? "") + text);
+                setIsLoading(false);
+            });
         } catch (err) {
             setError(err instanceof Error ? err.message : "Failed to fetch suggestions");
         } finally {
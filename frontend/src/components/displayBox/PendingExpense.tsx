@@ -17,11 +17,11 @@ export default function PendingTasksBox() {
   const sentinelRef = useRef<HTMLDivElement>(null);
   const loadingRef = useRef(false);
   const hasMoreRef = useRef(false);
-  const nextCursorRef = useRef<number | null>(null);
+  const nextCursorRef = useRef<string | null>(null);
 
   const isAdmin = getStoredRole() === "ROLE_ADMIN";
 
-  const fetchPage = useCallback(async (cursor: number | null, reset = false) => {
+  const fetchPage = useCallback(async (cursor: string | null, reset = false) => {
     if (!activeHousehold?.id || loadingRef.current) return;
     loadingRef.current = true;
     setIsLoading(true);
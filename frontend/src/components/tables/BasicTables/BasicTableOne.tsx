@@ -21,8 +21,8 @@ export default function BasicTableOne() {
   const [expenses, setExpenses] = useState<Expense[]>([]);
   const [loading, setLoading] = useState(false);
   const [hasMore, setHasMore] = useState(false);
-  const [nextCursor, setNextCursor] = useState<number | null>(null);
-  const [cursorHistory, setCursorHistory] = useState<(number | null)[]>([null]); // stack of cursors, index 0 = first page
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [cursorHistory, setCursorHistory] = useState<(string | null)[]>([null]); // stack of cursors, index 0 = first page
   const [currentPage, setCurrentPage] = useState(0);
   const [actionError, setActionError] = useState<string | null>(null);
   const [actionLoadingId, setActionLoadingId] = useState<number | null>(null);
@@ -31,7 +31,7 @@ export default function BasicTableOne() {
 
   const isAdmin = localStorage.getItem("memberRole") === "ROLE_ADMIN";
 
-  const fetchPage = useCallback(async (cursor: number | null) => {
+  const fetchPage = useCallback(async (cursor: string | null) => {
     if (!activeHousehold?.id) return;
     setLoading(true);
     try {
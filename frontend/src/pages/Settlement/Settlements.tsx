@@ -38,17 +38,22 @@ const statusBadgeColor = (status: string) => {
 
 type PendingPeriod = "current" | "lastThree";
 
+const PENDING_PAGE_SIZE = 3;
+
+const periodPath = (period: PendingPeriod) =>
+  period === "current" ? "current-month" : "last-three-months";
+
+const emptyStats: SettlementStats = {
+  pendingCount: 0,
+  totalPendingAmount: 0,
+  currency: null,
+};
+
 export default function Settlements() {
   const { activeHousehold } = useHousehold();
   const [settlements, setSettlements] = useState<Settlement[]>([]);
-  const [currentStats, setCurrentStats] = useState<SettlementStats>({
-    pendingSettlements: [],
-    totalPendingAmount: 0,
-  });
-  const [lastThreeStats, setLastThreeStats] = useState<SettlementStats>({
-    pendingSettlements: [],
-    totalPendingAmount: 0,
-  });
+  const [currentStats, setCurrentStats] = useState<SettlementStats>(emptyStats);
+  const [lastThreeStats, setLastThreeStats] = useState<SettlementStats>(emptyStats);
   const [awaitingApprovals, setAwaitingApprovals] = useState<Settlement[]>([]);
   const [pendingPeriod, setPendingPeriod] = useState<PendingPeriod>("current");
   const [error, setError] = useState<string | null>(null);
@@ -57,15 +62,19 @@ export default function Settlements() {
   const [isToggling, setIsToggling] = useState<number | null>(null);
   const [isApproving, setIsApproving] = useState<number | null>(null);
 
-  // Pagination state for "Pending Settlements" (client-side)
-  const PENDING_PAGE_SIZE = 3;
+  // Pagination state for "Pending Settlements", one page of the selected period at a time
+  const [pendingSettlements, setPendingSettlements] = useState<Settlement[]>([]);
   const [pendingPage, setPendingPage] = useState(0);
+  const [pendingCursorHistory, setPendingCursorHistory] = useState<(string | null)[]>([null]);
+  const [pendingHasMore, setPendingHasMore] = useState(false);
+  const [pendingNextCursor, setPendingNextCursor] = useState<string | null>(null);
+  const [isLoadingPending, setIsLoadingPending] = useState(false);
 
   // Pagination state for "All Settlements"
   const [pageIndex, setPageIndex] = useState(0);
-  const [cursorHistory, setCursorHistory] = useState<(number | null)[]>([null]);
+  const [cursorHistory, setCursorHistory] = useState<(string | null)[]>([null]);
   const [hasMoreSettlements, setHasMoreSettlements] = useState(false);
-  const [nextSettlementCursor, setNextSettlementCursor] = useState<number | null>(null);
+  const [nextSettlementCursor, setNextSettlementCursor] = useState<string | null>(null);
   const [isLoadingPage, setIsLoadingPage] = useState(false);
 
   const memberId = getStoredNumber("memberId");
@@ -105,19 +114,49 @@ export default function Settlements() {
     }
   }, [memberId, householdId]);
 
+  const loadPendingPage = useCallback(
+    async (cursor: string | null, page: number) => {
+      if (!memberId || !householdId) return;
+      setIsLoadingPending(true);
+      try {
+        const result = await settlementAPI.getPendingSettlements(
+          memberId,
+          householdId,
+          periodPath(pendingPeriod),
+          cursor,
+          PENDING_PAGE_SIZE,
+        );
+        setPendingSettlements(result.data);
+        setPendingHasMore(result.hasMore);
+        setPendingNextCursor(result.nextCursor);
+        setPendingCursorHistory((prev) => [...prev.slice(0, page), cursor]);
+        setPendingPage(page);
+      } catch (err) {
+        setError(err instanceof Error ? err.message : "Failed to load pending settlements.");
+      } finally {
+        setIsLoadingPending(false);
+      }
+    },
+    [memberId, householdId, pendingPeriod],
+  );
+
+  const refreshAll = useCallback(async () => {
+    await Promise.all([loadSettlements(), loadPendingPage(null, 0)]);
+  }, [loadSettlements, loadPendingPage]);
+
   useEffect(() => {
     void loadSettlements();
   }, [loadSettlements]);
 
+  // First page again when switching period tabs
+  useEffect(() => {
+    void loadPendingPage(null, 0);
+  }, [loadPendingPage]);
+
   useExpenseEventRefresh(() => {
-    void loadSettlements();
+    void refreshAll();
   });
 
-  // Reset pending page when switching period tabs
-  useEffect(() => {
-    setPendingPage(0);
-  }, [pendingPeriod]);
-
   const handleToggleStatus = async (settlementId: number) => {
     if (!memberId) {
       setError("Missing member information. Please sign in again.");
@@ -131,7 +170,7 @@ export default function Settlements() {
     try {
       await settlementAPI.toggleSettlementStatus(settlementId, memberId);
       setSuccessMessage("Settlement status updated successfully.");
-      await loadSettlements();
+      await refreshAll();
     } catch (err) {
       setError(err instanceof Error ? err.message : "Failed to update status.");
     } finally {
@@ -152,7 +191,7 @@ export default function Settlements() {
     try {
       await settlementAPI.approveSettlement(settlementId, memberId);
       setSuccessMessage("Settlement approved successfully.");
-      await loadSettlements();
+      await refreshAll();
     } catch (err) {
       setError(err instanceof Error ? err.message : "Failed to approve settlement.");
     } finally {
@@ -173,7 +212,7 @@ export default function Settlements() {
     try {
       await settlementAPI.rejectSettlement(settlementId, memberId);
       setSuccessMessage("Settlement rejected successfully.");
-      await loadSettlements();
+      await refreshAll();
     } catch (err) {
       setError(err instanceof Error ? err.message : "Failed to reject settlement.");
     } finally {
@@ -184,11 +223,6 @@ export default function Settlements() {
   const selectedStats =
     pendingPeriod === "current" ? currentStats : lastThreeStats;
 
-  // Pending settlements — client-side pagination
-  const paginatedPendingSettlements = selectedStats.pendingSettlements.slice(
-    pendingPage * PENDING_PAGE_SIZE,
-    (pendingPage + 1) * PENDING_PAGE_SIZE,
-  );
 
   const handleNextPage = async () => {
     if (!hasMoreSettlements || !memberId || !householdId || isLoadingPage) return;
@@ -261,12 +295,12 @@ export default function Settlements() {
               <p className="text-2xl font-semibold text-gray-800 dark:text-white/90">
                 {formatAmount(
                   selectedStats.totalPendingAmount,
-                  selectedStats.pendingSettlements[0]?.currency
+                  selectedStats.currency
                 )}
               </p>
             </div>
             <Badge color="warning">
-              {selectedStats.pendingSettlements.length} pending
+              {selectedStats.pendingCount} pending
             </Badge>
           </div>
         </div>
@@ -309,12 +343,12 @@ export default function Settlements() {
           </div>
 
           <div className="mt-5 space-y-3 min-h-[calc(3*(5rem+0.75rem))]">
-            {paginatedPendingSettlements.length === 0 && !isLoading ? (
+            {pendingSettlements.length === 0 && !isLoading && !isLoadingPending ? (
               <p className="text-sm text-gray-500 dark:text-gray-400">
                 No pending settlements found.
               </p>
             ) : (
-              paginatedPendingSettlements.map((settlement) => (
+              pendingSettlements.map((settlement) => (
                 <div
                   key={settlement.id}
                   className="flex flex-col gap-3 rounded-xl border border-gray-100 bg-gray-50 p-4 dark:border-gray-800 dark:bg-gray-900/40 sm:flex-row sm:items-center sm:justify-between"
@@ -353,13 +387,13 @@ export default function Settlements() {
           </div>
 
           {/* Pending Settlements Pagination */}
-          {selectedStats.pendingSettlements.length > PENDING_PAGE_SIZE && (
+          {(pendingPage > 0 || pendingHasMore) && (
             <div className="mt-4 flex items-center justify-between">
               <Button
                 size="sm"
                 variant="outline"
-                onClick={() => setPendingPage((p) => p - 1)}
-                disabled={pendingPage === 0 || isLoading}
+                onClick={() => void loadPendingPage(pendingCursorHistory[pendingPage - 1] ?? null, pendingPage - 1)}
+                disabled={pendingPage === 0 || isLoading || isLoadingPending}
               >
                 ← Previous
               </Button>
@@ -369,8 +403,8 @@ export default function Settlements() {
               <Button
                 size="sm"
                 variant="outline"
-                onClick={() => setPendingPage((p) => p + 1)}
-                disabled={(pendingPage + 1) * PENDING_PAGE_SIZE >= selectedStats.pendingSettlements.length || isLoading}
+                onClick={() => void loadPendingPage(pendingNextCursor, pendingPage + 1)}
+                disabled={!pendingHasMore || isLoading || isLoadingPending}
               >
                 Next →
               </Button>
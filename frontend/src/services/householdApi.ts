@@ -47,10 +47,21 @@ type ExpenseRange = "DAILY" | "WEEKLY" | "MONTHLY";
 
 export interface CursorPageResponse<T> {
   data: T[];
-  nextCursor: number | null;
+  nextCursor: string | null;
   hasMore: boolean;
 }
 
+export interface AiExpenseJob {
+  jobId: string;
+  status: "PENDING" | "SUCCEEDED" | "FAILED";
+  expenseId?: number;
+  error?: string;
+}
+
+const AI_JOB_POLL_MS = 1000;
+// stop polling after this, the server fails jobs it lost on its own
+const AI_JOB_MAX_WAIT_MS = 3 * 60 * 1000;
+
 export const householdAPI = {
   /**
    * Get all households for current user
@@ -114,14 +125,28 @@ export const householdAPI = {
   },
 
   /**
-   * Create a new expense from an AI paragraph prompt
+   * Create a new expense from an AI paragraph prompt.
+   * The parse runs as a background job on the server; poll until it finishes or AI_JOB_MAX_WAIT_MS passes.
    */
   createExpenseWithAI: async (householdId: number | string, paragraph: string) => {
-    const response = await apiRequest(`/households/${householdId}/expenses/ai`, {
+    const submitted = await apiRequest(`/households/${householdId}/expenses/ai/jobs`, {
       method: "POST",
       body: JSON.stringify(paragraph),
     });
-    return response.json();
+    let job: AiExpenseJob = await submitted.json();
+    const deadline = Date.now() + AI_JOB_MAX_WAIT_MS;
+    while (job.status === "PENDING") {
+      if (Date.now() >= deadline) {
+        throw new Error("AI is taking too long, check the expense list again in a few minutes");
+      }
+      await new Promise((resolve) => setTimeout(resolve, AI_JOB_POLL_MS));
+      const response = await apiRequest(`/households/${householdId}/expenses/ai/jobs/${job.jobId}`);
+      job = await response.json();
+    }
+    if (job.status === "FAILED") {
+      throw new Error(job.error || "Failed to auto-generate expense");
+    }
+    return { id: job.expenseId };
   },
   /**
    * Get paginated expenses for a household using cursor-based pagination.
@@ -130,7 +155,7 @@ export const householdAPI = {
   getHouseholdExpenses: async (
     householdId: number | string,
     limit = 10,
-    cursor?: number | null,
+    cursor?: string | null,
   ): Promise<CursorPageResponse<Expense>> => {
     const params = new URLSearchParams({ limit: String(limit) });
     if (cursor != null) params.set("cursor", String(cursor));
@@ -149,7 +174,7 @@ export const householdAPI = {
   getPendingExpenses: async (
     householdId: number | string,
     limit = 2,
-    cursor?: number | null,
+    cursor?: string | null,
   ): Promise<CursorPageResponse<Expense>> => {
     const params = new URLSearchParams({ status: "PENDING", limit: String(limit) });
     if (cursor != null) params.set("cursor", String(cursor));
@@ -190,4 +215,43 @@ export const householdAPI = {
     const response = await apiRequest(`/households/${householdId}/suggestions`);
     return response.text();
   },
+
+  /**
+   * Stream AI suggestions as server-sent events, onToken is called for each piece of text
+   */
+  streamExpenseSuggestions: async (
+    householdId: number | string,
+    onToken: (text: string) => void
+  ): Promise<void> => {
+    const response = await apiRequest(`/households/${householdId}/suggestions/stream`, {
+      headers: { Accept: "text/event-stream" },
+    });
+    if (!response.body) {
+      onToken(await response.text());
+      return;
+    }
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = "";
+    for (;;) {
+      const { done, value } = await reader.read();
+      if (done) return;
+      buffer += decoder.decode(value, { stream: true });
+      const events = buffer.split(/\r?\n\r?\n/);
+      buffer = events.pop() ?? "";
+      for (const raw of events) {
+        let event = "message";
+        const data: string[] = [];
+        for (const line of raw.split(/\r?\n/)) {
+          if (line.startsWith("event:")) event = line.slice(6).trim();
+          else if (line.startsWith("data:")) data.push(line.slice(5));
+        }
+        if (data.length === 0) continue;
+        const chunk = JSON.parse(data.join("\n")) as { text: string };
+        if (event === "error") throw new Error(chunk.text);
+        if (event === "done") return;
+        onToken(chunk.text);
+      }
+    }
+  },
 };
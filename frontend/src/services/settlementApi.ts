@@ -15,21 +15,31 @@ export interface Settlement {
 }
 
 export interface SettlementStats {
-  pendingSettlements: Settlement[];
+  pendingCount: number;
   totalPendingAmount: number | string;
+  // null when the period mixes currencies
+  currency: string | null;
 }
 
+export type PendingPeriodPath = "current-month" | "last-three-months";
+
+const toStats = (data?: Partial<SettlementStats>): SettlementStats => ({
+  pendingCount: data?.pendingCount ?? 0,
+  totalPendingAmount: data?.totalPendingAmount ?? 0,
+  currency: data?.currency ?? null,
+});
+
 export interface CursorPaginatedResult<T> {
   data: T[];
   hasMore: boolean;
-  nextCursor: number | null;
+  nextCursor: string | null;
 }
 
 export const settlementAPI = {
   getSettlements: async (
     memberId: number,
     householdId: number,
-    cursor?: number | null,
+    cursor?: string | null,
     limit = 3,
   ): Promise<CursorPaginatedResult<Settlement>> => {
     const params = new URLSearchParams({ limit: String(limit) });
@@ -41,7 +51,7 @@ export const settlementAPI = {
       settlements?: {
         data?: Settlement[];
         hasMore?: boolean;
-        nextCursor?: number | null;
+        nextCursor?: string | null;
       };
     };
     return {
@@ -56,14 +66,9 @@ export const settlementAPI = {
       `/settlements/pending/${memberId}/${householdId}/current-month`
     );
     const data = (await response.json()) as {
-      data?: SettlementStats;
+      data?: Partial<SettlementStats>;
     };
-    return (
-      data.data ?? {
-        pendingSettlements: [],
-        totalPendingAmount: 0,
-      }
-    );
+    return toStats(data.data);
   },
 
   getLastThreeMonthsStats: async (memberId: number, householdId: number) => {
@@ -71,14 +76,35 @@ export const settlementAPI = {
       `/settlements/pending/${memberId}/${householdId}/last-three-months`
     );
     const data = (await response.json()) as {
-      data?: SettlementStats;
+      data?: Partial<SettlementStats>;
     };
-    return (
-      data.data ?? {
-        pendingSettlements: [],
-        totalPendingAmount: 0,
-      }
+    return toStats(data.data);
+  },
+
+  getPendingSettlements: async (
+    memberId: number,
+    householdId: number,
+    period: PendingPeriodPath,
+    cursor?: string | null,
+    limit = 3,
+  ): Promise<CursorPaginatedResult<Settlement>> => {
+    const params = new URLSearchParams({ limit: String(limit) });
+    if (cursor != null) params.append("cursor", String(cursor));
+    const response = await apiRequest(
+      `/settlements/pending/${memberId}/${householdId}/${period}/settlements?${params.toString()}`,
     );
+    const data = (await response.json()) as {
+      settlements?: {
+        data?: Settlement[];
+        hasMore?: boolean;
+        nextCursor?: string | null;
+      };
+    };
+    return {
+      data: data.settlements?.data ?? [],
+      hasMore: data.settlements?.hasMore ?? false,
+      nextCursor: data.settlements?.nextCursor ?? null,
+    };
   },
 
   toggleSettlementStatus: async (settlementId: number, memberId: number) => {